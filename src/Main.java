@@ -1,16 +1,26 @@
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 
 import controller.ControllerGUI;
 import controller.ControllerImpl;
 import controller.IController;
+import controller.ScriptMode;
+import model.CompressingImageDataBase;
+import model.ConcurrentImageDataBase;
+import model.DedupImageDataBase;
+import model.DirectoryImageDataBase;
 import model.IImageDataBase;
 import model.ImageDataBase;
+import model.SpillingImageDataBase;
 import view.View;
 
 
@@ -20,6 +30,9 @@ import view.View;
  * over the game.
  */
 public class Main {
+  private static final String STORES = "Only one image store can be chosen: -dedup, -memory M, "
+          + "-cold S or -store D. The one exception is -cold S -memory M, which compresses images "
+          + "unused for S seconds and also once the images take more than M megabytes.";
 
   /**
    * Constructor for main driver object.
@@ -27,26 +40,79 @@ public class Main {
    * @param args arguments passed to the main driver.
    */
   public static void main(String[] args) {
-    IImageDataBase modelDB = new ImageDataBase();
+    List<String> arguments = new ArrayList<>(Arrays.asList(args));
+    // -j N anywhere on the command line runs a script's independent commands on N threads
+    int threads = option(arguments, "-j", 1);
+    if (threads < 1) {
+      System.out.println("The -j option needs a number of threads of at least 1.");
+      return;
+    }
+    // -memory M keeps at most M megabytes of images in memory, spilling the rest to disk
+    int megabytes = option(arguments, "-memory", Integer.MAX_VALUE);
+    if (megabytes < 1) {
+      System.out.println("The -memory option needs a number of megabytes of at least 1.");
+      return;
+    }
+    // -cold S compresses the images in memory that were not used for S seconds
+    int seconds = option(arguments, "-cold", Integer.MAX_VALUE);
+    if (seconds < 1) {
+      System.out.println("The -cold option needs a number of seconds of at least 1.");
+      return;
+    }
+    // -dedup keeps one copy of images that are the same however many ids they are stored under
+    boolean dedup = arguments.remove("-dedup");
+    // -store D keeps the images in directory D, where the next run finds them again
+    int store = arguments.indexOf("-store");
+    if (store >= 0 && store + 1 >= arguments.size()) {
+      System.out.println("The -store option needs a directory.");
+      return;
+    }
+    // -memory only goes with -cold, where it is the budget of the compressed store
+    int stores = (dedup ? 1 : 0) + (store >= 0 ? 1 : 0) + (seconds != Integer.MAX_VALUE ? 1 : 0)
+            + (megabytes != Integer.MAX_VALUE && seconds == Integer.MAX_VALUE ? 1 : 0);
+    if (stores > 1) {
+      System.out.println(STORES);
+      return;
+    }
+    IImageDataBase modelDB;
+    if (store >= 0) {
+      modelDB = new DirectoryImageDataBase(new File(arguments.get(store + 1)));
+      arguments.subList(store, store + 2).clear();
+    } else if (seconds != Integer.MAX_VALUE) {
+      modelDB = new CompressingImageDataBase(megabytes == Integer.MAX_VALUE ? Long.MAX_VALUE
+              : megabytes * 1024L * 1024L, seconds * 1000L);
+    } else if (megabytes != Integer.MAX_VALUE) {
+      modelDB = new SpillingImageDataBase(megabytes * 1024L * 1024L);
+    } else if (dedup) {
+      modelDB = new DedupImageDataBase();
+    } else if (arguments.size() > 2 && arguments.get(0).equals("-file")) {
+      // several scripts run at the same time, so they need a database they can share
+      modelDB = new ConcurrentImageDataBase();
+    } else {
+      modelDB = new ImageDataBase();
+    }
+    args = arguments.toArray(new String[0]);
 
     if (args.length >= 2 && args[0].equals("-file")) {
       // if -file option provided, then this is the input for the program
-      String filePath = args[1];
-      try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-        StringBuilder fileContents = new StringBuilder();
-        String newLineCommand;
-        while ((newLineCommand = br.readLine()) != null) {
-          fileContents.append(newLineCommand).append("\n");
+      List<String> scripts = new ArrayList<>();
+      for (int i = 1; i < args.length; i++) {
+        try (BufferedReader br = new BufferedReader(new FileReader(args[i]))) {
+          StringBuilder fileContents = new StringBuilder();
+          String newLineCommand;
+          while ((newLineCommand = br.readLine()) != null) {
+            fileContents.append(newLineCommand).append("\n");
+          }
+          System.out.println(fileContents.toString());
+          System.out.println("\n");
+          scripts.add(fileContents.toString());
+        } catch (IOException e) {
+          System.out.println("Error reading file.");
+          return;
         }
-        Readable readable = new StringReader(fileContents.toString());
-        System.out.println(fileContents.toString());
-        System.out.println("\n");
-        IController controller = new ControllerImpl(readable, modelDB, System.out);
-        controller.start();
-      } catch (IOException e) {
-        System.out.println("Error reading file.");
       }
-    } if (args.length >= 1 && args[0].equals("-text")) {
+      runScripts(scripts, modelDB, threads);
+    } else if (args.length >= 1 && args[0].equals("-text")) {
       // otherwise, use the standard input with InputStreamReader
       IController controller = new ControllerImpl(
               new InputStreamReader(System.in), modelDB, System.out);
@@ -57,4 +123,44 @@ public class Main {
       controller.run();
     }
   }
+
+  // runs scripts against one database, each on a thread of its own if there are several
+  private static void runScripts(List<String> scripts, IImageDataBase modelDB, int threads) {
+    List<Thread> running = new ArrayList<>();
+    for (String script : scripts) {
+      running.add(new Thread(() -> new ControllerImpl(new StringReader(script), modelDB,
+              System.out, ScriptMode.PLANNED, threads).start()));
+    }
+    if (running.size() == 1) {
+      running.get(0).run();
+      return;
+    }
+    for (Thread thread : running) {
+      thread.start();
+    }
+    try {
+      for (Thread thread : running) {
+        thread.join();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // removes an option and its number from the arguments, giving the number, the default if the
+  // option is not there or 0 if its number is missing or not a number
+  private static int option(List<String> arguments, String name, int absent) {
+    int index = arguments.indexOf(name);
+    if (index < 0) {
+      return absent;
+    }
+    int value;
+    try {
+      value = Integer.parseInt(arguments.get(index + 1));
+    } catch (IndexOutOfBoundsException | NumberFormatException e) {
+      return 0;
+    }
+    arguments.subList(index, index + 2).clear();
+    return value;
+  }
 }
@@ -0,0 +1,152 @@
+package controller;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Objects;
+
+import model.IImageState;
+
+/**
+ * Represents a BufferedImage seen as an IImageState, without copying it. The channel values are
+ * read straight out of the array behind the image's raster, so wrapping even a large photo costs
+ * nothing, and reading it row by row costs little more than reading a PackedImageImpl. Alpha is
+ * ignored, as it is everywhere else in the program.
+ *
+ * <p>Only the layouts ImageIO and this program produce most often can be wrapped: one packed int
+ * per pixel (TYPE_INT_RGB and TYPE_INT_ARGB) and three or four interleaved bytes per pixel
+ * (TYPE_3BYTE_BGR and TYPE_4BYTE_ABGR). The view reads through to the BufferedImage, so the
+ * BufferedImage must not be drawn on while the view is in use.
+ */
+public class BufferedImageState implements IImageState {
+  private final int width;
+  private final int height;
+  private final int[] ints; // the pixels of an int image, or null
+  private final byte[] bytes; // the samples of a byte image, or null
+  private final int origin; // index of the first element of pixel (0, 0)
+  private final int scanline; // distance in the array from one row to the next
+  private final int pixelStride; // distance in the array from one pixel to the next
+  private final int red; // where each channel sits within a pixel of a byte image
+  private final int green;
+  private final int blue;
+
+  /**
+   * Constructs a view of a BufferedImage.
+   * @param image the image to read through to.
+   * @throws IllegalArgumentException if the image's layout cannot be wrapped, see isSupported.
+   */
+  public BufferedImageState(BufferedImage image) throws IllegalArgumentException {
+    if (!isSupported(Objects.requireNonNull(image))) {
+      throw new IllegalArgumentException("Image type cannot be wrapped.");
+    }
+    WritableRaster raster = image.getRaster();
+    DataBuffer buffer = raster.getDataBuffer();
+    // a raster shared with a larger image (see BufferedImage.getSubimage) is translated
+    int x = -raster.getSampleModelTranslateX();
+    int y = -raster.getSampleModelTranslateY();
+    this.width = image.getWidth();
+    this.height = image.getHeight();
+
+    if (buffer instanceof DataBufferInt) {
+      SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+      this.ints = ((DataBufferInt) buffer).getData();
+      this.bytes = null;
+      this.pixelStride = 1;
+      this.scanline = model.getScanlineStride();
+      this.red = 0;
+      this.green = 0;
+      this.blue = 0;
+    } else {
+      ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+      int[] offsets = model.getBandOffsets();
+      this.ints = null;
+      this.bytes = ((DataBufferByte) buffer).getData();
+      this.pixelStride = model.getPixelStride();
+      this.scanline = model.getScanlineStride();
+      this.red = offsets[0];
+      this.green = offsets[1];
+      this.blue = offsets[2];
+    }
+    this.origin = buffer.getOffset() + y * this.scanline + x * this.pixelStride;
+  }
+
+  /**
+   * Returns whether a BufferedImage can be wrapped without copying it.
+   * @param image the image.
+   * @return true for TYPE_INT_RGB, TYPE_INT_ARGB, TYPE_3BYTE_BGR and TYPE_4BYTE_ABGR images.
+   */
+  public static boolean isSupported(BufferedImage image) {
+    switch (image.getType()) {
+      case BufferedImage.TYPE_INT_RGB:
+      case BufferedImage.TYPE_INT_ARGB:
+      case BufferedImage.TYPE_3BYTE_BGR:
+      case BufferedImage.TYPE_4BYTE_ABGR:
+        return image.getRaster().getDataBuffer().getNumBanks() == 1;
+      default:
+        return false;
+    }
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getRedChannel(int x, int y) {
+    return (pixel(x, y) >> 16) & 0xFF;
+  }
+
+  @Override
+  public int getGreenChannel(int x, int y) {
+    return (pixel(x, y) >> 8) & 0xFF;
+  }
+
+  @Override
+  public int getBlueChannel(int x, int y) {
+    return pixel(x, y) & 0xFF;
+  }
+
+  @Override
+  public void getRGB(int x, int y, int w, int h, int[] dest, int offset, int scansize) {
+    if (x < 0 || y < 0 || w < 0 || h < 0 || x + w > this.width || y + h > this.height) {
+      throw new IllegalArgumentException("x or y outside of bounds.");
+    }
+    for (int j = 0; j < h; j++) {
+      int from = this.origin + (y + j) * this.scanline + x * this.pixelStride;
+      int to = offset + j * scansize;
+      if (this.ints != null) {
+        for (int i = 0; i < w; i++) {
+          dest[to + i] = this.ints[from + i] & 0xFFFFFF;
+        }
+      } else {
+        for (int i = 0; i < w; i++, from += this.pixelStride) {
+          dest[to + i] = (this.bytes[from + this.red] & 0xFF) << 16
+                  | (this.bytes[from + this.green] & 0xFF) << 8 | this.bytes[from + this.blue] & 0xFF;
+        }
+      }
+    }
+  }
+
+  // the packed 0xRRGGBB value of one pixel
+  private int pixel(int x, int y) {
+    if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+      throw new IllegalArgumentException("x or y outside of bounds.");
+    }
+    int index = this.origin + y * this.scanline + x * this.pixelStride;
+    if (this.ints != null) {
+      return this.ints[index] & 0xFFFFFF;
+    }
+    return (this.bytes[index + this.red] & 0xFF) << 16
+            | (this.bytes[index + this.green] & 0xFF) << 8 | this.bytes[index + this.blue] & 0xFF;
+  }
+}
@@ -69,7 +69,7 @@ public class ControllerGUI implements IControllerGUI, ViewListener {
       return;
     }
 
-    IImageState imageState = ImageUtil.convertToIImageState(loadedImage);
+    IImageState imageState = ImageUtil.wrap(loadedImage);
     model.add(filename, imageState);
   }
 
@@ -85,7 +85,7 @@ public class ControllerGUI implements IControllerGUI, ViewListener {
     String destID = "blurredImage";
 
     BufferedImage loadedImage = view.getCurrentImage();
-    IImageState imageState = ImageUtil.convertToIImageState(loadedImage);
+    IImageState imageState = ImageUtil.wrap(loadedImage);
     IImageState blurredImage = blurTransformation.run(imageState);
     model.add(destID, blurredImage);
 
@@ -105,7 +105,7 @@ public class ControllerGUI implements IControllerGUI, ViewListener {
     String destID = "sharpenedImage";
 
     BufferedImage loadedImage = view.getCurrentImage();
-    IImageState imageState = ImageUtil.convertToIImageState(loadedImage);
+    IImageState imageState = ImageUtil.wrap(loadedImage);
     IImageState sharpenedImage = sharpenTransformation.run(imageState);
     model.add(destID, sharpenedImage);
 
@@ -126,7 +126,7 @@ public class ControllerGUI implements IControllerGUI, ViewListener {
     String destID = "GreyscaleValueComponentImage";
 
     BufferedImage loadedImage = view.getCurrentImage();
-    IImageState imageState = ImageUtil.convertToIImageState(loadedImage);
+    IImageState imageState = ImageUtil.wrap(loadedImage);
     IImageState greyscaleImageValue = valueTransformation.run(imageState);
     model.add(destID, greyscaleImageValue);
 
@@ -147,7 +147,7 @@ public class ControllerGUI implements IControllerGUI, ViewListener {
     String destID = "GreyscaleIntensityComponentImage";
 
     BufferedImage loadedImage = view.getCurrentImage();
-    IImageState imageState = ImageUtil.convertToIImageState(loadedImage);
+    IImageState imageState = ImageUtil.wrap(loadedImage);
     IImageState greyscaleImageIntensity = intensityTransform.run(imageState);
     model.add(destID, greyscaleImageIntensity);
 
@@ -169,7 +169,7 @@ public class ControllerGUI implements IControllerGUI, ViewListener {
     String destID = "LumaIntensityComponentImage";
 
     BufferedImage loadedImage = view.getCurrentImage();
-    IImageState imageState = ImageUtil.convertToIImageState(loadedImage);
+    IImageState imageState = ImageUtil.wrap(loadedImage);
     IImageState greyscaleImageLuma = lumaTransformation.run(imageState);
     model.add(destID, greyscaleImageLuma);
 
@@ -191,7 +191,7 @@ public class ControllerGUI implements IControllerGUI, ViewListener {
     String destID = "RedChannelImage";
 
     BufferedImage loadedImage = view.getCurrentImage();
-    IImageState imageState = ImageUtil.convertToIImageState(loadedImage);
+    IImageState imageState = ImageUtil.wrap(loadedImage);
     IImageState greyscaleRed = channelTransformation.run(imageState);
     model.add(destID, greyscaleRed);
 
@@ -213,7 +213,7 @@ public class ControllerGUI implements IControllerGUI, ViewListener {
     String destID = "GreenChannelImage";
 
     BufferedImage loadedImage = view.getCurrentImage();
-    IImageState imageState = ImageUtil.convertToIImageState(loadedImage);
+    IImageState imageState = ImageUtil.wrap(loadedImage);
     IImageState greyscaleGreen = channelTransformation.run(imageState);
     model.add(destID, greyscaleGreen);
 
@@ -235,7 +235,7 @@ public class ControllerGUI implements IControllerGUI, ViewListener {
     String destID = "BlueChannelImage";
 
     BufferedImage loadedImage = view.getCurrentImage();
-    IImageState imageState = ImageUtil.convertToIImageState(loadedImage);
+    IImageState imageState = ImageUtil.wrap(loadedImage);
     IImageState greyscaleBlue = channelTransformation.run(imageState);
     model.add(destID, greyscaleBlue);
 
@@ -262,7 +262,7 @@ public class ControllerGUI implements IControllerGUI, ViewListener {
       String destID = "BrightenedImage";
 
       BufferedImage loadedImage = view.getCurrentImage();
-      IImageState imageState = ImageUtil.convertToIImageState(loadedImage);
+      IImageState imageState = ImageUtil.wrap(loadedImage);
       IImageState brightenedImage = brightenTransformation.run(imageState);
       model.add(destID, brightenedImage);
 
@@ -297,7 +297,7 @@ public class ControllerGUI implements IControllerGUI, ViewListener {
 
     BufferedImage currentCanvasImage = view.getCurrentImage();
     //convert to IImageState
-    IImageState imageState = ImageUtil.convertToIImageState(currentCanvasImage);
+    IImageState imageState = ImageUtil.wrap(currentCanvasImage);
 
     String fileName = view.getCurrentFilename();
   }
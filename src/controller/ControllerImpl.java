@@ -2,25 +2,39 @@ package controller;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import controller.commands.BlurCommand;
 import controller.commands.BrightenCommand;
+import controller.commands.FastBlurCommand;
+import controller.commands.GammaCommand;
+import controller.commands.GaussianBlurCommand;
 import controller.commands.GreyscaleChannelCommand;
 import controller.commands.GreyscaleIntensityCommand;
 import controller.commands.GreyscaleLumaCommand;
 import controller.commands.GreyscaleValueCommand;
 import controller.commands.ICommand;
+import controller.commands.ITransformationCommand;
+import controller.commands.LevelsAdjustCommand;
+import controller.commands.LoadBMPCommand;
 import controller.commands.LoadCommand;
 
 import controller.commands.LoadPPMCommand;
+import controller.commands.PosterizeCommand;
 import controller.commands.SaveCommand;
 import controller.commands.SavePPMCommand;
 import controller.commands.SharpenCommand;
 import model.IImageDataBase;
+import model.IImageState;
+import model.transformations.ITransformation;
+import model.transformations.TransformationPipeline;
 
 
 /**
@@ -31,6 +45,9 @@ public class ControllerImpl implements IController {
   private final IImageDataBase model;
   private final Appendable appendable; //just use appendable for now so that we can TEST it!
 
+  private final ScriptMode mode;
+  private final int threads; // how many commands a planned script may run at once
+
   private final Map<String, ICommand> commandMap;
 
   /**
@@ -41,9 +58,48 @@ public class ControllerImpl implements IController {
    * @param appendable to store and represent the output.
    */
   public ControllerImpl(Readable input, IImageDataBase model, Appendable appendable) {
+    this(input, model, appendable, ScriptMode.IMMEDIATE);
+  }
+
+  /**
+   * Constructs the ControllerImpl object in the given mode. In the FUSED and PLANNED modes the
+   * controller reads the whole script before it runs anything, which suits a script file but not
+   * a user typing commands. In FUSED mode it sees when a transformation writes an image that only
+   * the next transformation reads and that no later command mentions again; such chains run as
+   * one TransformationPipeline, and only the last image of the chain is stored. In PLANNED mode
+   * it goes further and only computes what the script's save commands need, once, see ScriptPlan.
+   * @param input readable as command input.
+   * @param model database that holds the images.
+   * @param appendable to store and represent the output.
+   * @param mode how the commands are run.
+   */
+  public ControllerImpl(Readable input, IImageDataBase model, Appendable appendable,
+                        ScriptMode mode) {
+    this(input, model, appendable, mode, 1);
+  }
+
+  /**
+   * Constructs the ControllerImpl object in the given mode, running a planned script on a pool of
+   * threads. Commands that do not depend on each other, such as edits to two different images,
+   * then run at the same time. The images, files and messages are the same as on one thread.
+   * @param input readable as command input.
+   * @param model database that holds the images.
+   * @param appendable to store and represent the output.
+   * @param mode how the commands are run.
+   * @param threads how many commands may run at once in PLANNED mode, 1 runs them all on the
+   *     calling thread.
+   * @throws IllegalArgumentException if threads is less than 1.
+   */
+  public ControllerImpl(Readable input, IImageDataBase model, Appendable appendable,
+                        ScriptMode mode, int threads) throws IllegalArgumentException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Number of threads must be at least 1.");
+    }
     this.input = Objects.requireNonNull(input);
     this.model = Objects.requireNonNull(model);
     this.appendable = Objects.requireNonNull(appendable);
+    this.mode = Objects.requireNonNull(mode);
+    this.threads = threads;
 
     this.commandMap = new HashMap<String, ICommand>();
     this.commandMap.put("load", new LoadCommand());
@@ -51,12 +107,18 @@ public class ControllerImpl implements IController {
     this.commandMap.put("savePPM", new SavePPMCommand());
     this.commandMap.put("save", new SaveCommand());
     this.commandMap.put("loadPPM", new LoadPPMCommand());
+    this.commandMap.put("loadBMP", new LoadBMPCommand());
     this.commandMap.put("luma-component", new GreyscaleLumaCommand());
     this.commandMap.put("intensity-component", new GreyscaleIntensityCommand());
     this.commandMap.put("value-component", new GreyscaleValueCommand());
     this.commandMap.put("color-channel", new GreyscaleChannelCommand());
     this.commandMap.put("blur", new BlurCommand());
     this.commandMap.put("sharpen", new SharpenCommand());
+    this.commandMap.put("gaussian-blur", new GaussianBlurCommand());
+    this.commandMap.put("fast-blur", new FastBlurCommand());
+    this.commandMap.put("levels-adjust", new LevelsAdjustCommand());
+    this.commandMap.put("gamma", new GammaCommand());
+    this.commandMap.put("posterize", new PosterizeCommand());
   }
 
   private void write(String message) {
@@ -70,7 +132,36 @@ public class ControllerImpl implements IController {
   @Override
   public void start() {
     Scanner scanner = new Scanner(this.input);
+    if (this.mode == ScriptMode.IMMEDIATE) {
+      runCommands(scanner);
+      return;
+    }
+    List<String> tokens = new ArrayList<>();
+    while (scanner.hasNext()) {
+      tokens.add(scanner.next());
+    }
+    if (this.mode == ScriptMode.FUSED) {
+      runFused(tokens);
+      return;
+    }
+    ScriptPlan plan = new ScriptPlan(this.commandMap, this.model, tokens);
+    if (this.threads == 1) {
+      plan.run(this::write);
+    } else {
+      ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+      try {
+        plan.run(this::write, pool);
+      } finally {
+        pool.shutdown();
+      }
+    }
+    if (!plan.remainder().isEmpty()) {
+      runCommands(remainder(plan.remainder(), 0));
+    }
+  }
 
+  // runs the commands one at a time as they are read
+  private void runCommands(Scanner scanner) {
     while (scanner.hasNext()) {
       String command = scanner.next();
       //This is where the COMMAND PATTERN starts!
@@ -87,4 +178,87 @@ public class ControllerImpl implements IController {
       }
     }
   }
+
+  /**
+   * Runs a whole script, fusing chains of transformations. A transformation joins the chain
+   * when it reads the image the chain has written so far, and that image is not mentioned
+   * anywhere from the new transformation's destination onward. Anything out of the ordinary,
+   * such as a command cut short or an invalid parameter, hands the rest of the script to
+   * runCommands so that it reports exactly what running the commands one at a time would.
+   */
+  private void runFused(List<String> tokens) {
+    int position = 0;
+    while (position < tokens.size()) {
+      ICommand command = this.commandMap.get(tokens.get(position));
+      if (command == null) {
+        write("Invalid command.");
+        position++;
+        continue;
+      }
+      int end = position + 1 + command.getArgumentCount();
+      if (end > tokens.size()) {
+        runCommands(remainder(tokens, position));
+        return;
+      }
+      if (!(command instanceof ITransformationCommand)) {
+        try {
+          command.run(remainder(tokens.subList(0, end), position + 1), this.model);
+        } catch (IllegalStateException e) {
+          write(e.getMessage());
+        }
+        position = end;
+        continue;
+      }
+
+      TransformationPipeline pipeline = new TransformationPipeline();
+      try {
+        pipeline.then(transformation(tokens, position));
+      } catch (IllegalStateException e) {
+        runCommands(remainder(tokens, position));
+        return;
+      }
+      String sourceID = tokens.get(end - 2);
+      String destID = tokens.get(end - 1);
+      IImageState sourceImage = this.model.get(sourceID);
+      if (sourceImage == null) {
+        write("Image with specified id doesn't exist.");
+        position = end;
+        continue;
+      }
+
+      while (end < tokens.size()) {
+        ICommand next = this.commandMap.get(tokens.get(end));
+        if (!(next instanceof ITransformationCommand)) {
+          break;
+        }
+        int nextEnd = end + 1 + next.getArgumentCount();
+        if (nextEnd > tokens.size() || !tokens.get(nextEnd - 2).equals(destID)
+                || tokens.subList(nextEnd - 1, tokens.size()).contains(destID)) {
+          break;
+        }
+        try {
+          pipeline.then(transformation(tokens, end));
+        } catch (IllegalStateException e) {
+          break;
+        }
+        destID = tokens.get(nextEnd - 1);
+        end = nextEnd;
+      }
+      this.model.add(destID, pipeline.run(sourceImage));
+      position = end;
+    }
+  }
+
+  // reads the transformation of the transformation command at the given position
+  private ITransformation transformation(List<String> tokens, int position) {
+    ITransformationCommand command = (ITransformationCommand) this.commandMap.get(
+            tokens.get(position));
+    int parameters = command.getParameterCount();
+    return command.getTransformation(
+            remainder(tokens.subList(0, position + 1 + parameters), position + 1));
+  }
+
+  private static Scanner remainder(List<String> tokens, int from) {
+    return new Scanner(String.join(" ", tokens.subList(from, tokens.size())));
+  }
 }
@@ -1,18 +1,20 @@
 package controller;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
-import java.util.Scanner;
-import java.io.FileNotFoundException;
-import java.io.FileInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 import javax.imageio.ImageIO;
 
 import model.IImage;
 import model.IImageState;
-import model.ImageImpl;
+import model.PackedImageImpl;
 
 
 /**
@@ -22,57 +24,95 @@ import model.ImageImpl;
 public class ImageUtil {
 
   /**
-   * Read an image file in the PPM format and print the colors.
+   * Read an image file in the PPM format and print the colors. Plain (P3) files as well as binary
+   * RGB (P6) and binary greyscale (P5) files are read, whatever the file's extension. The file is
+   * mapped into memory and read in one pass, straight into the rows of the image: the numbers of
+   * a P3 file through a PPMTokenizer, which allows comments anywhere as well as blank lines, and
+   * the raster of a P5 or P6 file byte for byte.
    * @param filename the path of the file.
+   * @throws IllegalStateException if the file cannot be read or does not hold a whole image.
    */
-  public static IImageState readPPM(String filename) {
-    Scanner sc;
-
+  public static IImageState readPPM(String filename) throws IllegalStateException {
+    FileChannel channel;
     try {
-      sc = new Scanner(new FileInputStream(filename));
-    } catch (FileNotFoundException e) {
+      channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+    } catch (IOException | InvalidPathException e) {
       System.out.println("File " + filename + " not found!");
       return null;
     }
-    StringBuilder builder = new StringBuilder();
-    //read the file line by line, and populate a string. This will throw away any comment lines
-    while (sc.hasNextLine()) {
-      String s = sc.nextLine();
-      if (s.charAt(0) != '#') {
-        builder.append(s + System.lineSeparator());
-      }
+    ByteBuffer bytes;
+    try (channel) {
+      bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read image from file");
     }
 
-    //now set up the scanner to read from the string we just built
-    sc = new Scanner(builder.toString());
-
-    String token;
-
-    token = sc.next();
-    if (!token.equals("P3")) {
+    PPMTokenizer tokens = new PPMTokenizer(bytes);
+    String format = tokens.next();
+    boolean binary = format.equals("P6") || format.equals("P5");
+    if (!binary && !format.equals("P3")) {
       System.out.println("Invalid PPM file: plain RAW file should begin with P3");
     }
-    int width = sc.nextInt();
+    int width = tokens.nextInt();
     System.out.println("Width of image: " + width);
-    int height = sc.nextInt();
+    int height = tokens.nextInt();
     System.out.println("Height of image: " + height);
-    int maxValue = sc.nextInt();
+    int maxValue = tokens.nextInt();
     System.out.println("Maximum value of a color in this file (usually 255): " + maxValue);
 
-    IImage loadedImage = new ImageImpl(width, height);
-
+    IImage loadedImage;
+    try {
+      loadedImage = new PackedImageImpl(width, height);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalStateException("Invalid PPM file: bad image size.");
+    }
+    if (binary) {
+      readRaster(bytes, loadedImage, format.equals("P5") ? 1 : 3, maxValue);
+      return loadedImage;
+    }
+    int[] row = new int[width];
     for (int i = 0; i < height; i++) {
       for (int j = 0; j < width; j++) {
-        int r = sc.nextInt();
-        int g = sc.nextInt();
-        int b = sc.nextInt();
-        loadedImage.setPixel(j, i, r, g, b);
-        //System.out.println("Color of pixel ("+j+","+i+"): "+ r+","+g+","+b);
+        int r = tokens.nextInt();
+        int g = tokens.nextInt();
+        int b = tokens.nextInt();
+        if (r > 255 || g > 255 || b > 255) {
+          throw new IllegalArgumentException("Pixel values out of bounds.");
+        }
+        row[j] = (r << 16) | (g << 8) | b;
       }
+      loadedImage.setRow(i, row);
     }
     return loadedImage;
   }
 
+  // copies the raster of a binary PPM (3 bytes a pixel) or PGM (1 byte a pixel) into the image
+  private static void readRaster(ByteBuffer bytes, IImage image, int channels, int maxValue)
+          throws IllegalStateException {
+    if (maxValue > 255) {
+      throw new IllegalStateException("Invalid PPM file: only one byte per sample is supported.");
+    }
+    int width = image.getWidth();
+    if (bytes.remaining() < (long) width * image.getHeight() * channels) {
+      throw new IllegalStateException("Invalid PPM file: the file ended too early.");
+    }
+    byte[] line = new byte[width * channels];
+    int[] row = new int[width];
+    for (int y = 0; y < image.getHeight(); y++) {
+      bytes.get(line);
+      if (channels == 1) {
+        for (int x = 0; x < width; x++) {
+          row[x] = (line[x] & 0xFF) * 0x010101;
+        }
+      } else {
+        for (int x = 0, i = 0; x < width; x++, i += 3) {
+          row[x] = (line[i] & 0xFF) << 16 | (line[i + 1] & 0xFF) << 8 | line[i + 2] & 0xFF;
+        }
+      }
+      image.setRow(y, row);
+    }
+  }
+
   /**
    * Read an image file in the JPG format and print the colors.
    * @param filename the path of the file.
@@ -80,7 +120,7 @@ public class ImageUtil {
   public static IImageState readJPG(String filename) {
     try {
       BufferedImage bufferedImage = ImageIO.read(new File(filename));
-      return convertToIImageState(bufferedImage);
+      return bufferedImage == null ? null : wrap(bufferedImage);
     } catch (IOException e) {
       System.out.println("Failed to read JPG image: " + e.getMessage());
       return null;
@@ -94,7 +134,7 @@ public class ImageUtil {
   public static IImageState readPNG(String filename) {
     try {
       BufferedImage bufferedImage = ImageIO.read(new File(filename));
-      return convertToIImageState(bufferedImage);
+      return bufferedImage == null ? null : wrap(bufferedImage);
     } catch (IOException e) {
       System.out.println("Failed to read PNG image: " + e.getMessage());
       return null;
@@ -108,18 +148,34 @@ public class ImageUtil {
   public static IImageState readBMP(String filename) {
     try {
       BufferedImage bufferedImage = ImageIO.read(new File(filename));
-      return convertToIImageState(bufferedImage);
+      return bufferedImage == null ? null : wrap(bufferedImage);
     } catch (IOException e) {
       System.out.println("Failed to read BMP image: " + e.getMessage());
       return null;
     }
   }
 
+  /**
+   * Returns an IImageState that reads a BufferedImage. The image is wrapped in a
+   * BufferedImageState, without copying it, if its layout allows it, and converted with
+   * convertToIImageState otherwise. The BufferedImage must not be drawn on afterwards.
+   *
+   * @param bufferedImage image to read.
+   * @return image in the IImageState format for compatibility with the program.
+   */
+  public static IImageState wrap(BufferedImage bufferedImage) {
+    if (BufferedImageState.isSupported(bufferedImage)) {
+      return new BufferedImageState(bufferedImage);
+    }
+    return convertToIImageState(bufferedImage);
+  }
+
   /**
    * Converts a BufferedImage into an IImageState object for compatibility with this program.
-   * A BufferedImage stores the red, green and blue values as one value, rgb, but IImageState
-   * stores the red, green and blue values separately, so this helper method is needed to extract
-   * the individual red/green/blue values from the BufferedImage.
+   * A BufferedImage stores the red, green and blue values as one value, rgb, which is also how
+   * PackedImageImpl stores them, so the image is copied a whole row at a time: straight out of
+   * the array behind the raster when BufferedImageState can read it, and through the image's own
+   * colour model otherwise. Alpha is dropped.
    *
    * @param bufferedImage image to extract red/green/blue values.
    * @return image in the IImageState format for compatibility with the program.
@@ -131,26 +187,31 @@ public class ImageUtil {
 
     int width = bufferedImage.getWidth();
     int height = bufferedImage.getHeight();
-    IImage loadedImage = new ImageImpl(width, height);
-
+    IImage loadedImage = new PackedImageImpl(width, height);
+    int[] row = new int[width];
+
+    if (BufferedImageState.isSupported(bufferedImage)) {
+      IImageState raster = new BufferedImageState(bufferedImage);
+      for (int y = 0; y < height; y++) {
+        raster.getRow(y, row);
+        loadedImage.setRow(y, row);
+      }
+      return loadedImage;
+    }
     for (int y = 0; y < height; y++) {
+      bufferedImage.getRGB(0, y, width, 1, row, 0, width);
       for (int x = 0; x < width; x++) {
-        int rgb = bufferedImage.getRGB(x, y); //get first inner loop, then outter loop. width 1st
-        Color color = new Color(rgb);
-        //need to isolate the red, green and blue values
-        int r = color.getRed();
-        int g = color.getGreen();
-        int b = color.getBlue();
-
-        //set the pixel values
-        loadedImage.setPixel(x, y, r, g, b); //set width first, then height
+        row[x] &= 0xFFFFFF; //isolate the red, green and blue values
       }
+      loadedImage.setRow(y, row);
     }
     return loadedImage;
   }
 
   /**
-   * Converts an IImageState image to a BufferedImage.
+   * Converts an IImageState image to a BufferedImage. The pixels are copied in one go straight
+   * into the array behind the new image's raster, which holds packed 0xRRGGBB values just like
+   * IImageState.getRGB does.
    * @param image IImageState to be converted to a BufferedImage type.
    * @return bufferedImage a BufferedImage.
    */
@@ -159,16 +220,8 @@ public class ImageUtil {
     int height = image.getHeight();
     BufferedImage buffImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
 
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        int r = image.getRedChannel(x, y);
-        int g = image.getGreenChannel(x, y);
-        int b = image.getBlueChannel(x, y);
-
-        int rgb = (r << 16) | (g << 8) | b; //combine r g and b into RGB
-        buffImage.setRGB(x, y, rgb);
-      }
-    }
+    int[] pixels = ((DataBufferInt) buffImage.getRaster().getDataBuffer()).getData();
+    image.getRGB(0, 0, width, height, pixels, 0, width);
     return buffImage;
   }
 
@@ -0,0 +1,113 @@
+package controller;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Splits the text of a PPM file into tokens, reading the bytes straight from a buffer, usually
+ * the whole file mapped into memory. A '#' starts a comment that runs to the end of the line,
+ * wherever it appears, and a comment counts as whitespace. Numbers are parsed digit by digit
+ * without creating a String, which matters for a P3 file holding three numbers for every pixel.
+ *
+ * <p>The tokenizer reads from the buffer's position onward and leaves the position just past
+ * what it has read, so the raster of a binary (P5 or P6) file can be copied out of the buffer
+ * right after the header has been read.
+ */
+final class PPMTokenizer {
+  private static final int MAX_NUMBER = 1 << 24; // larger than any PPM dimension or sample
+
+  private final ByteBuffer bytes;
+
+  /**
+   * Constructs a tokenizer over the bytes of a PPM file.
+   * @param bytes the file, read from its position onward.
+   */
+  PPMTokenizer(ByteBuffer bytes) {
+    this.bytes = bytes;
+  }
+
+  /**
+   * Reads the next token as text.
+   * @return the token.
+   * @throws IllegalStateException if the file ends before the token.
+   */
+  String next() throws IllegalStateException {
+    int c = skipWhitespace();
+    if (c < 0) {
+      throw new IllegalStateException("Invalid PPM file: the file ended too early.");
+    }
+    StringBuilder token = new StringBuilder();
+    while (c >= 0 && !isWhitespace(c) && c != '#') {
+      token.append((char) c);
+      c = read();
+    }
+    endToken(c);
+    return token.toString();
+  }
+
+  /**
+   * Reads the next token as a non-negative decimal number.
+   * @return the number.
+   * @throws IllegalStateException if the file ends before the number, or the token is not a
+   *     number.
+   */
+  int nextInt() throws IllegalStateException {
+    int c = skipWhitespace();
+    if (c < 0) {
+      throw new IllegalStateException("Invalid PPM file: the file ended too early.");
+    }
+    int value = 0;
+    int digits = 0;
+    while (c >= '0' && c <= '9') {
+      value = value * 10 + (c - '0');
+      if (value > MAX_NUMBER) {
+        throw new IllegalStateException("Invalid PPM file: number too large.");
+      }
+      digits++;
+      c = read();
+    }
+    if (digits == 0 || (c >= 0 && !isWhitespace(c) && c != '#')) {
+      throw new IllegalStateException("Invalid PPM file: expected a number.");
+    }
+    endToken(c);
+    return value;
+  }
+
+  // the next byte as 0 to 255, or -1 at the end of the file
+  private int read() {
+    return this.bytes.hasRemaining() ? this.bytes.get() & 0xFF : -1;
+  }
+
+  // skips whitespace and comments, returning the first byte after them or -1
+  private int skipWhitespace() {
+    int c = read();
+    while (true) {
+      if (c == '#') {
+        c = skipComment();
+      } else if (c >= 0 && isWhitespace(c)) {
+        c = read();
+      } else {
+        return c;
+      }
+    }
+  }
+
+  // consumes the rest of a comment, returning the line break that ends it or -1
+  private int skipComment() {
+    int c = read();
+    while (c >= 0 && c != '\n' && c != '\r') {
+      c = read();
+    }
+    return c;
+  }
+
+  // a token ended at c, which has been read; a comment straight after it is skipped here
+  private void endToken(int c) {
+    if (c == '#') {
+      skipComment();
+    }
+  }
+
+  private static boolean isWhitespace(int c) {
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == 0x0B;
+  }
+}
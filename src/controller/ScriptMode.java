@@ -0,0 +1,25 @@
+package controller;
+
+/**
+ * Represents the ways ControllerImpl can run the commands it reads.
+ */
+public enum ScriptMode {
+  /**
+   * Every command runs as soon as it is read and every result is stored, which is the only mode
+   * that suits a user typing commands one at a time.
+   */
+  IMMEDIATE,
+
+  /**
+   * The whole script is read first. A transformation whose result only the next transformation
+   * reads is fused with it into one TransformationPipeline, and its result is never stored.
+   */
+  FUSED,
+
+  /**
+   * The whole script is read into a graph of loads, transformations and saves before anything
+   * runs. Identical work is done once, work whose result is never saved is not done at all, and
+   * chains of transformations are fused as in FUSED.
+   */
+  PLANNED
+}
@@ -0,0 +1,513 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import controller.commands.ICommand;
+import controller.commands.ITransformationCommand;
+import model.IImageDataBase;
+import model.IImageState;
+import model.ImageDataBase;
+import model.transformations.ITransformation;
+import model.transformations.TransformationPipeline;
+
+/**
+ * Represents a whole script read into a graph before any of it runs. Every load and every
+ * transformation becomes a node, and every save (and every error found while reading) becomes a
+ * step. Running the plan runs the steps in script order and computes the nodes a save needs only
+ * when it needs them, so:
+ * <ul>
+ *   <li>two commands that do the same thing to the same image, such as the same blur of the same
+ *   source under two ids, share one node and the work is done once;</li>
+ *   <li>a node that no save depends on is never computed at all;</li>
+ *   <li>a chain of transformations whose intermediate images nothing else needs runs as one
+ *   TransformationPipeline.</li>
+ * </ul>
+ * The image of each id the script writes is stored in the database as soon as it is computed, and
+ * the plan lets go of it after its last use, so a database that keeps to a budget of memory can
+ * move it out of the way while the rest of the script runs. Images that were fused away or never
+ * needed are not stored.
+ *
+ * <p>A transformation with an invalid parameter ends the plan: the rest of the script, from that
+ * command on, is left to run one command at a time, and every image the plan wrote is stored
+ * first so that those commands see what they would have.
+ *
+ * <p>The plan can also run on a pool of threads, where every load, chain of transformations and
+ * save starts as soon as the nodes it depends on are ready. Independent parts of a script, such
+ * as the same edits made to three different files, then run at the same time, with the same
+ * images, files and messages as running it on one thread.
+ */
+final class ScriptPlan {
+  private final IImageDataBase model;
+  private final List<Step> steps;
+  private final Map<String, Node> nodes; // every distinct node, by what it computes
+  private final Map<String, Node> bindings; // the node each id refers to at this point
+  private final Map<String, Integer> writes; // how many times each path has been saved to
+  private final Map<String, List<Node>> loads; // the loads of each path since it was last saved
+  private final List<String> remainder; // the tokens left to run one at a time after the plan
+
+  /**
+   * Reads a script into a plan. Nothing is loaded, transformed or saved until the plan runs.
+   * @param commands the commands by name.
+   * @param model the database that holds the images the script starts from.
+   * @param tokens the script, split on whitespace.
+   */
+  ScriptPlan(Map<String, ICommand> commands, IImageDataBase model, List<String> tokens) {
+    this.model = model;
+    this.steps = new ArrayList<>();
+    this.nodes = new HashMap<>();
+    this.bindings = new HashMap<>();
+    this.writes = new HashMap<>();
+    this.loads = new HashMap<>();
+
+    List<String> left = List.of();
+    int position = 0;
+    while (position < tokens.size()) {
+      String name = tokens.get(position);
+      ICommand command = commands.get(name);
+      if (command == null) {
+        this.steps.add(new Step("Invalid command."));
+        position++;
+        continue;
+      }
+      int end = position + 1 + command.getArgumentCount();
+      if (end > tokens.size()) {
+        String message = failure(command, tokens.subList(position + 1, tokens.size()));
+        if (message != null) {
+          this.steps.add(new Step(message));
+        }
+        break;
+      }
+      if (!read(name, command, tokens.subList(position + 1, end))) {
+        left = tokens.subList(position, tokens.size());
+        break;
+      }
+      position = end;
+    }
+    this.remainder = left;
+    if (!left.isEmpty()) {
+      // the commands left may use any image the plan wrote, so every one of them is stored
+      List<Node> written = new ArrayList<>(new HashSet<>(this.bindings.values()));
+      written.sort(Comparator.comparingInt(node -> node.index));
+      for (Node node : written) {
+        this.steps.add(new Step(node, true));
+      }
+    }
+
+    for (Step step : this.steps) {
+      if (step.command != null || step.keep) {
+        require(step.image);
+      }
+    }
+    for (Map.Entry<String, Node> binding : this.bindings.entrySet()) {
+      binding.getValue().ids.add(binding.getKey());
+    }
+  }
+
+  /**
+   * Returns what is left of the script after a command the plan could not read, such as a
+   * transformation with an invalid parameter. Those tokens, starting with the name of that
+   * command, must be run one at a time once the plan has run, so that they report exactly what
+   * running the whole script one command at a time would.
+   * @return the tokens left to run, which are none if the plan read the whole script.
+   */
+  List<String> remainder() {
+    return this.remainder;
+  }
+
+  /**
+   * Runs the steps in script order, storing the images the script wrote as they are computed.
+   * @param output where the error messages go.
+   */
+  void run(Consumer<String> output) {
+    for (Step step : this.steps) {
+      if (step.message != null) {
+        output.accept(step.message);
+        continue;
+      }
+      try {
+        if (step.keep) {
+          evaluate(step.image);
+          continue;
+        }
+        if (step.command == null) {
+          if (step.image.live) {
+            compute(step.image);
+          }
+          continue;
+        }
+        save(step, evaluate(step.image));
+      } catch (IllegalStateException e) {
+        output.accept(e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Runs the plan on a pool of threads. The graph is walked in script order on the calling
+   * thread, which only links up the work; the pool does the loads, transformations and saves.
+   * Besides the images they need, a load waits for the save to its file that came before it, and
+   * a save waits for the save to the same file before it and for every load that must read the
+   * file first. The messages are reported in script order once everything has finished.
+   * @param output where the error messages go.
+   * @param pool the threads that do the work.
+   */
+  void run(Consumer<String> output, Executor pool) {
+    Map<String, List<CompletableFuture<String>>> saves = new HashMap<>(); // by path, in order
+    Map<String, CompletableFuture<?>> reads = new HashMap<>(); // loads due before the next save
+    List<CompletableFuture<String>> outcomes = new ArrayList<>();
+    for (Step step : this.steps) {
+      if (step.message != null) {
+        outcomes.add(CompletableFuture.completedFuture(step.message));
+        continue;
+      }
+      if (step.keep) {
+        outcomes.add(schedule(step.image, saves, pool).thenApply(image -> (String) null)
+            .exceptionally(ScriptPlan::message));
+        continue;
+      }
+      String path = step.command == null ? step.image.arguments.get(0) : step.arguments.get(0);
+      List<CompletableFuture<String>> earlier = saves.computeIfAbsent(path,
+          k -> new ArrayList<>());
+      CompletableFuture<?> ready = reads.getOrDefault(path, CompletableFuture.completedFuture(null));
+      if (step.command == null) {
+        if (step.image.live) {
+          reads.put(path, CompletableFuture.allOf(ready,
+              settled(schedule(step.image, saves, pool))));
+        }
+        continue;
+      }
+      if (!earlier.isEmpty()) {
+        ready = CompletableFuture.allOf(ready, settled(earlier.get(earlier.size() - 1)));
+      }
+      CompletableFuture<String> outcome = schedule(step.image, saves, pool)
+          .thenCombine(ready, (image, ignored) -> image)
+          .thenApplyAsync(image -> {
+            save(step, image);
+            return (String) null;
+          }, pool)
+          .exceptionally(ScriptPlan::message);
+      earlier.add(outcome);
+      reads.remove(path);
+      outcomes.add(outcome);
+    }
+    // the work is all linked up, so each image is only held by the work still to use it
+    for (Node node : this.nodes.values()) {
+      node.future = null;
+    }
+
+    for (CompletableFuture<String> outcome : outcomes) {
+      String message;
+      try {
+        message = outcome.join();
+      } catch (CompletionException e) {
+        // anything but an IllegalStateException stops the script, as it would on one thread
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+      if (message != null) {
+        output.accept(message);
+      }
+    }
+  }
+
+  // adds one complete command to the plan, or gives false if the plan has to stop before it
+  private boolean read(String name, ICommand command, List<String> arguments) {
+    String id = arguments.get(arguments.size() - 1);
+    List<String> rest = arguments.subList(0, arguments.size() - 1);
+    if (command.savesImage()) {
+      // whatever is loaded from the path must be read before the save replaces it
+      for (Node load : this.loads.getOrDefault(arguments.get(0), List.of())) {
+        this.steps.add(new Step(load));
+      }
+      this.loads.remove(arguments.get(0));
+      Node image = image(id);
+      if (image == null) {
+        this.steps.add(new Step("Image with specified id doesn't exist."));
+      } else {
+        this.steps.add(new Step(command, arguments, id, image));
+        this.writes.merge(arguments.get(0), 1, Integer::sum);
+      }
+      return true;
+    }
+
+    if (!(command instanceof ITransformationCommand)) {
+      // a file saved to earlier in the script is a different image from the one before it
+      int version = this.writes.getOrDefault(arguments.get(0), 0);
+      String key = name + " " + String.join(" ", rest) + " #" + version;
+      Node load = this.nodes.computeIfAbsent(key, k -> {
+        Node created = new Node(command, arguments, version);
+        this.loads.computeIfAbsent(arguments.get(0), path -> new ArrayList<>()).add(created);
+        return created;
+      });
+      this.bindings.put(id, load);
+      return true;
+    }
+
+    ITransformationCommand transformationCommand = (ITransformationCommand) command;
+    List<String> parameters = arguments.subList(0, transformationCommand.getParameterCount());
+    ITransformation transformation;
+    try {
+      transformation = transformationCommand.getTransformation(
+              new Scanner(String.join(" ", parameters)));
+    } catch (IllegalStateException e) {
+      // the command reads its parameters one at a time, so how many tokens it takes up
+      // depends on which one is invalid
+      return false;
+    }
+    Node source = image(arguments.get(parameters.size()));
+    if (source == null) {
+      this.steps.add(new Step("Image with specified id doesn't exist."));
+      return true;
+    }
+    String key = name + " " + String.join(" ", parameters) + " <- " + source.index;
+    this.bindings.put(id, this.nodes.computeIfAbsent(key,
+        k -> new Node(transformation, source)));
+    return true;
+  }
+
+  // the node an id refers to, which is an image already in the database if the script has not
+  // written the id yet, or null if there is no such image
+  private Node image(String id) {
+    Node node = this.bindings.get(id);
+    if (node != null) {
+      return node;
+    }
+    IImageState existing = this.model.get(id);
+    if (existing == null) {
+      return null;
+    }
+    return this.nodes.computeIfAbsent("image " + id, k -> new Node(existing));
+  }
+
+  // records one more use of a node, and marks everything it depends on as needed
+  private static void require(Node node) {
+    node.consumers++;
+    while (!node.live) {
+      node.live = true;
+      node = node.source;
+      if (node == null) {
+        break;
+      }
+      node.consumers++;
+    }
+  }
+
+  // computes a node for one of its uses, and lets go of its image after the last use
+  private IImageState evaluate(Node node) {
+    compute(node);
+    IImageState result = node.result;
+    node.consumers--;
+    if (node.consumers == 0) {
+      node.result = null;
+    }
+    return result;
+  }
+
+  /**
+   * Computes a node unless it already has been, along with the longest chain of transformations
+   * above it whose images nothing else uses.
+   */
+  private void compute(Node node) {
+    if (!node.computed) {
+      if (node.transformation == null) {
+        node.result = publish(node, load(node));
+      } else {
+        List<Node> chain = new ArrayList<>();
+        Node base = node;
+        do {
+          chain.add(base);
+          base = base.source;
+        } while (base.transformation != null && !base.computed && base.consumers == 1);
+        Collections.reverse(chain);
+        TransformationPipeline pipeline = new TransformationPipeline();
+        for (Node step : chain) {
+          pipeline.then(step.transformation);
+        }
+        node.result = publish(node, pipeline.run(evaluate(base)));
+      }
+      node.computed = true;
+    }
+  }
+
+  /**
+   * Returns the future image of a node, first linking up the work that computes it on the pool.
+   * Chains of transformations fuse exactly as they do on one thread.
+   */
+  private CompletableFuture<IImageState> schedule(Node node,
+      Map<String, List<CompletableFuture<String>>> saves, Executor pool) {
+    if (node.future != null) {
+      return node.future;
+    }
+    if (node.computed) {
+      node.future = CompletableFuture.completedFuture(node.result);
+    } else if (node.transformation == null) {
+      CompletableFuture<?> ready = CompletableFuture.completedFuture(null);
+      if (node.version > 0) {
+        ready = settled(saves.get(node.arguments.get(0)).get(node.version - 1));
+      }
+      node.future = ready.thenApplyAsync(ignored -> publish(node, load(node)), pool);
+    } else {
+      List<Node> chain = new ArrayList<>();
+      Node base = node;
+      do {
+        chain.add(base);
+        base = base.source;
+      } while (base.transformation != null && base.future == null && base.consumers == 1);
+      Collections.reverse(chain);
+      TransformationPipeline pipeline = new TransformationPipeline();
+      for (Node step : chain) {
+        pipeline.then(step.transformation);
+      }
+      node.future = schedule(base, saves, pool)
+          .thenApplyAsync(image -> publish(node, pipeline.run(image)), pool);
+    }
+    return node.future;
+  }
+
+  // finishes when the future does, whether or not it failed, for work that only has to wait
+  private static CompletableFuture<Void> settled(CompletableFuture<?> future) {
+    return future.handle((result, failure) -> null);
+  }
+
+  // the message a failed save reports, which is the one the command that failed first gave
+  private static String message(Throwable failure) {
+    Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+    if (cause instanceof IllegalStateException) {
+      return cause.getMessage();
+    }
+    throw new CompletionException(cause);
+  }
+
+  private static void save(Step step, IImageState image) {
+    IImageDataBase scratch = new ImageDataBase();
+    scratch.add(step.id, image);
+    step.command.run(new Scanner(String.join(" ", step.arguments)), scratch);
+  }
+
+  // stores a node's image under every id the script leaves referring to it, and gives the image;
+  // on a pool several nodes may finish at once, and the database need not be thread-safe
+  private synchronized IImageState publish(Node node, IImageState image) {
+    for (String id : node.ids) {
+      this.model.add(id, image);
+    }
+    return image;
+  }
+
+  private static IImageState load(Node node) {
+    IImageDataBase scratch = new ImageDataBase();
+    node.command.run(new Scanner(String.join(" ", node.arguments)), scratch);
+    return scratch.get(node.arguments.get(node.arguments.size() - 1));
+  }
+
+  // the message a command cut short by the end of the script fails with, if any
+  private static String failure(ICommand command, List<String> arguments) {
+    try {
+      command.run(new Scanner(String.join(" ", arguments)), new ImageDataBase());
+    } catch (IllegalStateException e) {
+      return e.getMessage();
+    }
+    return null;
+  }
+
+  /**
+   * One image in the graph: an image already in the database, a load, or a transformation of
+   * another node.
+   */
+  private final class Node {
+    private final ICommand command;
+    private final List<String> arguments;
+    private final ITransformation transformation;
+    private final Node source;
+    private final int index;
+    private final int version; // for a load, how many times its file was saved to before it
+    private final List<String> ids; // the ids that refer to it at the end of the script
+    private IImageState result; // until its last use
+    private boolean computed;
+    private CompletableFuture<IImageState> future; // when running on a pool
+    private int consumers; // uses by saves and by needed nodes that have not had it yet
+    private boolean live; // a save depends on it
+
+    private Node(ICommand command, ITransformation transformation, Node source,
+                 List<String> arguments, int version, IImageState result) {
+      this.command = command;
+      this.version = version;
+      this.transformation = transformation;
+      this.source = source;
+      this.arguments = arguments;
+      this.result = result;
+      this.computed = result != null;
+      this.ids = new ArrayList<>(1);
+      this.index = ScriptPlan.this.nodes.size();
+    }
+
+    Node(IImageState existing) {
+      this(null, null, null, null, 0, existing);
+    }
+
+    Node(ICommand load, List<String> arguments, int version) {
+      this(load, null, null, arguments, version, null);
+    }
+
+    Node(ITransformation transformation, Node source) {
+      this(null, transformation, source, null, 0, null);
+    }
+  }
+
+  /**
+   * One step of the script in order: an error message, a save of a node, a load that has to
+   * happen before the file it reads is saved over, or a node whose image has to be stored for
+   * the commands left after the plan.
+   */
+  private static final class Step {
+    private final String message;
+    private final ICommand command;
+    private final List<String> arguments;
+    private final String id;
+    private final Node image;
+    private final boolean keep;
+
+    Step(String message) {
+      this.message = message;
+      this.command = null;
+      this.arguments = null;
+      this.id = null;
+      this.image = null;
+      this.keep = false;
+    }
+
+    Step(Node load) {
+      this(null, null, null, load);
+    }
+
+    Step(Node image, boolean keep) {
+      this.message = null;
+      this.command = null;
+      this.arguments = null;
+      this.id = null;
+      this.image = image;
+      this.keep = keep;
+    }
+
+    Step(ICommand command, List<String> arguments, String id, Node image) {
+      this.message = null;
+      this.command = command;
+      this.arguments = arguments;
+      this.id = id;
+      this.image = image;
+      this.keep = false;
+    }
+  }
+}
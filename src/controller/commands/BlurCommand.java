@@ -12,7 +12,7 @@ import model.transformations.ITransformation;
  * Represents the command pattern to Blur an image. The user must input the correct command
  * "blur" in order to blur the image.
  */
-public class BlurCommand implements ICommand {
+public class BlurCommand implements ITransformationCommand {
   private IImageDataBase model;
 
   /**
@@ -47,7 +47,7 @@ public class BlurCommand implements ICommand {
       throw new IllegalStateException("Image with specified id doesn't exist.");
     }
 
-    ITransformation blurTransformation = new BlurTransformation();
+    ITransformation blurTransformation = getTransformation(scanner);
 
     IImageState blurredImage = blurTransformation.run(sourceImage);
 
@@ -56,4 +56,14 @@ public class BlurCommand implements ICommand {
     model.add(destID, blurredImage);
 
   }
+
+  @Override
+  public int getParameterCount() {
+    return 0;
+  }
+
+  @Override
+  public ITransformation getTransformation(Scanner scanner) {
+    return new BlurTransformation();
+  }
 }
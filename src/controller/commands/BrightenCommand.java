@@ -13,7 +13,7 @@ import model.transformations.ITransformation;
  * "brighten" as well as an integer increment to edit the image by. If the given increment is
  * positive, the image is brightened. If the increment given is negative, the image is darkened.
  */
-public class BrightenCommand implements ICommand {
+public class BrightenCommand implements ITransformationCommand {
   private IImageDataBase model;
 
   /**
@@ -29,10 +29,7 @@ public class BrightenCommand implements ICommand {
     Objects.requireNonNull(model);
     Objects.requireNonNull(scanner);
 
-    if ( !scanner.hasNextInt() ) {
-      throw new IllegalStateException("Second argument must be an int.");
-    }
-    int value = scanner.nextInt();
+    ITransformation brightenTransformation = getTransformation(scanner);
 
     if ( !scanner.hasNext() ) {
       throw new IllegalStateException("Third argument must be the image id.");
@@ -55,7 +52,6 @@ public class BrightenCommand implements ICommand {
 
 
     //2. How do I do the brightening??! This is a strategy:
-    ITransformation brightenTransformation = new BrightenTransformation(value);
     // the return type of BrightenTransformation.run is IImageState, but it actually
     // runs ON an IImage. IImageState is a LOWER interface, doesn't have setter methods.
     // This = information HIDING! Limit the freedom you give to the client.
@@ -67,4 +63,18 @@ public class BrightenCommand implements ICommand {
 
   }
 
+  @Override
+  public int getParameterCount() {
+    return 1;
+  }
+
+  @Override
+  public ITransformation getTransformation(Scanner scanner) {
+    if ( !scanner.hasNextInt() ) {
+      throw new IllegalStateException("Second argument must be an int.");
+    }
+    int value = scanner.nextInt();
+
+    return new BrightenTransformation(value);
+  }
 }
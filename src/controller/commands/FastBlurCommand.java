@@ -0,0 +1,72 @@
+package controller.commands;
+
+import java.util.Objects;
+import java.util.Scanner;
+
+import model.IImageDataBase;
+import model.IImageState;
+import model.transformations.FastGaussianBlurTransformation;
+import model.transformations.ITransformation;
+
+/**
+ * Represents the command pattern to blur an image with the fast approximation of a Gaussian blur,
+ * which takes the same time for any radius. The user must input the command "fast-blur" followed
+ * by the integer radius in pixels.
+ */
+public class FastBlurCommand implements ITransformationCommand {
+
+  /**
+   * Constructs a FastBlurCommand object. Constructor is purposefully left empty.
+   */
+  public FastBlurCommand() {
+    // Constructor left empty to make command patterns and strategy patterns as neat and clean
+    // ... as possible.
+  }
+
+  @Override
+  public void run(Scanner scanner, IImageDataBase model) {
+    Objects.requireNonNull(model);
+    Objects.requireNonNull(scanner);
+
+    ITransformation fastBlurTransformation = getTransformation(scanner);
+
+    if ( !scanner.hasNext() ) {
+      throw new IllegalStateException("Third argument must be the source image id.");
+    }
+
+    String sourceImageID = scanner.next();
+
+    if ( !scanner.hasNext() ) {
+      throw new IllegalStateException("Fourth argument must be the new image id.");
+    }
+
+    String destID = scanner.next();
+
+    IImageState sourceImage = model.get(sourceImageID);
+    if (sourceImage == null) {
+      throw new IllegalStateException("Image with specified id doesn't exist.");
+    }
+
+    IImageState blurredImage = fastBlurTransformation.run(sourceImage);
+
+    model.add(destID, blurredImage);
+  }
+
+  @Override
+  public int getParameterCount() {
+    return 1;
+  }
+
+  @Override
+  public ITransformation getTransformation(Scanner scanner) {
+    if ( !scanner.hasNextInt() ) {
+      throw new IllegalStateException("Second argument must be the radius as an int.");
+    }
+    int radius = scanner.nextInt();
+    if (radius < 0) {
+      throw new IllegalStateException("Blur radius cannot be negative.");
+    }
+
+    return new FastGaussianBlurTransformation(radius);
+  }
+}
@@ -0,0 +1,71 @@
+package controller.commands;
+
+import java.util.Objects;
+import java.util.Scanner;
+
+import model.IImageDataBase;
+import model.IImageState;
+import model.transformations.GammaTransformation;
+import model.transformations.ITransformation;
+
+/**
+ * Represents the command pattern to gamma correct an image. The user must input the command
+ * "gamma" followed by the gamma value as a positive number.
+ */
+public class GammaCommand implements ITransformationCommand {
+
+  /**
+   * Constructs a GammaCommand object. Constructor is purposefully left empty.
+   */
+  public GammaCommand() {
+    // Constructor left empty to make command patterns and strategy patterns as neat and clean
+    // ... as possible.
+  }
+
+  @Override
+  public void run(Scanner scanner, IImageDataBase model) {
+    Objects.requireNonNull(model);
+    Objects.requireNonNull(scanner);
+
+    ITransformation gammaTransformation = getTransformation(scanner);
+
+    if ( !scanner.hasNext() ) {
+      throw new IllegalStateException("Third argument must be the source image id.");
+    }
+
+    String sourceImageID = scanner.next();
+
+    if ( !scanner.hasNext() ) {
+      throw new IllegalStateException("Fourth argument must be the new image id.");
+    }
+
+    String destID = scanner.next();
+
+    IImageState sourceImage = model.get(sourceImageID);
+    if (sourceImage == null) {
+      throw new IllegalStateException("Image with specified id doesn't exist.");
+    }
+
+    IImageState correctedImage = gammaTransformation.run(sourceImage);
+
+    model.add(destID, correctedImage);
+  }
+
+  @Override
+  public int getParameterCount() {
+    return 1;
+  }
+
+  @Override
+  public ITransformation getTransformation(Scanner scanner) {
+    if ( !scanner.hasNextDouble() ) {
+      throw new IllegalStateException("Second argument must be the gamma value as a number.");
+    }
+    double gamma = scanner.nextDouble();
+    if (!(gamma > 0) || Double.isInfinite(gamma)) {
+      throw new IllegalStateException("Gamma must be a positive number.");
+    }
+
+    return new GammaTransformation(gamma);
+  }
+}
@@ -0,0 +1,71 @@
+package controller.commands;
+
+import java.util.Objects;
+import java.util.Scanner;
+
+import model.IImageDataBase;
+import model.IImageState;
+import model.transformations.GaussianBlurTransformation;
+import model.transformations.ITransformation;
+
+/**
+ * Represents the command pattern to blur an image with a Gaussian kernel of a chosen radius. The
+ * user must input the command "gaussian-blur" followed by the integer radius in pixels.
+ */
+public class GaussianBlurCommand implements ITransformationCommand {
+
+  /**
+   * Constructs a GaussianBlurCommand object. Constructor is purposefully left empty.
+   */
+  public GaussianBlurCommand() {
+    // Constructor left empty to make command patterns and strategy patterns as neat and clean
+    // ... as possible.
+  }
+
+  @Override
+  public void run(Scanner scanner, IImageDataBase model) {
+    Objects.requireNonNull(model);
+    Objects.requireNonNull(scanner);
+
+    ITransformation gaussianBlurTransformation = getTransformation(scanner);
+
+    if ( !scanner.hasNext() ) {
+      throw new IllegalStateException("Third argument must be the source image id.");
+    }
+
+    String sourceImageID = scanner.next();
+
+    if ( !scanner.hasNext() ) {
+      throw new IllegalStateException("Fourth argument must be the new image id.");
+    }
+
+    String destID = scanner.next();
+
+    IImageState sourceImage = model.get(sourceImageID);
+    if (sourceImage == null) {
+      throw new IllegalStateException("Image with specified id doesn't exist.");
+    }
+
+    IImageState blurredImage = gaussianBlurTransformation.run(sourceImage);
+
+    model.add(destID, blurredImage);
+  }
+
+  @Override
+  public int getParameterCount() {
+    return 1;
+  }
+
+  @Override
+  public ITransformation getTransformation(Scanner scanner) {
+    if ( !scanner.hasNextInt() ) {
+      throw new IllegalStateException("Second argument must be the radius as an int.");
+    }
+    int radius = scanner.nextInt();
+    if (radius < 0) {
+      throw new IllegalStateException("Blur radius cannot be negative.");
+    }
+
+    return new GaussianBlurTransformation(radius);
+  }
+}
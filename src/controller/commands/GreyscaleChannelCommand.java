@@ -14,7 +14,7 @@ import model.transformations.ITransformation;
  * Depending on which channel is selected by the user, the image will be converted to greyscale and
  * all RGB values of the Pixel object will be the R, G or B value accordingly.
  */
-public class GreyscaleChannelCommand implements ICommand {
+public class GreyscaleChannelCommand implements ITransformationCommand {
   private IImageDataBase model;
 
   public GreyscaleChannelCommand() {
@@ -27,11 +27,7 @@ public class GreyscaleChannelCommand implements ICommand {
     Objects.requireNonNull(model);
     Objects.requireNonNull(scanner);
 
-    //GreyscaleChannelCommand requires "red" "green" or "blue"
-    if ( !scanner.hasNext() ) {
-      throw new IllegalStateException("Second argument must be the channel.");
-    }
-    String channel = scanner.next();
+    ITransformation greyscaleChannelTransformation = getTransformation(scanner);
 
     if ( !scanner.hasNext() ) {
       throw new IllegalStateException("Third argument must be the image id.");
@@ -50,7 +46,6 @@ public class GreyscaleChannelCommand implements ICommand {
       throw new IllegalStateException("Image with specified id doesn't exist.");
     }
 
-    ITransformation greyscaleChannelTransformation = new GreyscaleChannelTransformation(channel);
     IImageState greyscaleChannelImage = greyscaleChannelTransformation.run(sourceImage);
 
 
@@ -58,5 +53,19 @@ public class GreyscaleChannelCommand implements ICommand {
     model.add(destID, greyscaleChannelImage);
   }
 
-}
+  @Override
+  public int getParameterCount() {
+    return 1;
+  }
 
+  @Override
+  public ITransformation getTransformation(Scanner scanner) {
+    //GreyscaleChannelCommand requires "red" "green" or "blue"
+    if ( !scanner.hasNext() ) {
+      throw new IllegalStateException("Second argument must be the channel.");
+    }
+    String channel = scanner.next();
+
+    return new GreyscaleChannelTransformation(channel);
+  }
+}
@@ -12,7 +12,7 @@ import model.transformations.ITransformation;
  * The intensity of an image is found by selecting the maximum of the RGB values of a pixel.
  * All three values, the RGB, will all be switched to the average value with this transformation.
  */
-public class GreyscaleIntensityCommand implements ICommand {
+public class GreyscaleIntensityCommand implements ITransformationCommand {
   private IImageDataBase model;
 
   public GreyscaleIntensityCommand() {
@@ -45,7 +45,7 @@ public class GreyscaleIntensityCommand implements ICommand {
     }
 
 
-    ITransformation greyscaleIntensityTransformation = new GreyscaleIntensityTransformation();
+    ITransformation greyscaleIntensityTransformation = getTransformation(scanner);
 
     IImageState greyscaleIntensityImage = greyscaleIntensityTransformation.run(sourceImage);
 
@@ -53,4 +53,14 @@ public class GreyscaleIntensityCommand implements ICommand {
     //3. I need to save it back in the database (model)
     model.add(destID, greyscaleIntensityImage);
   }
+
+  @Override
+  public int getParameterCount() {
+    return 0;
+  }
+
+  @Override
+  public ITransformation getTransformation(Scanner scanner) {
+    return new GreyscaleIntensityTransformation();
+  }
 }
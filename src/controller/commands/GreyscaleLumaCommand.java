@@ -13,7 +13,7 @@ import model.transformations.ITransformation;
  * The luma of an image is found by calculating a weighted sum of the RGB values of an image.
  * All three values, the RGB, will all be switched to the luma value with this transformation.
  */
-public class GreyscaleLumaCommand implements ICommand {
+public class GreyscaleLumaCommand implements ITransformationCommand {
   private IImageDataBase model;
 
 
@@ -47,7 +47,7 @@ public class GreyscaleLumaCommand implements ICommand {
     }
 
 
-    ITransformation greyscaleLumaTransformation = new GreyscaleLumaTransformation();
+    ITransformation greyscaleLumaTransformation = getTransformation(scanner);
 
     IImageState greyscaleLumaImage = greyscaleLumaTransformation.run(sourceImage);
 
@@ -55,4 +55,14 @@ public class GreyscaleLumaCommand implements ICommand {
     //3. I need to save it back in the database (model)
     model.add(destID, greyscaleLumaImage);
   }
+
+  @Override
+  public int getParameterCount() {
+    return 0;
+  }
+
+  @Override
+  public ITransformation getTransformation(Scanner scanner) {
+    return new GreyscaleLumaTransformation();
+  }
 }
@@ -13,7 +13,7 @@ import model.transformations.ITransformation;
  * The value of an image is found by selecting the maximum of the RGB values of a pixel. All three
  * values, the RGB, will all be switched to the maximum value with this transformation.
  */
-public class GreyscaleValueCommand implements ICommand {
+public class GreyscaleValueCommand implements ITransformationCommand {
   private IImageDataBase model;
 
 
@@ -48,7 +48,7 @@ public class GreyscaleValueCommand implements ICommand {
 
 
     //2. How do I do the brightening??! This is a strategy:
-    ITransformation greyscaleValueTransformation = new GreyscaleValueTransformation();
+    ITransformation greyscaleValueTransformation = getTransformation(scanner);
 
     IImageState greyscaleValueImage = greyscaleValueTransformation.run(sourceImage);
 
@@ -57,4 +57,14 @@ public class GreyscaleValueCommand implements ICommand {
     model.add(destID, greyscaleValueImage);
 
   }
+
+  @Override
+  public int getParameterCount() {
+    return 0;
+  }
+
+  @Override
+  public ITransformation getTransformation(Scanner scanner) {
+    return new GreyscaleValueTransformation();
+  }
 }
@@ -11,4 +11,21 @@ import model.IImageDataBase;
  */
 public interface ICommand {
   void run(Scanner scanner, IImageDataBase model);
+
+  /**
+   * Returns how many arguments follow the command's name in a script, so that a script can be
+   * split into its commands before any of them runs.
+   * @return the number of arguments the command reads.
+   */
+  int getArgumentCount();
+
+  /**
+   * Returns whether the command writes an image out of the program, rather than storing one in
+   * the database. Commands that do not save are assumed to read their last argument as the id
+   * of the image they store. A planned script only computes the images that are saved.
+   * @return true if the command saves the image named by its last argument.
+   */
+  default boolean savesImage() {
+    return false;
+  }
 }
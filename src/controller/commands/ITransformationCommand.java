@@ -0,0 +1,33 @@
+package controller.commands;
+
+import java.util.Scanner;
+
+import model.transformations.ITransformation;
+
+/**
+ * Represents the commands that run one transformation on a source image and store the result
+ * under a new id. Their arguments are always the transformation's parameters followed by the
+ * source id and the new id, which lets the controller read a command without running it, and
+ * chain the transformations of several commands into one TransformationPipeline.
+ */
+public interface ITransformationCommand extends ICommand {
+
+  /**
+   * Returns how many arguments come before the source and new image ids.
+   * @return the number of parameters the transformation takes.
+   */
+  int getParameterCount();
+
+  /**
+   * Reads the transformation's parameters from the scanner and builds the transformation.
+   * @param scanner positioned on the first parameter.
+   * @return the transformation the command would run.
+   * @throws IllegalStateException if a parameter is missing or invalid.
+   */
+  ITransformation getTransformation(Scanner scanner) throws IllegalStateException;
+
+  @Override
+  default int getArgumentCount() {
+    return getParameterCount() + 2;
+  }
+}
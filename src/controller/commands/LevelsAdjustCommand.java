@@ -0,0 +1,78 @@
+package controller.commands;
+
+import java.util.Objects;
+import java.util.Scanner;
+
+import model.IImageDataBase;
+import model.IImageState;
+import model.transformations.ITransformation;
+import model.transformations.LevelsAdjustTransformation;
+
+/**
+ * Represents the command pattern to adjust the levels of an image. The user must input the
+ * command "levels-adjust" followed by the shadow, mid and highlight points as ints, which must
+ * satisfy 0 <= shadow < mid < highlight <= 255.
+ */
+public class LevelsAdjustCommand implements ITransformationCommand {
+
+  /**
+   * Constructs a LevelsAdjustCommand object. Constructor is purposefully left empty.
+   */
+  public LevelsAdjustCommand() {
+    // Constructor left empty to make command patterns and strategy patterns as neat and clean
+    // ... as possible.
+  }
+
+  @Override
+  public void run(Scanner scanner, IImageDataBase model) {
+    Objects.requireNonNull(model);
+    Objects.requireNonNull(scanner);
+
+    ITransformation levelsTransformation = getTransformation(scanner);
+
+    if ( !scanner.hasNext() ) {
+      throw new IllegalStateException("Fifth argument must be the source image id.");
+    }
+
+    String sourceImageID = scanner.next();
+
+    if ( !scanner.hasNext() ) {
+      throw new IllegalStateException("Sixth argument must be the new image id.");
+    }
+
+    String destID = scanner.next();
+
+    IImageState sourceImage = model.get(sourceImageID);
+    if (sourceImage == null) {
+      throw new IllegalStateException("Image with specified id doesn't exist.");
+    }
+
+    IImageState adjustedImage = levelsTransformation.run(sourceImage);
+
+    model.add(destID, adjustedImage);
+  }
+
+  @Override
+  public int getParameterCount() {
+    return 3;
+  }
+
+  @Override
+  public ITransformation getTransformation(Scanner scanner) {
+    int[] points = new int[3];
+    String[] messages = {"Second argument must be the shadow point as an int.",
+        "Third argument must be the mid point as an int.",
+        "Fourth argument must be the highlight point as an int."};
+    for (int i = 0; i < 3; i++) {
+      if ( !scanner.hasNextInt() ) {
+        throw new IllegalStateException(messages[i]);
+      }
+      points[i] = scanner.nextInt();
+    }
+    if (points[0] < 0 || points[0] >= points[1] || points[1] >= points[2] || points[2] > 255) {
+      throw new IllegalStateException("Levels must satisfy 0 <= shadow < mid < highlight <= 255.");
+    }
+
+    return new LevelsAdjustTransformation(points[0], points[1], points[2]);
+  }
+}
@@ -9,7 +9,7 @@ import model.IImageDataBase;
 import model.IImageState;
 
 /**
- * Represents the LoadBMPCommand command pattern to allow the user to load a PPM file as an image.
+ * Represents the LoadBMPCommand command pattern to allow the user to load a BMP file as an image.
  */
 public class LoadBMPCommand implements ICommand {
 
@@ -40,4 +40,9 @@ public class LoadBMPCommand implements ICommand {
     String id;
     model.add(fileName, loadedImage);
   }
+
+  @Override
+  public int getArgumentCount() {
+    return 2;
+  }
 }
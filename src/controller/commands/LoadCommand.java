@@ -3,10 +3,12 @@ package controller.commands;
 import java.util.Objects;
 import java.util.Scanner;
 
+import controller.io.BMPImageLoader;
 import controller.io.IImageLoader;
 import controller.io.JPGImageLoader;
 import controller.io.PNGImageLoader;
 import controller.io.PPMImageLoader;
+import controller.io.QOIImageLoader;
 import model.IImageDataBase;
 import model.IImageState;
 
@@ -14,8 +16,9 @@ import model.IImageState;
  * Represents a load command object that is image format agnostic. This allows the user to tell the
  * program to load an image without needing to specify the format type by running a
  * specific loadPPM/loadPNG/loadJPG command. This command will take the extension of the
- * specified destinationPath (e.g. .ppm, .png, or .jpg) and will trigger the appropriate
- * IImageLoader accordingly.
+ * specified destinationPath (e.g. .ppm, .png, .jpg or .bmp) and will trigger the appropriate
+ * IImageLoader accordingly. A .ppm, .pnm or .pgm file may be plain (P3) or binary (P6 or P5), and
+ * a .qoi file is read by QOIImageLoader.
  */
 public class LoadCommand implements ICommand {
   private IImageState image;
@@ -54,7 +57,13 @@ public class LoadCommand implements ICommand {
   }
 
   private String getFileExtension(String filePath) {
-    if (filePath.contains("jpg")) {
+    if (filePath.endsWith(".pnm") || filePath.endsWith(".pgm")) {
+      return "ppm"; // binary PPM and PGM files are read by the same loader
+    } else if (filePath.endsWith(".bmp")) {
+      return "bmp";
+    } else if (filePath.endsWith(".qoi")) {
+      return "qoi";
+    } else if (filePath.contains("jpg")) {
       return "jpg";
     } else if (filePath.contains("png")) {
       return "png";
@@ -73,8 +82,17 @@ public class LoadCommand implements ICommand {
         return new PNGImageLoader(filePath);
       case "jpg":
         return new JPGImageLoader(filePath);
+      case "bmp":
+        return new BMPImageLoader(filePath);
+      case "qoi":
+        return new QOIImageLoader(filePath);
       default:
         throw new IllegalArgumentException("Unsupported file type.");
     }
   }
+
+  @Override
+  public int getArgumentCount() {
+    return 2;
+  }
 }
@@ -41,4 +41,9 @@ public class LoadJPGCommand implements ICommand {
     String id;
     model.add(fileName, loadedImage);
   }
+
+  @Override
+  public int getArgumentCount() {
+    return 2;
+  }
 }
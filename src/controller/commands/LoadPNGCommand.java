@@ -40,4 +40,9 @@ public class LoadPNGCommand implements ICommand {
     String id;
     model.add(fileName, loadedImage);
   }
+
+  @Override
+  public int getArgumentCount() {
+    return 2;
+  }
 }
@@ -0,0 +1,71 @@
+package controller.commands;
+
+import java.util.Objects;
+import java.util.Scanner;
+
+import model.IImageDataBase;
+import model.IImageState;
+import model.transformations.ITransformation;
+import model.transformations.PosterizeTransformation;
+
+/**
+ * Represents the command pattern to posterize an image. The user must input the command
+ * "posterize" followed by the number of levels each channel keeps, an int from 2 to 256.
+ */
+public class PosterizeCommand implements ITransformationCommand {
+
+  /**
+   * Constructs a PosterizeCommand object. Constructor is purposefully left empty.
+   */
+  public PosterizeCommand() {
+    // Constructor left empty to make command patterns and strategy patterns as neat and clean
+    // ... as possible.
+  }
+
+  @Override
+  public void run(Scanner scanner, IImageDataBase model) {
+    Objects.requireNonNull(model);
+    Objects.requireNonNull(scanner);
+
+    ITransformation posterizeTransformation = getTransformation(scanner);
+
+    if ( !scanner.hasNext() ) {
+      throw new IllegalStateException("Third argument must be the source image id.");
+    }
+
+    String sourceImageID = scanner.next();
+
+    if ( !scanner.hasNext() ) {
+      throw new IllegalStateException("Fourth argument must be the new image id.");
+    }
+
+    String destID = scanner.next();
+
+    IImageState sourceImage = model.get(sourceImageID);
+    if (sourceImage == null) {
+      throw new IllegalStateException("Image with specified id doesn't exist.");
+    }
+
+    IImageState posterizedImage = posterizeTransformation.run(sourceImage);
+
+    model.add(destID, posterizedImage);
+  }
+
+  @Override
+  public int getParameterCount() {
+    return 1;
+  }
+
+  @Override
+  public ITransformation getTransformation(Scanner scanner) {
+    if ( !scanner.hasNextInt() ) {
+      throw new IllegalStateException("Second argument must be the number of levels as an int.");
+    }
+    int levels = scanner.nextInt();
+    if (levels < 2 || levels > 256) {
+      throw new IllegalStateException("Number of levels must be between 2 and 256.");
+    }
+
+    return new PosterizeTransformation(levels);
+  }
+}
@@ -1,16 +1,15 @@
 package controller.commands;
 
-import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.Objects;
 import java.util.Scanner;
 
+import controller.io.BMPImageSaver;
 import controller.io.IImageSaver;
 import controller.io.JPGImageSaver;
 import controller.io.PNGImageSaver;
+import controller.io.PNMImageSaver;
 import controller.io.PPMImageSaver;
+import controller.io.QOIImageSaver;
 import model.IImageDataBase;
 import model.IImageState;
 
@@ -18,8 +17,10 @@ import model.IImageState;
  * Represents a save command object that is image format agnostic. This allows the user to tell the
  * program to save an image without needing to specify the format type by running a
  * specific savePPM/savePNG/saveJPG command. This command will take the extension of the
- * specified destinationPath (e.g. .ppm, .png, or .jpg) and will trigger the appropriate
- * IImageSaver accordingly.
+ * specified destinationPath (e.g. .ppm, .png, .jpg or .bmp) and will trigger the appropriate
+ * IImageSaver accordingly. A .ppm file is saved as plain text (P3), a .pnm file as a binary PPM
+ * (P6), a .pgm file as a binary greyscale PGM (P5), a .bmp file as an uncompressed 24 bit BMP and
+ * a .qoi file as a QOI image.
  */
 public class SaveCommand implements ICommand {
   private IImageState image;
@@ -52,28 +53,26 @@ public class SaveCommand implements ICommand {
 
     // Fetch image from DB to save it as a file
     IImageState image = model.get(imageID);
+    if (image == null) {
+      throw new IllegalStateException("Image with specified id doesn't exist.");
+    }
 
     // save image to file using correct IImageSaver:
     IImageSaver saver = getImageSaver(destFilePath, image);
-
-    if (saver instanceof PPMImageSaver) {
-      //save image to file
-      File output = new File(destFilePath);
-      try (FileWriter fileWriter = new FileWriter(output)) {
-        saver = new PPMImageSaver(destFilePath, image, fileWriter);
-        saver.run();
-      } catch (IOException e) {
-        throw new IllegalStateException("Failed to write image to file");
-      }
-    } else {
-      // for PNG and JPG ImageSavers, run them normally
-      saver.run();
-    }
+    saver.run();
   }
 
   //Helper method to determine the file type to be used and which IImageSaver object to run
   private String getFileExtension(String destFilePath) {
-    if (destFilePath.contains("jpg")) {
+    if (destFilePath.endsWith(".pnm")) {
+      return "pnm";
+    } else if (destFilePath.endsWith(".pgm")) {
+      return "pgm";
+    } else if (destFilePath.endsWith(".bmp")) {
+      return "bmp";
+    } else if (destFilePath.endsWith(".qoi")) {
+      return "qoi";
+    } else if (destFilePath.contains("jpg")) {
       return "jpg";
     } else if (destFilePath.contains("png")) {
       return "png";
@@ -87,20 +86,31 @@ public class SaveCommand implements ICommand {
     String fileExt = getFileExtension(destFilePath);
     switch (fileExt) {
       case "ppm":
-        File output = new File(destFilePath);
-        try (FileWriter fileWriter = new FileWriter(output)) {
-          return new PPMImageSaver(destFilePath, image, fileWriter);
-        } catch (IOException e) {
-          throw new IllegalStateException("Failed to write image to file");
-        }
+        return new PPMImageSaver(destFilePath, image);
+      case "pnm":
+        return new PNMImageSaver(destFilePath, image, false);
+      case "pgm":
+        return new PNMImageSaver(destFilePath, image, true);
       case "png":
-        ByteArrayOutputStream pngOutput = new ByteArrayOutputStream();
-        return new PNGImageSaver(destFilePath, image, pngOutput);
+        return new PNGImageSaver(destFilePath, image);
       case "jpg":
-        ByteArrayOutputStream jpgOutput = new ByteArrayOutputStream();
-        return new JPGImageSaver(destFilePath, image, jpgOutput);
+        return new JPGImageSaver(destFilePath, image);
+      case "bmp":
+        return new BMPImageSaver(destFilePath, image);
+      case "qoi":
+        return new QOIImageSaver(destFilePath, image);
       default:
         throw new IllegalArgumentException("Unsupported file type.");
     }
   }
+
+  @Override
+  public int getArgumentCount() {
+    return 2;
+  }
+
+  @Override
+  public boolean savesImage() {
+    return true;
+  }
 }
@@ -1,8 +1,5 @@
 package controller.commands;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.Objects;
 import java.util.Scanner;
 import model.IImageState;
@@ -43,14 +40,21 @@ public class SavePPMCommand implements ICommand {
 
     //fetch image from DB to save it as file
     IImageState image = model.get(newFileName);
-    //save image to file
-    File output = new File(destFilePath);
-    try (FileWriter fileWriter = new FileWriter(output)) {
-      IImageSaver saver = new PPMImageSaver(destFilePath, image, fileWriter);
-      saver.run();
-    } catch (IOException e) {
-      throw new IllegalStateException("Failed to write image to file");
+    if (image == null) {
+      throw new IllegalStateException("Image with specified id doesn't exist.");
     }
+    //save image to file
+    IImageSaver saver = new PPMImageSaver(destFilePath, image);
+    saver.run();
   }
-}
 
+  @Override
+  public int getArgumentCount() {
+    return 2;
+  }
+
+  @Override
+  public boolean savesImage() {
+    return true;
+  }
+}
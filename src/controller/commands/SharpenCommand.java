@@ -12,7 +12,7 @@ import model.transformations.SharpenTransformation;
  * Represents the command to sharpen an image. The user must input the commane "sharpen"
  * in order to sharpend the image.
  */
-public class SharpenCommand implements ICommand {
+public class SharpenCommand implements ITransformationCommand {
   private IImageDataBase model;
 
   /**
@@ -47,7 +47,7 @@ public class SharpenCommand implements ICommand {
       throw new IllegalStateException("Image with specified id doesn't exist.");
     }
 
-    ITransformation sharpenTransformation = new SharpenTransformation();
+    ITransformation sharpenTransformation = getTransformation(scanner);
 
     IImageState sharpenedImage = sharpenTransformation.run(sourceImage);
 
@@ -55,4 +55,14 @@ public class SharpenCommand implements ICommand {
     //3. I need to save it back in the database (model)
     model.add(destID, sharpenedImage);
   }
+
+  @Override
+  public int getParameterCount() {
+    return 0;
+  }
+
+  @Override
+  public ITransformation getTransformation(Scanner scanner) {
+    return new SharpenTransformation();
+  }
 }
@@ -1,29 +1,34 @@
 package controller.io;
 
-import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Objects;
 
-import javax.imageio.ImageIO;
-
 import model.IImageState;
 
 /**
- * Represents the BMPImageSaver implementation of the IImageSaver interface as it relates
- * to BMP image types. This class saves a BMP so that the user can keep loaded and transformed
+ * Represents the BMPImageSaver implementation of the IImageSaver interface as it relates to
+ * BMP image types. This class saves a BMP so that the user can keep loaded and transformed
  * images in the designated directory.
+ *
+ * <p>The image is saved as an uncompressed 24 bit BMP, which is simple enough to write by hand:
+ * a fixed 54 byte header followed by the rows from the bottom up, each pixel in blue, green, red
+ * order and each row padded to a multiple of 4 bytes. The rows are streamed to the file one at a
+ * time, without building a BufferedImage or encoding the file in memory first.
  */
 public class BMPImageSaver implements IImageSaver {
+  private static final int HEADER_SIZE = 14 + 40; // the file header and the BITMAPINFOHEADER
+
   private final IImageState image;
-  private final ByteArrayOutputStream output;
   private final String pathToSave;
+  private final ByteArrayOutputStream output;
 
   /**
    * Constructor for a BMPImageSaver object, which saves an IImageState image
-   * to a BMP file.
+   * to a BMP file. The file is also left in the given stream.
    * @param pathToSave where to save the .bmp file.
    * @param image IImageState image to save as a bmp type.
    * @param output ByteArrayOutputStream output type.
@@ -34,47 +39,84 @@ public class BMPImageSaver implements IImageSaver {
     this.output = output;
   }
 
-  private void write(String message) {
-    try {
-      this.output.write(message.getBytes());
-    } catch (IOException e) {
-      throw new IllegalStateException("Writing failed.");
-    }
+  /**
+   * Constructor for a BMPImageSaver object that streams the image straight into the file at the
+   * given path.
+   * @param pathToSave where to save the .bmp file.
+   * @param image IImageState image to save as a bmp type.
+   */
+  public BMPImageSaver(String pathToSave, IImageState image) {
+    this(pathToSave, image, null);
   }
 
-
   @Override
   public void run() {
+    if (this.output == null) {
+      try (OutputStream file = new BufferedOutputStream(new FileOutputStream(this.pathToSave),
+              1 << 16)) {
+        write(file);
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to write image to file");
+      }
+      return;
+    }
     try {
-      //convert IImageState to BufferedImage
-      BufferedImage bufferedImage = new BufferedImage(image.getWidth(), image.getHeight(),
-              BufferedImage.TYPE_INT_RGB);
-
-      for (int row = 0; row < image.getHeight(); row++) {
-        for (int col = 0; col < image.getWidth(); col++) {
-          int r = image.getRedChannel(row, col);
-          int g = image.getGreenChannel(row, col);
-          int b = image.getBlueChannel(row, col);
+      output.reset(); //clear previous data in ByteArrayOutputStream
+      write(output);
 
-          //create a Color object using the RGB values
-          java.awt.Color color = new java.awt.Color(r, g, b);
-
-          //get the RGB values from the Color object
-          int rgb = color.getRGB();
+      //save the stream to the BMP file
+      try (OutputStream fileOutputStream = new FileOutputStream(pathToSave)) {
+        output.writeTo(fileOutputStream);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Writing failed.");
+    }
+  }
 
-          //set RGB value to BufferedImage
-          bufferedImage.setRGB(col, row, rgb);
-        }
+  // writes the header and then every row, bottom row first
+  private void write(OutputStream stream) throws IOException {
+    int width = this.image.getWidth();
+    int height = this.image.getHeight();
+    int rowSize = (3 * width + 3) & ~3;
+    long fileSize = HEADER_SIZE + (long) rowSize * height;
+    if (fileSize > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Image is too large for a BMP file.");
+    }
 
-        //save bufferedImage to BMP file
-        ImageIO.write(bufferedImage, "bmp", output);
+    byte[] header = new byte[HEADER_SIZE];
+    header[0] = 'B';
+    header[1] = 'M';
+    putInt(header, 2, (int) fileSize);
+    putInt(header, 10, HEADER_SIZE); // where the pixels start
+    putInt(header, 14, 40); // size of the BITMAPINFOHEADER
+    putInt(header, 18, width);
+    putInt(header, 22, height); // positive, so the rows are stored bottom-up
+    header[26] = 1; // one colour plane
+    header[28] = 24; // bits per pixel, no compression
+    putInt(header, 34, rowSize * height);
+    putInt(header, 38, 2835); // 72 dpi, in pixels per metre
+    putInt(header, 42, 2835);
+    stream.write(header);
 
-        try (FileOutputStream fileOutputStream = new FileOutputStream(new File(pathToSave))) {
-          output.writeTo(fileOutputStream);
-        }
+    int[] row = new int[width];
+    byte[] line = new byte[rowSize]; // the padding at the end stays 0
+    for (int y = height - 1; y >= 0; y--) {
+      this.image.getRow(y, row);
+      for (int x = 0, i = 0; x < width; x++, i += 3) {
+        int rgb = row[x];
+        line[i] = (byte) rgb;
+        line[i + 1] = (byte) (rgb >> 8);
+        line[i + 2] = (byte) (rgb >> 16);
       }
-    } catch (IOException e) {
-      throw new IllegalStateException("Writing failed.");
+      stream.write(line);
     }
   }
+
+  // stores a little-endian int, the byte order of every field of a BMP header
+  private static void putInt(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) value;
+    bytes[offset + 1] = (byte) (value >> 8);
+    bytes[offset + 2] = (byte) (value >> 16);
+    bytes[offset + 3] = (byte) (value >> 24);
+  }
 }
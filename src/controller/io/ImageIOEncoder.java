@@ -0,0 +1,136 @@
+package controller.io;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import controller.ImageUtil;
+import model.IImageState;
+
+/**
+ * Encodes images in the formats ImageIO knows, such as png, jpg and bmp, for the savers of those
+ * formats. The image is copied into a BufferedImage in bulk by ImageUtil.convertToBufferedImage
+ * and the encoder writes straight into a file, so the compressed image is never held in memory.
+ *
+ * <p>Looking an ImageWriter up and setting it up costs more than encoding a small image, so the
+ * writers are kept for the next save in the same format once they are done. A writer is only used
+ * by one save at a time, so saves may run on several threads at once.
+ */
+final class ImageIOEncoder {
+  // the writers that are not in use, by format name
+  private static final Map<String, Queue<ImageWriter>> IDLE = new ConcurrentHashMap<>();
+
+  private ImageIOEncoder() {
+    // only static methods
+  }
+
+  /**
+   * Saves an image to a file, replacing anything that was in the file. The image is encoded into
+   * a new file next to it, which then takes its place, so if the save fails the file is left as
+   * it was.
+   * @param image the image to save.
+   * @param format the informal name of the format, as ImageIO knows it.
+   * @param pathToSave where to save the image.
+   * @throws IllegalStateException if the file cannot be written.
+   */
+  static void write(IImageState image, String format, String pathToSave)
+          throws IllegalStateException {
+    Path target;
+    Path temporary;
+    try {
+      target = Paths.get(pathToSave).toAbsolutePath();
+      temporary = createSibling(target);
+    } catch (IOException | InvalidPathException e) {
+      throw new IllegalStateException("Failed to write image to file");
+    }
+    try {
+      try (ImageOutputStream output = new FileImageOutputStream(temporary.toFile())) {
+        encode(image, format, output);
+      }
+      move(temporary, target);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write image to file");
+    } finally {
+      try {
+        Files.deleteIfExists(temporary);
+      } catch (IOException e) {
+        // only a leftover file; the save itself has already succeeded or failed
+      }
+    }
+  }
+
+  /**
+   * Encodes an image into a stream.
+   * @param image the image to save.
+   * @param format the informal name of the format, as ImageIO knows it.
+   * @param output where the encoded image goes. It is not closed.
+   * @throws IOException if the stream cannot be written.
+   */
+  static void write(IImageState image, String format, OutputStream output) throws IOException {
+    try (ImageOutputStream stream = new MemoryCacheImageOutputStream(output)) {
+      encode(image, format, stream);
+    }
+  }
+
+  private static void encode(IImageState image, String format, ImageOutputStream output)
+          throws IOException {
+    BufferedImage bufferedImage = ImageUtil.convertToBufferedImage(image);
+    Queue<ImageWriter> idle = IDLE.computeIfAbsent(format, f -> new ConcurrentLinkedQueue<>());
+    ImageWriter writer = idle.poll();
+    if (writer == null) {
+      Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+      if (!writers.hasNext()) {
+        throw new IllegalArgumentException("Unsupported file type.");
+      }
+      writer = writers.next();
+    }
+    try {
+      writer.setOutput(output);
+      writer.write(bufferedImage);
+    } finally {
+      writer.reset();
+      idle.add(writer);
+    }
+  }
+
+  // creates an empty file in the directory of the target, with the permissions a new file gets
+  private static Path createSibling(Path target) throws IOException {
+    while (true) {
+      Path temporary = target.resolveSibling("." + target.getFileName() + "."
+              + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+      try {
+        return Files.createFile(temporary);
+      } catch (FileAlreadyExistsException e) {
+        // another save picked the same name; try another one
+      }
+    }
+  }
+
+  // puts the new file in place of the target in one step where the file system allows it
+  private static void move(Path from, Path to) throws IOException {
+    try {
+      Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
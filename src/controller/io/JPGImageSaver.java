@@ -1,21 +1,18 @@
 package controller.io;
 
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Objects;
 
-import javax.imageio.ImageIO;
-
 import model.IImageState;
 
 /**
- * Represents the JPGImageSaver implementation of the IImageSaver interface as it related to
+ * Represents the JPGImageSaver implementation of the IImageSaver interface as it relates to
  * JPG image types. This class saves a JPG so that the user can keep loaded and transformed
- * images in the designated directory.
+ * images in the designated directory. The image is encoded by ImageIOEncoder, like the other
+ * formats ImageIO writes.
  */
 public class JPGImageSaver implements IImageSaver {
   private final IImageState image;
@@ -23,8 +20,8 @@ public class JPGImageSaver implements IImageSaver {
   private final ByteArrayOutputStream output;
 
   /**
-   * Constructor for a JPGImageSaver object, which saves an IImageState image to a JPG
-   * file.
+   * Constructor for a JPGImageSaver object, which saves an IImageState image
+   * to a JPG file. The encoded file is also left in the given stream.
    * @param pathToSave where to save the .jpg file.
    * @param image IImageState image to save as jpg type.
    * @param output ByteArrayOutputStream output type.
@@ -35,34 +32,28 @@ public class JPGImageSaver implements IImageSaver {
     this.output = output;
   }
 
+  /**
+   * Constructor for a JPGImageSaver object that encodes the image straight into the file at the
+   * given path, without holding the encoded file in memory.
+   * @param pathToSave where to save the .jpg file.
+   * @param image IImageState image to save as jpg type.
+   */
+  public JPGImageSaver(String pathToSave, IImageState image) {
+    this(pathToSave, image, null);
+  }
+
   @Override
   public void run() {
+    if (this.output == null) {
+      ImageIOEncoder.write(this.image, "jpg", this.pathToSave);
+      return;
+    }
     try {
-      //convert IImageState to BufferedImage
-      BufferedImage bufferedImage = new BufferedImage(image.getWidth(), image.getHeight(),
-              BufferedImage.TYPE_INT_RGB);
-
-      for (int row = 0; row < image.getHeight(); row++) {
-        for (int col = 0; col < image.getWidth(); col++) {
-          int r = image.getRedChannel(col, row);
-          int g = image.getGreenChannel(col, row);
-          int b = image.getBlueChannel(col, row);
-
-          //create a Color object using the RGB values
-          java.awt.Color color = new java.awt.Color(r, g, b);
-
-          //get the RGB values from the Color object
-          int rgb = color.getRGB();
-
-          //set RGB value to BufferedImage
-          bufferedImage.setRGB(col, row, rgb);
-        }
-      }
       output.reset(); //clear previous data in ByteArrayOutputStream
-      ImageIO.write(bufferedImage, "jpg", output);
+      ImageIOEncoder.write(this.image, "jpg", output);
 
-      //save bufferedImage to PNG file
-      try (OutputStream fileOutputStream = new FileOutputStream(new File(pathToSave))) {
+      //save the encoded image to the JPG file
+      try (OutputStream fileOutputStream = new FileOutputStream(pathToSave)) {
         output.writeTo(fileOutputStream);
       }
     } catch (IOException e) {
@@ -1,32 +1,27 @@
 package controller.io;
 
-
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Objects;
 
-import javax.imageio.ImageIO;
-
 import model.IImageState;
 
 /**
  * Represents the PNGImageSaver implementation of the IImageSaver interface as it relates to
  * PNG image types. This class saves a PNG so that the user can keep loaded and transformed
- * images in the designated directory.
+ * images in the designated directory. The image is encoded by ImageIOEncoder, like the other
+ * formats ImageIO writes.
  */
 public class PNGImageSaver implements IImageSaver {
   private final IImageState image;
   private final String pathToSave;
   private final ByteArrayOutputStream output;
 
-
   /**
    * Constructor for a PNGImageSaver object, which saves an IImageState image
-   * to a PNG file.
+   * to a PNG file. The encoded file is also left in the given stream.
    * @param pathToSave where to save the .png file.
    * @param image IImageState image to save as png type.
    * @param output ByteArrayOutputStream output type.
@@ -37,38 +32,32 @@ public class PNGImageSaver implements IImageSaver {
     this.output = output;
   }
 
+  /**
+   * Constructor for a PNGImageSaver object that encodes the image straight into the file at the
+   * given path, without holding the encoded file in memory.
+   * @param pathToSave where to save the .png file.
+   * @param image IImageState image to save as png type.
+   */
+  public PNGImageSaver(String pathToSave, IImageState image) {
+    this(pathToSave, image, null);
+  }
+
   @Override
   public void run() {
+    if (this.output == null) {
+      ImageIOEncoder.write(this.image, "png", this.pathToSave);
+      return;
+    }
     try {
-
-      int width = image.getWidth();
-      int height = image.getHeight();
-      // convert IImageState to BufferedImage
-      BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-      for (int row = 0; row < height; row++) {
-        for (int col = 0; col < width; col++) {
-          int r = image.getRedChannel(col, row);
-          int g = image.getGreenChannel(col, row);
-          int b = image.getBlueChannel(col, row);
-          // Create a Color object using the RGB values
-          java.awt.Color color = new java.awt.Color(r, g, b);
-          //get the RGB values from the Color object
-          int rgb = color.getRGB();
-          //set RGB value to BufferedImage
-          bufferedImage.setRGB(col, row, rgb);
-        }
-      }
       output.reset(); //clear previous data in ByteArrayOutputStream
-      ImageIO.write(bufferedImage, "png", output);
+      ImageIOEncoder.write(this.image, "png", output);
 
-      //save bufferedImage to PNG file
-      try (OutputStream fileOutputStream = new FileOutputStream(new File(pathToSave))) {
+      //save the encoded image to the PNG file
+      try (OutputStream fileOutputStream = new FileOutputStream(pathToSave)) {
         output.writeTo(fileOutputStream);
       }
     } catch (IOException e) {
       throw new IllegalStateException("Writing failed.");
     }
   }
-
 }
@@ -0,0 +1,71 @@
+package controller.io;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import model.IImageState;
+import model.PixelOperation;
+import model.transformations.GreyscaleLumaTransformation;
+
+/**
+ * This represents the PNMImageSaver implementation of the IImageSaver interface as it relates to
+ * the binary PPM (P6) and PGM (P5) image types. A binary file stores one byte per sample, so it
+ * is about a quarter the size of a plain P3 file and is written without formatting a single
+ * number. Both are read back by PPMImageLoader.
+ */
+public class PNMImageSaver implements IImageSaver {
+  private final String pathToSave;
+  private final IImageState image;
+  private final boolean greyscale;
+
+  /**
+   * Constructs a PNMImageSaver object.
+   * @param pathToSave string path to where the file should be saved.
+   * @param image IImageState to be saved by command.
+   * @param greyscale true to save a P5 file holding the luma of each pixel, false to save a P6
+   *     file holding all three channels.
+   */
+  public PNMImageSaver(String pathToSave, IImageState image, boolean greyscale) {
+    this.pathToSave = Objects.requireNonNull(pathToSave);
+    this.image = Objects.requireNonNull(image);
+    this.greyscale = greyscale;
+  }
+
+  @Override
+  public void run() {
+    int width = this.image.getWidth();
+    String header = (this.greyscale ? "P5" : "P6") + "\n" + width + " " + this.image.getHeight()
+            + "\n255\n";
+    PixelOperation luma = new GreyscaleLumaTransformation().getPixelOperation();
+    int[] row = new int[width];
+    byte[] line = new byte[this.greyscale ? width : 3 * width];
+
+    try (OutputStream output = new BufferedOutputStream(new FileOutputStream(this.pathToSave),
+            1 << 16)) {
+      output.write(header.getBytes(StandardCharsets.US_ASCII));
+      for (int y = 0; y < this.image.getHeight(); y++) {
+        this.image.getRow(y, row);
+        if (this.greyscale) {
+          luma.apply(row, 0, width);
+          for (int x = 0; x < width; x++) {
+            line[x] = (byte) row[x];
+          }
+        } else {
+          for (int x = 0, i = 0; x < width; x++, i += 3) {
+            int rgb = row[x];
+            line[i] = (byte) (rgb >> 16);
+            line[i + 1] = (byte) (rgb >> 8);
+            line[i + 2] = (byte) rgb;
+          }
+        }
+        output.write(line);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write image to file");
+    }
+  }
+}
@@ -1,6 +1,9 @@
 package controller.io;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import model.IImageState;
 
@@ -8,10 +11,28 @@ import model.IImageState;
  * This represents the PPMImageSaver implementation of the IImageSaver interface as it relates
  * to PPM image types. This class saves a PPM so that the user can keep loaded and transformed
  * images in the designated directory.
+ *
+ * <p>The plain (P3) format spends a line on every channel value. The values are formatted by
+ * copying their digits out of a table built once for 0 to 255 into a reusable buffer, and the
+ * buffer goes out in large chunks, so saving allocates nothing per pixel.
  */
 public class PPMImageSaver implements IImageSaver {
+  private static final int CHUNK_SIZE = 1 << 16;
+  // the text of every channel value followed by a newline, 4 bytes a value, and its length
+  private static final byte[] DIGITS = new byte[256 * 4];
+  private static final byte[] LENGTHS = new byte[256];
+
+  static {
+    for (int value = 0; value < 256; value++) {
+      byte[] text = (value + "\n").getBytes(StandardCharsets.US_ASCII);
+      System.arraycopy(text, 0, DIGITS, value * 4, text.length);
+      LENGTHS[value] = (byte) text.length;
+    }
+  }
+
   private final IImageState image;
   private final Appendable output;
+  private final String pathToSave;
 
   /**
    * Constructs a PPMImageSaver object.
@@ -20,35 +41,80 @@ public class PPMImageSaver implements IImageSaver {
    * @param output Appendable type, most likely file.
    */
   public PPMImageSaver(String pathToSave, IImageState image, Appendable output) {
-    String pathToSave1 = Objects.requireNonNull(pathToSave);
+    this.pathToSave = Objects.requireNonNull(pathToSave);
     this.image = Objects.requireNonNull(image);
     this.output = output;
   }
 
-  private void write(String message) {
-    try {
-      this.output.append(message);
-    } catch (IOException e) {
-      throw new IllegalStateException("Writing failed.");
-    }
+  /**
+   * Constructs a PPMImageSaver object that writes the file at the given path itself, which is
+   * faster than going through an Appendable.
+   * @param pathToSave string path to where the file should be saved.
+   * @param image IImageState to be saved by command.
+   */
+  public PPMImageSaver(String pathToSave, IImageState image) {
+    this(pathToSave, image, null);
   }
 
   @Override
   public void run() {
-    write("P3\n");
-    write(image.getWidth() + " " + image.getHeight() + "\n");
-    write("255\n");
+    if (this.output != null) {
+      try {
+        write((chunk, length) -> this.output.append(new String(chunk, 0, length,
+                StandardCharsets.US_ASCII)));
+      } catch (IOException e) {
+        throw new IllegalStateException("Writing failed.");
+      }
+      return;
+    }
+    try (OutputStream file = new FileOutputStream(this.pathToSave)) {
+      write((chunk, length) -> file.write(chunk, 0, length));
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write image to file");
+    }
+  }
+
+  // formats the whole image into one chunk after another, handing each full chunk to the sink
+  private void write(ChunkSink sink) throws IOException {
+    int width = this.image.getWidth();
+    int[] row = new int[width];
+    byte[] chunk = new byte[CHUNK_SIZE];
+    byte[] header = ("P3\n" + width + " " + this.image.getHeight() + "\n255\n")
+            .getBytes(StandardCharsets.US_ASCII);
+    System.arraycopy(header, 0, chunk, 0, header.length);
+    int length = header.length;
 
     //iterate over the image
-    for (int row = 0; row < image.getHeight(); row++) {
-      for (int col = 0; col < image.getWidth(); col++) {
-        int r = image.getRedChannel(col, row);
-        int g = image.getGreenChannel(col, row);
-        int b = image.getBlueChannel(col, row);
-
-        //append the RGB values to the output:
-        write(r + "\n" + g + "\n" + b + "\n");
+    for (int y = 0; y < this.image.getHeight(); y++) {
+      this.image.getRow(y, row);
+      for (int x = 0; x < width; x++) {
+        if (length > CHUNK_SIZE - 12) {
+          sink.write(chunk, length);
+          length = 0;
+        }
+        int rgb = row[x];
+        length = append(chunk, length, (rgb >> 16) & 0xFF);
+        length = append(chunk, length, (rgb >> 8) & 0xFF);
+        length = append(chunk, length, rgb & 0xFF);
       }
     }
+    sink.write(chunk, length);
+  }
+
+  // copies the text of a channel value and its newline into the chunk
+  private static int append(byte[] chunk, int length, int value) {
+    int from = value * 4;
+    int count = LENGTHS[value];
+    for (int i = 0; i < count; i++) {
+      chunk[length + i] = DIGITS[from + i];
+    }
+    return length + count;
+  }
+
+  /**
+   * Where the formatted chunks go: the file, or the Appendable the saver was given.
+   */
+  private interface ChunkSink {
+    void write(byte[] chunk, int length) throws IOException;
   }
 }
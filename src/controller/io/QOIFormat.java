@@ -0,0 +1,43 @@
+package controller.io;
+
+/**
+ * The constants of the QOI ("Quite OK Image") format shared by QOIImageSaver and QOIImageLoader.
+ * A QOI file is a 14 byte header followed by one chunk per pixel or run of pixels and an 8 byte
+ * end marker. Each chunk either repeats the previous pixel, refers to one of the 64 pixels seen
+ * most recently (by a hash of their value), stores a small difference from the previous pixel, or
+ * stores the whole pixel.
+ *
+ * <p>Pixels are handled as 0xAARRGGBB ints. The images of this program have no alpha, so every
+ * pixel they hold is opaque.
+ */
+final class QOIFormat {
+  static final int MAGIC = ('q' << 24) | ('o' << 16) | ('i' << 8) | 'f';
+  static final int HEADER_SIZE = 14;
+  static final byte[] END = {0, 0, 0, 0, 0, 0, 0, 1};
+
+  static final int OP_INDEX = 0x00; // 00xxxxxx: a pixel from the table of recent pixels
+  static final int OP_DIFF = 0x40; // 01rrggbb: each channel differs by -2..1
+  static final int OP_LUMA = 0x80; // 10gggggg rrrrbbbb: green differs by -32..31, red and blue
+  // differ from green's difference by -8..7
+  static final int OP_RUN = 0xC0; // 11xxxxxx: the previous pixel 1..62 more times
+  static final int OP_RGB = 0xFE; // then red, green and blue
+  static final int OP_RGBA = 0xFF; // then red, green, blue and alpha
+  static final int MASK = 0xC0;
+  static final int MAX_RUN = 62;
+
+  static final int OPAQUE = 0xFF000000;
+
+  private QOIFormat() {
+    // only constants
+  }
+
+  /**
+   * Returns where a pixel goes in the table of the 64 most recent pixels.
+   * @param pixel the pixel, as 0xAARRGGBB.
+   * @return the slot, 0 to 63.
+   */
+  static int hash(int pixel) {
+    return (((pixel >> 16) & 0xFF) * 3 + ((pixel >> 8) & 0xFF) * 5 + (pixel & 0xFF) * 7
+            + (pixel >>> 24) * 11) & 63;
+  }
+}
@@ -0,0 +1,116 @@
+package controller.io;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import model.IImage;
+import model.IImageState;
+import model.PackedImageImpl;
+
+/**
+ * Represents the QOIImageLoader implementation of the IImageLoader interface as it relates to the
+ * QOI ("Quite OK Image") format. The file is mapped into memory and decoded in one pass, straight
+ * into the rows of the image. Files with an alpha channel are read too, and their alpha dropped.
+ */
+public class QOIImageLoader implements IImageLoader {
+  private final String filePath;
+
+  public QOIImageLoader(String filePath) {
+    this.filePath = Objects.requireNonNull(filePath);
+  }
+
+  /**
+   * Reads the QOI file.
+   * @return the image, or null if the file cannot be opened.
+   * @throws IllegalStateException if the file is not a QOI file or does not hold a whole image.
+   */
+  @Override
+  public IImageState run() throws IllegalStateException {
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(Paths.get(this.filePath), StandardOpenOption.READ);
+    } catch (IOException | InvalidPathException e) {
+      System.out.println("File " + this.filePath + " not found!");
+      return null;
+    }
+    ByteBuffer bytes;
+    try (channel) {
+      bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read image from file");
+    }
+
+    try {
+      return read(bytes);
+    } catch (BufferUnderflowException e) {
+      throw new IllegalStateException("Invalid QOI file: the file ended too early.");
+    }
+  }
+
+  // decodes the header and then every chunk, following the reference decoder
+  private static IImageState read(ByteBuffer bytes) {
+    if (bytes.getInt() != QOIFormat.MAGIC) {
+      throw new IllegalStateException("Invalid QOI file: it should begin with qoif.");
+    }
+    int width = bytes.getInt();
+    int height = bytes.getInt();
+    int channels = bytes.get();
+    bytes.get(); // the colour space does not change how the pixels are stored
+    if (width <= 0 || height <= 0 || (channels != 3 && channels != 4)) {
+      throw new IllegalStateException("Invalid QOI file: bad header.");
+    }
+
+    IImage image;
+    try {
+      image = new PackedImageImpl(width, height);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalStateException("Invalid QOI file: the image is too large.");
+    }
+    int[] recent = new int[64];
+    int[] row = new int[width];
+    int pixel = QOIFormat.OPAQUE; // black
+    int run = 0;
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        if (run > 0) {
+          run--;
+        } else {
+          int op = bytes.get() & 0xFF;
+          if (op == QOIFormat.OP_RGB) {
+            pixel = (pixel & QOIFormat.OPAQUE) | (bytes.get() & 0xFF) << 16
+                    | (bytes.get() & 0xFF) << 8 | bytes.get() & 0xFF;
+          } else if (op == QOIFormat.OP_RGBA) {
+            pixel = (bytes.get() & 0xFF) << 16 | (bytes.get() & 0xFF) << 8 | bytes.get() & 0xFF
+                    | (bytes.get() & 0xFF) << 24;
+          } else if ((op & QOIFormat.MASK) == QOIFormat.OP_INDEX) {
+            pixel = recent[op];
+          } else if ((op & QOIFormat.MASK) == QOIFormat.OP_DIFF) {
+            pixel = add(pixel, ((op >> 4) & 3) - 2, ((op >> 2) & 3) - 2, (op & 3) - 2);
+          } else if ((op & QOIFormat.MASK) == QOIFormat.OP_LUMA) {
+            int green = (op & 0x3F) - 32;
+            int second = bytes.get() & 0xFF;
+            pixel = add(pixel, green + (second >> 4) - 8, green, green + (second & 0x0F) - 8);
+          } else {
+            run = op & 0x3F; // this pixel and then this many more
+          }
+          recent[QOIFormat.hash(pixel)] = pixel;
+        }
+        row[x] = pixel & 0xFFFFFF;
+      }
+      image.setRow(y, row);
+    }
+    return image;
+  }
+
+  // adds a difference to each channel, wrapping around, and keeps the alpha
+  private static int add(int pixel, int red, int green, int blue) {
+    return (pixel & QOIFormat.OPAQUE) | (((pixel >> 16) + red) & 0xFF) << 16
+            | (((pixel >> 8) + green) & 0xFF) << 8 | ((pixel + blue) & 0xFF);
+  }
+}
@@ -0,0 +1,121 @@
+package controller.io;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+
+import model.IImageState;
+
+/**
+ * Represents the QOIImageSaver implementation of the IImageSaver interface as it relates to the
+ * QOI ("Quite OK Image") format. QOI is lossless like PNG but is encoded in a single pass with no
+ * compression library behind it, so it suits images that are saved only to be loaded again soon.
+ * The packed rows of the image are encoded into a reusable chunk that goes out to the file
+ * whenever it fills up.
+ */
+public class QOIImageSaver implements IImageSaver {
+  private static final int CHUNK_SIZE = 1 << 16;
+
+  private final String pathToSave;
+  private final IImageState image;
+
+  /**
+   * Constructs a QOIImageSaver object.
+   * @param pathToSave string path to where the file should be saved.
+   * @param image IImageState to be saved by command.
+   */
+  public QOIImageSaver(String pathToSave, IImageState image) {
+    this.pathToSave = Objects.requireNonNull(pathToSave);
+    this.image = Objects.requireNonNull(image);
+  }
+
+  @Override
+  public void run() {
+    try (OutputStream file = new FileOutputStream(this.pathToSave)) {
+      write(file);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write image to file");
+    }
+  }
+
+  // encodes the image chunk by chunk, following the reference encoder
+  private void write(OutputStream file) throws IOException {
+    int width = this.image.getWidth();
+    int height = this.image.getHeight();
+    byte[] chunk = new byte[CHUNK_SIZE];
+    putInt(chunk, 0, QOIFormat.MAGIC);
+    putInt(chunk, 4, width);
+    putInt(chunk, 8, height);
+    chunk[12] = 3; // red, green and blue
+    chunk[13] = 0; // sRGB
+    int length = QOIFormat.HEADER_SIZE;
+
+    int[] recent = new int[64];
+    int[] row = new int[width];
+    int previous = QOIFormat.OPAQUE; // black
+    int run = 0;
+    for (int y = 0; y < height; y++) {
+      this.image.getRow(y, row);
+      for (int x = 0; x < width; x++) {
+        if (length > CHUNK_SIZE - 8) {
+          file.write(chunk, 0, length);
+          length = 0;
+        }
+        int pixel = row[x] | QOIFormat.OPAQUE;
+        if (pixel == previous) {
+          run++;
+          if (run == QOIFormat.MAX_RUN) {
+            chunk[length++] = (byte) (QOIFormat.OP_RUN | (run - 1));
+            run = 0;
+          }
+          continue;
+        }
+        if (run > 0) {
+          chunk[length++] = (byte) (QOIFormat.OP_RUN | (run - 1));
+          run = 0;
+        }
+
+        int slot = QOIFormat.hash(pixel);
+        if (recent[slot] == pixel) {
+          chunk[length++] = (byte) (QOIFormat.OP_INDEX | slot);
+        } else {
+          recent[slot] = pixel;
+          // the differences wrap around, so 255 to 0 is a difference of 1
+          int red = (byte) ((pixel >> 16) - (previous >> 16));
+          int green = (byte) ((pixel >> 8) - (previous >> 8));
+          int blue = (byte) (pixel - previous);
+          int redGreen = red - green;
+          int blueGreen = blue - green;
+          if (red >= -2 && red <= 1 && green >= -2 && green <= 1 && blue >= -2 && blue <= 1) {
+            chunk[length++] = (byte) (QOIFormat.OP_DIFF | (red + 2) << 4 | (green + 2) << 2
+                    | (blue + 2));
+          } else if (green >= -32 && green <= 31 && redGreen >= -8 && redGreen <= 7
+                  && blueGreen >= -8 && blueGreen <= 7) {
+            chunk[length++] = (byte) (QOIFormat.OP_LUMA | (green + 32));
+            chunk[length++] = (byte) ((redGreen + 8) << 4 | (blueGreen + 8));
+          } else {
+            chunk[length++] = (byte) QOIFormat.OP_RGB;
+            chunk[length++] = (byte) (pixel >> 16);
+            chunk[length++] = (byte) (pixel >> 8);
+            chunk[length++] = (byte) pixel;
+          }
+        }
+        previous = pixel;
+      }
+    }
+    if (run > 0) {
+      chunk[length++] = (byte) (QOIFormat.OP_RUN | (run - 1));
+    }
+    file.write(chunk, 0, length);
+    file.write(QOIFormat.END);
+  }
+
+  // stores a big-endian int, the byte order of the QOI header
+  private static void putInt(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) (value >> 24);
+    bytes[offset + 1] = (byte) (value >> 16);
+    bytes[offset + 2] = (byte) (value >> 8);
+    bytes[offset + 3] = (byte) value;
+  }
+}
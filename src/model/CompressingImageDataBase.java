@@ -0,0 +1,271 @@
+package model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Represents an IImageDataBase that keeps the images it has not used for a while compressed in
+ * memory. Many images in a script are written once and then wait for a save at the end; those go
+ * cold, and taking them from 4 bytes a pixel to the one or two of RowDeltaCodec leaves room for
+ * the images still being worked on. Reading a cold image decompresses it, so the database behaves
+ * like ImageDataBase apart from the time that takes.
+ *
+ * <p>An image goes cold once it has not been added or read for the idle time, or, least recently
+ * used first, when the images in memory, compressed or not, take more than the budget. The image
+ * used last always stays as it is. Both are checked whenever an image is added or read.
+ *
+ * <p>Images are not copied when they are added, so, as with ImageDataBase, an image must not be
+ * changed once it is in the database.
+ */
+public class CompressingImageDataBase implements IImageDataBase {
+  private final long budget;
+  private final long idleNanos;
+  private final LinkedHashMap<String, Hot> hot; // least recently used first
+  private final Map<String, Cold> cold;
+  private long hotBytes;
+  private long coldBytes; // the compressed bytes of the cold images
+  private long coldPixelBytes; // the bytes the cold images would take uncompressed
+  private long compressions;
+  private long decompressions;
+  private long decompressionNanos;
+
+  /**
+   * Constructs an empty CompressingImageDataBase.
+   * @param budget how many bytes of images to keep in memory before compressing the least
+   *               recently used ones.
+   * @param idleMillis how many milliseconds an image may go unused before it is compressed.
+   * @throws IllegalArgumentException if the budget or the idle time is negative.
+   */
+  public CompressingImageDataBase(long budget, long idleMillis) throws IllegalArgumentException {
+    if (budget < 0) {
+      throw new IllegalArgumentException("Memory budget cannot be negative.");
+    }
+    if (idleMillis < 0) {
+      throw new IllegalArgumentException("Idle time cannot be negative.");
+    }
+    this.budget = budget;
+    this.idleNanos = idleMillis > Long.MAX_VALUE / 1000000 ? Long.MAX_VALUE
+            : idleMillis * 1000000;
+    this.hot = new LinkedHashMap<>(16, 0.75f, true);
+    this.cold = new HashMap<>();
+  }
+
+  @Override
+  public synchronized void add(String id, IImageState image) {
+    if (id == null || image == null) {
+      throw new IllegalArgumentException("ID or image is null");
+    }
+    forget(id);
+    long now = System.nanoTime();
+    this.hot.put(id, new Hot(image, now));
+    this.hotBytes += size(image);
+    cool(now);
+  }
+
+  @Override
+  public synchronized IImageState get(String id) {
+    Objects.requireNonNull(id);
+    long now = System.nanoTime();
+    Hot entry = this.hot.get(id);
+    if (entry != null) {
+      entry.lastUse = now;
+      cool(now);
+      return entry.image;
+    }
+    Cold record = this.cold.remove(id);
+    if (record == null) {
+      return null;
+    }
+    this.coldBytes -= record.bytes.length;
+    this.coldPixelBytes -= 4L * record.width * record.height;
+    IImageState image = RowDeltaCodec.decompress(record.bytes, record.width, record.height);
+    this.decompressions++;
+    this.decompressionNanos += System.nanoTime() - now;
+    this.hot.put(id, new Hot(image, now));
+    this.hotBytes += size(image);
+    cool(now);
+    return image;
+  }
+
+  /**
+   * Returns every image in the database by id. The map is a read-only view: a cold image is
+   * decompressed only when the map is asked for it.
+   * @return the images by id.
+   */
+  @Override
+  public Map<String, IImageState> getImages() {
+    return new AbstractMap<>() {
+      @Override
+      public IImageState get(Object key) {
+        return key instanceof String ? CompressingImageDataBase.this.get((String) key) : null;
+      }
+
+      @Override
+      public boolean containsKey(Object key) {
+        synchronized (CompressingImageDataBase.this) {
+          return hot.containsKey(key) || cold.containsKey(key);
+        }
+      }
+
+      @Override
+      public Set<Entry<String, IImageState>> entrySet() {
+        return new AbstractSet<>() {
+          @Override
+          public Iterator<Entry<String, IImageState>> iterator() {
+            Iterator<String> ids = ids().iterator();
+            return new Iterator<>() {
+              @Override
+              public boolean hasNext() {
+                return ids.hasNext();
+              }
+
+              @Override
+              public Entry<String, IImageState> next() {
+                String id = ids.next();
+                return new SimpleImmutableEntry<>(id, CompressingImageDataBase.this.get(id));
+              }
+            };
+          }
+
+          @Override
+          public int size() {
+            return ids().size();
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * Returns how many times an image was compressed.
+   * @return the number of compressions.
+   */
+  public synchronized long getCompressions() {
+    return this.compressions;
+  }
+
+  /**
+   * Returns how many times get had to decompress the image.
+   * @return the number of decompressions.
+   */
+  public synchronized long getDecompressions() {
+    return this.decompressions;
+  }
+
+  /**
+   * Returns how long get took on average to decompress an image.
+   * @return the mean time of a decompression in nanoseconds, or 0 if there was none.
+   */
+  public synchronized double getAverageDecompressionNanos() {
+    return this.decompressions == 0 ? 0 : (double) this.decompressionNanos / this.decompressions;
+  }
+
+  /**
+   * Returns how many times fewer bytes the cold images take than they would uncompressed.
+   * @return the uncompressed bytes of the cold images over their compressed bytes, or 1 if
+   *         there are none.
+   */
+  public synchronized double getCompressionRatio() {
+    return this.coldBytes == 0 ? 1 : (double) this.coldPixelBytes / this.coldBytes;
+  }
+
+  /**
+   * Returns how many bytes the images that are not compressed take, at 4 bytes a pixel.
+   * @return the bytes of the hot images.
+   */
+  public synchronized long getHotBytes() {
+    return this.hotBytes;
+  }
+
+  /**
+   * Returns how many bytes the compressed images take.
+   * @return the bytes of the cold images.
+   */
+  public synchronized long getColdBytes() {
+    return this.coldBytes;
+  }
+
+  // the ids of every image, compressed or not
+  private synchronized List<String> ids() {
+    List<String> ids = new ArrayList<>(this.hot.keySet());
+    ids.addAll(this.cold.keySet());
+    return ids;
+  }
+
+  // what an image costs in memory
+  private static long size(IImageState image) {
+    return 4L * image.getWidth() * image.getHeight();
+  }
+
+  // drops an image that is being replaced, hot or cold
+  private void forget(String id) {
+    Hot entry = this.hot.remove(id);
+    if (entry != null) {
+      this.hotBytes -= size(entry.image);
+    }
+    Cold record = this.cold.remove(id);
+    if (record != null) {
+      this.coldBytes -= record.bytes.length;
+      this.coldPixelBytes -= 4L * record.width * record.height;
+    }
+  }
+
+  // compresses the least recently used images that are idle or over the budget, keeping the most
+  // recent one
+  private void cool(long now) {
+    Iterator<Map.Entry<String, Hot>> eldest = this.hot.entrySet().iterator();
+    while (this.hot.size() > 1) {
+      Map.Entry<String, Hot> entry = eldest.next();
+      IImageState image = entry.getValue().image;
+      // the eldest was used longest ago, so once it is not idle none of the others are
+      if (this.hotBytes + this.coldBytes <= this.budget
+              && now - entry.getValue().lastUse < this.idleNanos) {
+        return;
+      }
+      Cold record = new Cold(RowDeltaCodec.compress(image), image.getWidth(),
+              image.getHeight());
+      this.cold.put(entry.getKey(), record);
+      this.compressions++;
+      this.coldBytes += record.bytes.length;
+      this.coldPixelBytes += size(image);
+      this.hotBytes -= size(image);
+      eldest.remove();
+    }
+  }
+
+  /**
+   * An image that is kept as it is, and when it was last added or read.
+   */
+  private static final class Hot {
+    private final IImageState image;
+    private long lastUse;
+
+    Hot(IImageState image, long lastUse) {
+      this.image = image;
+      this.lastUse = lastUse;
+    }
+  }
+
+  /**
+   * An image that is kept compressed.
+   */
+  private static final class Cold {
+    private final byte[] bytes;
+    private final int width;
+    private final int height;
+
+    Cold(byte[] bytes, int width, int height) {
+      this.bytes = bytes;
+      this.width = width;
+      this.height = height;
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Represents an IImageDataBase that any number of threads may use at once, so that several
+ * scripts can run against the same images. The images are held in a ConcurrentHashMap: reading
+ * an image never waits, and adding one only locks the part of the map the id falls in, so adds of
+ * different ids rarely wait for each other and an add costs the same however many images there
+ * are.
+ *
+ * <p>Writes of one id are applied one after another, so the last add of an id to take effect is
+ * the one every later get sees. getImages copies the map while no write is under way, so the copy
+ * holds exactly the writes that finished before it: if one thread adds a and then b, a copy with
+ * b in it has a in it too. Writes share the read side of a read-write lock, so they never wait
+ * for each other on it, and only wait while a copy is being made, which costs time in the number
+ * of images.
+ */
+public class ConcurrentImageDataBase implements IImageDataBase {
+  private final ConcurrentHashMap<String, IImageState> images;
+  // held shared by every write and alone by getImages, so a copy never sees half of the writes
+  private final ReadWriteLock copying;
+
+  public ConcurrentImageDataBase() {
+    this.images = new ConcurrentHashMap<>();
+    this.copying = new ReentrantReadWriteLock();
+  }
+
+  @Override
+  public void add(String id, IImageState image) {
+    if (id == null || image == null) {
+      throw new IllegalArgumentException("ID or image is null");
+    }
+    this.copying.readLock().lock();
+    try {
+      this.images.put(id, image);
+    } finally {
+      this.copying.readLock().unlock();
+    }
+  }
+
+  @Override
+  public IImageState get(String id) {
+    Objects.requireNonNull(id);
+    return this.images.get(id);
+  }
+
+  /**
+   * Returns a copy of the images in the database as they were at one moment: every add and update
+   * that finished before the copy is in it, and none that started after it. The copy cannot be
+   * changed. Writes wait while it is made.
+   * @return a copy of the images by id.
+   */
+  @Override
+  public Map<String, IImageState> getImages() {
+    this.copying.writeLock().lock();
+    try {
+      return Collections.unmodifiableMap(new HashMap<>(this.images));
+    } finally {
+      this.copying.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Replaces an image with a function of it, as one step: no other add or update of the same id
+   * can come between reading the image and storing its replacement. Other writes that fall in the
+   * same part of the map wait while the function runs, so it should be quick, and it must not add,
+   * update or copy the images of this database itself.
+   * @param id the id of the image.
+   * @param function gives the new image from the current one, which is null if there is none.
+   * @return the image stored.
+   * @throws IllegalArgumentException if the id is null or the function gives null, in which case
+   *                                  the image is left as it was.
+   */
+  public IImageState update(String id, UnaryOperator<IImageState> function)
+          throws IllegalArgumentException {
+    if (id == null) {
+      throw new IllegalArgumentException("ID or image is null");
+    }
+    this.copying.readLock().lock();
+    try {
+      return this.images.compute(id, (key, current) -> {
+        IImageState image = function.apply(current);
+        if (image == null) {
+          throw new IllegalArgumentException("ID or image is null");
+        }
+        return image;
+      });
+    } finally {
+      this.copying.readLock().unlock();
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package model;
+
+/**
+ * The content hash DedupImageDataBase matches images by. It reads the image once, row by row,
+ * so only a database that deduplicates pays for it, and nothing that writes pixels does. Two
+ * images of the same size with the same pixels have the same hash, so images with different
+ * hashes are sure to differ.
+ */
+final class ContentHash {
+
+  private ContentHash() {
+    // only static methods
+  }
+
+  /**
+   * Returns the hash of the size and pixels of an image.
+   * @param image the image.
+   * @return the hash.
+   */
+  static long of(IImageState image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] row = new int[width];
+    long hash = (long) width << 32 | height;
+    for (int y = 0; y < height; y++) {
+      image.getRow(y, row);
+      for (int x = 0; x < width; x++) {
+        // an odd multiplier, so that every pixel and its position change the hash
+        hash = (hash + row[x]) * 0x9E3779B97F4A7C15L;
+      }
+    }
+    return mix(hash);
+  }
+
+  // the finalizer of MurmurHash3, which spreads every bit of the input over the whole output
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB93FE1A85EC5L;
+    return h ^ (h >>> 33);
+  }
+}
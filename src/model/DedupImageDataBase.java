@@ -0,0 +1,172 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Represents an IImageDataBase that keeps one copy of each distinct image, however many ids it is
+ * stored under. Scripts often load the same file under several ids or compute an image that is
+ * already there, such as the greyscale of a grey image; storing it again only adds a reference
+ * to the copy that is already kept.
+ *
+ * <p>Images are matched by a hash of their pixels, taken when they are added, and then compared
+ * pixel by pixel, so two images are only ever shared if they are really the same. Adding an image
+ * that is already kept, such as one result stored under several ids, is recognized without
+ * reading it again. Each copy counts the ids that refer to it and is dropped when the last of them
+ * is replaced. As with ImageDataBase, an image must not be changed once it is in the database, all
+ * the more so as other ids may share it.
+ */
+public class DedupImageDataBase implements IImageDataBase {
+  private final Map<String, Copy> ids;
+  private final Map<Long, List<Copy>> copies; // the copies kept, by content hash
+  private final Map<IImageState, Copy> kept; // the copies kept, by the image itself
+  private long logicalBytes;
+  private long physicalBytes;
+
+  public DedupImageDataBase() {
+    this.ids = new HashMap<>();
+    this.copies = new HashMap<>();
+    this.kept = new IdentityHashMap<>();
+  }
+
+  @Override
+  public synchronized void add(String id, IImageState image) {
+    if (id == null || image == null) {
+      throw new IllegalArgumentException("ID or image is null");
+    }
+    Copy copy = this.kept.get(image);
+    if (copy == null) {
+      long hash = ContentHash.of(image);
+      List<Copy> candidates = this.copies.computeIfAbsent(hash, h -> new ArrayList<>(1));
+      for (Copy candidate : candidates) {
+        if (sameContent(candidate.image, image)) {
+          copy = candidate;
+          break;
+        }
+      }
+      if (copy == null) {
+        copy = new Copy(hash, image);
+        candidates.add(copy);
+        this.kept.put(image, copy);
+        this.physicalBytes += size(image);
+      }
+    }
+    copy.references++;
+    this.logicalBytes += size(image);
+    release(this.ids.put(id, copy));
+  }
+
+  @Override
+  public synchronized IImageState get(String id) {
+    Objects.requireNonNull(id);
+    Copy copy = this.ids.get(id);
+    return copy == null ? null : copy.image;
+  }
+
+  @Override
+  public synchronized Map<String, IImageState> getImages() {
+    Map<String, IImageState> images = new HashMap<>();
+    for (Map.Entry<String, Copy> entry : this.ids.entrySet()) {
+      images.put(entry.getKey(), entry.getValue().image);
+    }
+    return Collections.unmodifiableMap(images);
+  }
+
+  /**
+   * Returns how many distinct images are kept.
+   * @return the number of copies.
+   */
+  public synchronized int getUniqueImages() {
+    int count = 0;
+    for (List<Copy> candidates : this.copies.values()) {
+      count += candidates.size();
+    }
+    return count;
+  }
+
+  /**
+   * Returns the bytes the images would take if each id kept its own copy, at 4 bytes a pixel.
+   * @return the bytes of every id's image.
+   */
+  public synchronized long getLogicalBytes() {
+    return this.logicalBytes;
+  }
+
+  /**
+   * Returns the bytes the copies that are kept take, at 4 bytes a pixel.
+   * @return the bytes of the distinct images.
+   */
+  public synchronized long getPhysicalBytes() {
+    return this.physicalBytes;
+  }
+
+  /**
+   * Returns how many times more bytes the images would take without deduplication, which is 1 if
+   * no two ids share an image.
+   * @return the logical bytes over the physical bytes, or 1 if the database holds no pixels.
+   */
+  public synchronized double getDedupRatio() {
+    return this.physicalBytes == 0 ? 1 : (double) this.logicalBytes / this.physicalBytes;
+  }
+
+  // drops a reference an id held, and the copy with it if it was the last
+  private void release(Copy copy) {
+    if (copy == null) {
+      return;
+    }
+    this.logicalBytes -= size(copy.image);
+    copy.references--;
+    if (copy.references == 0) {
+      List<Copy> candidates = this.copies.get(copy.hash);
+      candidates.remove(copy);
+      if (candidates.isEmpty()) {
+        this.copies.remove(copy.hash);
+      }
+      this.kept.remove(copy.image);
+      this.physicalBytes -= size(copy.image);
+    }
+  }
+
+  // what an image costs in memory
+  private static long size(IImageState image) {
+    return 4L * image.getWidth() * image.getHeight();
+  }
+
+  // whether two images with the same hash have the same size and pixels
+  private static boolean sameContent(IImageState a, IImageState b) {
+    if (a.getWidth() != b.getWidth() || a.getHeight() != b.getHeight()) {
+      return false;
+    }
+    int[] rowA = new int[a.getWidth()];
+    int[] rowB = new int[b.getWidth()];
+    for (int y = 0; y < a.getHeight(); y++) {
+      a.getRow(y, rowA);
+      b.getRow(y, rowB);
+      for (int x = 0; x < rowA.length; x++) {
+        if (rowA[x] != rowB[x]) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * One distinct image that is kept, and how many ids refer to it.
+   */
+  private static final class Copy {
+    private final long hash;
+    private final IImageState image;
+    private int references;
+
+    Copy(long hash, IImageState image) {
+      this.hash = hash;
+      this.image = image;
+    }
+  }
+}
@@ -0,0 +1,356 @@
+package model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Represents an IImageDataBase kept in a directory, so that its images outlive the program. Each
+ * image is a raw file of packed pixels that is mapped into memory rather than read, and an index
+ * file records which file holds the image of each id. Opening the directory again only reads the
+ * index, so a restarted program has its images back at once instead of decoding them again; an
+ * image's pixels are only paged in from the file as they are read.
+ *
+ * <p>Writes are crash-safe. An image is written to a new file and forced to disk before a record
+ * naming it is appended to the index and forced in turn, so the index only ever names complete
+ * files. Each record carries a checksum, and a record cut short by a crash is dropped, with any
+ * file it would have named, the next time the directory is opened. The index is rewritten (to a
+ * temporary file that then replaces it) once most of its records are out of date.
+ *
+ * <p>The images handed out read the mapped files directly. Images are not copied when they are
+ * added, and must not be changed once they are in the database.
+ */
+public class DirectoryImageDataBase implements IImageDataBase, Closeable {
+  private static final String INDEX = "index";
+  private static final String SUFFIX = ".raw";
+  private static final int MAGIC = 0x52415731; // "RAW1"
+  private static final int HEADER_SIZE = 16; // magic, width, height and a spare int
+
+  private final Path directory;
+  private final Map<String, String> files; // the file holding the image of each id
+  private final Map<String, IImageState> mapped; // the images mapped so far
+  private FileChannel index;
+  private int records; // records in the index, current or not
+
+  /**
+   * Opens the database kept in a directory, creating the directory if there is none.
+   * @param directory the directory.
+   * @throws IllegalStateException if the directory or its index cannot be read or written.
+   */
+  public DirectoryImageDataBase(File directory) throws IllegalStateException {
+    this.directory = Objects.requireNonNull(directory).toPath();
+    this.files = new LinkedHashMap<>();
+    this.mapped = new HashMap<>();
+    try {
+      Files.createDirectories(this.directory);
+      this.index = FileChannel.open(this.directory.resolve(INDEX), StandardOpenOption.CREATE,
+              StandardOpenOption.READ, StandardOpenOption.WRITE);
+      replay();
+      if (this.records > 2 * this.files.size()) {
+        compact();
+      }
+      removeUnused();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to open image store.");
+    }
+  }
+
+  @Override
+  public synchronized void add(String id, IImageState image) {
+    if (id == null || image == null) {
+      throw new IllegalArgumentException("ID or image is null");
+    }
+    try {
+      String name = write(image);
+      String previous = this.files.put(id, name);
+      try {
+        append(id, name);
+      } catch (IOException e) {
+        // the record may not have made it, so the new file is as good as never written
+        if (previous == null) {
+          this.files.remove(id);
+        } else {
+          this.files.put(id, previous);
+        }
+        throw e;
+      }
+      this.mapped.remove(id);
+      if (previous != null) {
+        try {
+          Files.deleteIfExists(this.directory.resolve(previous));
+        } catch (IOException e) {
+          // the replacement is already durable, and the old file may still be mapped by an image
+          // handed out earlier; the next open deletes it, as no record names it any more
+        }
+      }
+      if (this.records > 2 * this.files.size() + 64) {
+        compact();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write image to store.");
+    }
+  }
+
+  @Override
+  public synchronized IImageState get(String id) {
+    Objects.requireNonNull(id);
+    IImageState image = this.mapped.get(id);
+    if (image == null && this.files.containsKey(id)) {
+      image = map(this.files.get(id));
+      this.mapped.put(id, image);
+    }
+    return image;
+  }
+
+  @Override
+  public synchronized Map<String, IImageState> getImages() {
+    Map<String, IImageState> images = new LinkedHashMap<>();
+    for (String id : this.files.keySet()) {
+      images.put(id, get(id));
+    }
+    return Collections.unmodifiableMap(images);
+  }
+
+  /**
+   * Closes the index. The images already handed out can still be read.
+   */
+  @Override
+  public synchronized void close() {
+    try {
+      this.index.close();
+    } catch (IOException e) {
+      // nothing was pending: every record was forced when it was appended
+    }
+  }
+
+  // reads the index, keeping the last record of each id and cutting off a torn last record
+  private void replay() throws IOException {
+    ByteBuffer bytes = ByteBuffer.allocate((int) this.index.size());
+    while (bytes.hasRemaining() && this.index.read(bytes, bytes.position()) >= 0) {
+      // read it all
+    }
+    bytes.flip();
+    long valid = 0;
+    while (bytes.remaining() >= 4) {
+      int length = bytes.getInt();
+      if (length < 0 || bytes.remaining() < length + 8) {
+        break;
+      }
+      byte[] payload = new byte[length];
+      bytes.get(payload);
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+      if (bytes.getLong() != crc.getValue()) {
+        break;
+      }
+      DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+      this.files.put(record.readUTF(), record.readUTF());
+      this.records++;
+      valid = bytes.position();
+    }
+    this.index.truncate(valid);
+  }
+
+  // appends a record naming the file of an id, and forces it to disk
+  private void append(String id, String name) throws IOException {
+    ByteBuffer record = record(id, name);
+    long position = this.index.size();
+    while (record.hasRemaining()) {
+      position += this.index.write(record, position);
+    }
+    this.index.force(false);
+    this.records++;
+  }
+
+  private static ByteBuffer record(String id, String name) throws IOException {
+    ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(payload)) {
+      output.writeUTF(id);
+      output.writeUTF(name);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(payload.toByteArray());
+    ByteBuffer record = ByteBuffer.allocate(4 + payload.size() + 8);
+    record.putInt(payload.size()).put(payload.toByteArray()).putLong(crc.getValue());
+    record.flip();
+    return record;
+  }
+
+  // writes a new index with one record for each id and puts it in place of the old one
+  private void compact() throws IOException {
+    Path temporary = this.directory.resolve(INDEX + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      for (Map.Entry<String, String> entry : this.files.entrySet()) {
+        ByteBuffer record = record(entry.getKey(), entry.getValue());
+        while (record.hasRemaining()) {
+          channel.write(record);
+        }
+      }
+      channel.force(false);
+    }
+    this.index.close();
+    move(temporary, this.directory.resolve(INDEX));
+    this.index = FileChannel.open(this.directory.resolve(INDEX), StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    this.records = this.files.size();
+  }
+
+  // deletes the image files no record names, left behind by replaced images or a crash
+  private void removeUnused() throws IOException {
+    Set<String> used = new HashSet<>(this.files.values());
+    try (var entries = Files.list(this.directory)) {
+      for (Path path : (Iterable<Path>) entries::iterator) {
+        String name = path.getFileName().toString();
+        if ((name.endsWith(SUFFIX) || name.endsWith(SUFFIX + ".tmp")) && !used.contains(name)) {
+          try {
+            Files.deleteIfExists(path);
+          } catch (IOException e) {
+            // still in use somewhere; it is tried again the next time the directory is opened
+          }
+        }
+      }
+    }
+  }
+
+  // writes an image to a new file, forced to disk under its final name, and gives the name
+  private String write(IImageState image) throws IOException {
+    Path temporary = Files.createTempFile(this.directory, "image", SUFFIX + ".tmp");
+    int width = image.getWidth();
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      header.putInt(MAGIC).putInt(width).putInt(image.getHeight()).putInt(0).flip();
+      while (header.hasRemaining()) {
+        channel.write(header);
+      }
+      ByteBuffer bytes = ByteBuffer.allocate(4 * width).order(ByteOrder.LITTLE_ENDIAN);
+      IntBuffer ints = bytes.asIntBuffer();
+      int[] row = new int[width];
+      for (int y = 0; y < image.getHeight(); y++) {
+        image.getRow(y, row);
+        ints.clear();
+        ints.put(row);
+        bytes.clear();
+        while (bytes.hasRemaining()) {
+          channel.write(bytes);
+        }
+      }
+      channel.force(true);
+    }
+    String name = temporary.getFileName().toString();
+    name = name.substring(0, name.length() - ".tmp".length());
+    move(temporary, this.directory.resolve(name));
+    return name;
+  }
+
+  // maps an image file and gives an image that reads it
+  private IImageState map(String name) {
+    try (FileChannel channel = FileChannel.open(this.directory.resolve(name),
+            StandardOpenOption.READ)) {
+      ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+              .order(ByteOrder.LITTLE_ENDIAN);
+      int width = bytes.getInt(4);
+      int height = bytes.getInt(8);
+      if (bytes.getInt(0) != MAGIC || width < 0 || height < 0
+              || bytes.capacity() < HEADER_SIZE + 4L * width * height) {
+        throw new IllegalStateException("Image file " + name + " is damaged.");
+      }
+      return new MappedImage(width, height, bytes.position(HEADER_SIZE).slice()
+              .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer());
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read image from store.");
+    }
+  }
+
+  // renames a file in one step, and makes the directory entry durable where that is possible
+  private void move(Path from, Path to) throws IOException {
+    try {
+      Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+    }
+    try (FileChannel channel = FileChannel.open(this.directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      // not every platform can open a directory; the rename itself is still atomic there
+    }
+  }
+
+  /**
+   * An image read straight out of a mapped image file.
+   */
+  private static final class MappedImage implements IImageState {
+    private final int width;
+    private final int height;
+    private final IntBuffer pixels;
+
+    MappedImage(int width, int height, IntBuffer pixels) {
+      this.width = width;
+      this.height = height;
+      this.pixels = pixels;
+    }
+
+    @Override
+    public int getHeight() {
+      return this.height;
+    }
+
+    @Override
+    public int getWidth() {
+      return this.width;
+    }
+
+    @Override
+    public int getRedChannel(int x, int y) {
+      return (pixel(x, y) >> 16) & 0xFF;
+    }
+
+    @Override
+    public int getGreenChannel(int x, int y) {
+      return (pixel(x, y) >> 8) & 0xFF;
+    }
+
+    @Override
+    public int getBlueChannel(int x, int y) {
+      return pixel(x, y) & 0xFF;
+    }
+
+    @Override
+    public void getRGB(int x, int y, int w, int h, int[] dest, int offset, int scansize) {
+      if (x < 0 || y < 0 || w < 0 || h < 0 || x + w > this.width || y + h > this.height) {
+        throw new IllegalArgumentException("x or y outside of bounds.");
+      }
+      for (int j = 0; j < h; j++) {
+        this.pixels.get((y + j) * this.width + x, dest, offset + j * scansize, w);
+      }
+    }
+
+    private int pixel(int x, int y) {
+      if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+        throw new IllegalArgumentException("x or y outside of bounds.");
+      }
+      return this.pixels.get(y * this.width + x);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package model;
+
+/**
+ * Represents how a Kernel treats the pixels it needs from outside the image when it is applied
+ * near the border. Every mode maps a coordinate that may lie outside [0, length) to the pixel
+ * that should be used in its place.
+ */
+public enum EdgeMode {
+  /**
+   * Pixels outside the image count as black. This is the original behaviour of the blur and
+   * sharpen transformations, and darkens the border slightly.
+   */
+  ZERO,
+
+  /**
+   * Pixels outside the image repeat the nearest edge pixel.
+   */
+  CLAMP,
+
+  /**
+   * The image is reflected at its edges without repeating the edge pixel, so the pixel just
+   * outside column 0 is column 1.
+   */
+  MIRROR,
+
+  /**
+   * The image repeats as a tile, so the pixel just outside the last column is column 0.
+   */
+  WRAP;
+
+  /**
+   * Maps a coordinate along one axis of the image to the coordinate that should be read.
+   * @param coordinate the position along the axis, possibly outside the image.
+   * @param length the size of the image along the axis, at least 1.
+   * @return the coordinate to read in [0, length), or -1 if the pixel counts as black.
+   */
+  public int resolve(int coordinate, int length) {
+    if (coordinate >= 0 && coordinate < length) {
+      return coordinate;
+    }
+    switch (this) {
+      case CLAMP:
+        return coordinate < 0 ? 0 : length - 1;
+      case MIRROR:
+        if (length == 1) {
+          return 0;
+        }
+        int period = 2 * length - 2;
+        int folded = Math.floorMod(coordinate, period);
+        return folded < length ? folded : period - folded;
+      case WRAP:
+        return Math.floorMod(coordinate, length);
+      default:
+        return -1;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package model;
+
+/**
+ * A two-dimensional fast Fourier transform over square blocks of size x size complex values,
+ * where size is a power of two. The real and imaginary parts are held in two separate row-major
+ * double arrays, and every transform happens in place. The twiddle factors and the bit-reversal
+ * permutation are computed once per size, so one instance can be shared by any number of threads.
+ */
+final class FourierTransform {
+  private final int size;
+  private final int[] reversed; // bit-reversed index of every position along one axis
+  private final double[] cos;
+  private final double[] sin;
+
+  /**
+   * Prepares the transform for blocks of the given size.
+   * @param size the side of the square blocks, a power of two of at least 2.
+   * @throws IllegalArgumentException if the size is not a power of two of at least 2.
+   */
+  FourierTransform(int size) throws IllegalArgumentException {
+    if (size < 2 || Integer.bitCount(size) != 1) {
+      throw new IllegalArgumentException("Transform size must be a power of two.");
+    }
+    this.size = size;
+    int bits = Integer.numberOfTrailingZeros(size);
+    this.reversed = new int[size];
+    for (int i = 0; i < size; i++) {
+      this.reversed[i] = Integer.reverse(i) >>> (32 - bits);
+    }
+    this.cos = new double[size / 2];
+    this.sin = new double[size / 2];
+    for (int i = 0; i < size / 2; i++) {
+      double angle = -2 * Math.PI * i / size;
+      this.cos[i] = Math.cos(angle);
+      this.sin[i] = Math.sin(angle);
+    }
+  }
+
+  int getSize() {
+    return this.size;
+  }
+
+  /**
+   * Transforms a block in place, first along every row and then along every column.
+   * @param re the real parts, size * size values.
+   * @param im the imaginary parts, size * size values.
+   * @param inverse true for the inverse transform, which also divides by size * size.
+   */
+  void transform(double[] re, double[] im, boolean inverse) {
+    int n = this.size;
+    for (int row = 0; row < n; row++) {
+      transformLine(re, im, row * n, inverse);
+    }
+    // columns are copied out into a contiguous line, which is far kinder to the cache than
+    // striding through the block once per butterfly
+    double[] columnRe = new double[n];
+    double[] columnIm = new double[n];
+    for (int column = 0; column < n; column++) {
+      for (int i = 0; i < n; i++) {
+        columnRe[i] = re[i * n + column];
+        columnIm[i] = im[i * n + column];
+      }
+      transformLine(columnRe, columnIm, 0, inverse);
+      for (int i = 0; i < n; i++) {
+        re[i * n + column] = columnRe[i];
+        im[i * n + column] = columnIm[i];
+      }
+    }
+    if (inverse) {
+      double scale = 1.0 / ((double) n * n);
+      for (int i = 0; i < n * n; i++) {
+        re[i] *= scale;
+        im[i] *= scale;
+      }
+    }
+  }
+
+  // iterative radix-2 Cooley-Tukey transform of size values starting at offset
+  private void transformLine(double[] re, double[] im, int offset, boolean inverse) {
+    int n = this.size;
+    for (int i = 0; i < n; i++) {
+      int j = this.reversed[i];
+      if (j > i) {
+        double t = re[offset + i];
+        re[offset + i] = re[offset + j];
+        re[offset + j] = t;
+        t = im[offset + i];
+        im[offset + i] = im[offset + j];
+        im[offset + j] = t;
+      }
+    }
+    for (int half = 1; half < n; half <<= 1) {
+      int step = n / (2 * half);
+      for (int start = offset; start < offset + n; start += 2 * half) {
+        for (int k = 0; k < half; k++) {
+          double wr = this.cos[k * step];
+          double wi = inverse ? -this.sin[k * step] : this.sin[k * step];
+          int a = start + k;
+          int b = a + half;
+          double tr = re[b] * wr - im[b] * wi;
+          double ti = re[b] * wi + im[b] * wr;
+          re[b] = re[a] - tr;
+          im[b] = im[a] - ti;
+          re[a] += tr;
+          im[a] += ti;
+        }
+      }
+    }
+  }
+}
@@ -8,4 +8,42 @@ public interface IImage extends IImageState {
 
 
   void setPixel(int x, int y, int r, int g, int b);
+
+  /**
+   * Writes a rectangle of packed 0xRRGGBB pixels into this image. Pixel (x + i, y + j) is read
+   * from src[offset + j * scansize + i], the same layout BufferedImage.setRGB uses.
+   * @param x column of the top-left corner of the rectangle.
+   * @param y row of the top-left corner of the rectangle.
+   * @param w width of the rectangle.
+   * @param h height of the rectangle.
+   * @param src array the packed pixels are read from.
+   * @param offset index in src of the top-left pixel.
+   * @param scansize distance in src between the start of two rows.
+   * @throws IllegalArgumentException if the rectangle is not inside the image, or a value has
+   *     bits set above the 24 bits of red, green and blue.
+   */
+  default void setRGB(int x, int y, int w, int h, int[] src, int offset, int scansize) {
+    if (x < 0 || y < 0 || w < 0 || h < 0 || x + w > getWidth() || y + h > getHeight()) {
+      throw new IllegalArgumentException("x or y outside of bounds.");
+    }
+    for (int j = 0; j < h; j++) {
+      int index = offset + j * scansize;
+      for (int i = 0; i < w; i++) {
+        int rgb = src[index + i];
+        if ((rgb & 0xFF000000) != 0) {
+          throw new IllegalArgumentException("Pixel values out of bounds.");
+        }
+        setPixel(x + i, y + j, (rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+      }
+    }
+  }
+
+  /**
+   * Writes one full row of packed 0xRRGGBB pixels into this image, reading from index 0.
+   * @param y the row to write.
+   * @param src array of at least getWidth() ints.
+   */
+  default void setRow(int y, int[] src) {
+    setRGB(0, y, getWidth(), 1, src, 0, getWidth());
+  }
 }
@@ -16,7 +16,40 @@ public interface IImageState {
 
   int getBlueChannel(int x, int y);
 
-
-
-
+  /**
+   * Copies a rectangle of this image into a caller-supplied array, one packed 0xRRGGBB int per
+   * pixel. Pixel (x + i, y + j) is written to dest[offset + j * scansize + i], the same layout
+   * BufferedImage.getRGB uses. Implementations should override this so that whole rows can be
+   * read without a virtual call and a bounds check per channel.
+   * @param x column of the top-left corner of the rectangle.
+   * @param y row of the top-left corner of the rectangle.
+   * @param w width of the rectangle.
+   * @param h height of the rectangle.
+   * @param dest array the packed pixels are written to.
+   * @param offset index in dest of the top-left pixel.
+   * @param scansize distance in dest between the start of two rows.
+   * @throws IllegalArgumentException if the rectangle is not inside the image.
+   */
+  default void getRGB(int x, int y, int w, int h, int[] dest, int offset, int scansize) {
+    if (x < 0 || y < 0 || w < 0 || h < 0 || x + w > getWidth() || y + h > getHeight()) {
+      throw new IllegalArgumentException("x or y outside of bounds.");
+    }
+    for (int j = 0; j < h; j++) {
+      int index = offset + j * scansize;
+      for (int i = 0; i < w; i++) {
+        dest[index + i] = (getRedChannel(x + i, y + j) << 16)
+                | (getGreenChannel(x + i, y + j) << 8) | getBlueChannel(x + i, y + j);
+      }
+    }
+  }
+
+  /**
+   * Copies one full row of this image into a caller-supplied array, one packed 0xRRGGBB int per
+   * pixel, starting at index 0.
+   * @param y the row to read.
+   * @param dest array of at least getWidth() ints.
+   */
+  default void getRow(int y, int[] dest) {
+    getRGB(0, y, getWidth(), 1, dest, 0, getWidth());
+  }
 }
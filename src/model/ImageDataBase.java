@@ -1,5 +1,6 @@
 package model;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Objects;
@@ -34,7 +35,7 @@ public class ImageDataBase implements IImageDataBase {
   //getter method to use for testing that IImages are correctly added to DB after transformations
   @Override
   public Map<String, IImageState> getImages() {
-    return images;
+    return Collections.unmodifiableMap(images);
   }
 
 }
@@ -59,6 +59,21 @@ public class ImageImpl implements IImage {
     return this.data[y][x].getB();
   }
 
+  @Override
+  public void getRGB(int x, int y, int w, int h, int[] dest, int offset, int scansize) {
+    if (x < 0 || y < 0 || w < 0 || h < 0 || x + w > this.width || y + h > this.height) {
+      throw new IllegalArgumentException("x or y outside of bounds.");
+    }
+    for (int j = 0; j < h; j++) {
+      IPixel[] row = this.data[y + j];
+      int index = offset + j * scansize;
+      for (int i = 0; i < w; i++) {
+        IPixel pixel = row[x + i];
+        dest[index + i] = (pixel.getR() << 16) | (pixel.getG() << 8) | pixel.getB();
+      }
+    }
+  }
+
   // this is a much better design! DECOUPLES! that way is Pixel ever changes, it doesnt break code
   @Override
   public void setPixel(int x, int y, int r, int g, int b) {
@@ -1,5 +1,11 @@
 package model;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Represents a Kernel for image filtering and transformations. A kernel is a 2D matrix
  * that can be applied to the pixels of an image to transform it in different ways.
@@ -10,14 +16,71 @@ public class Kernel {
   private double[][] kernelValues = new double[0][]; //2D array to store the kernel's values
   private int x; // row of target pixel
   private int y; // col of target pixel
+  private final int parallelism; // how many threads applyKernel may use
+  private final EdgeMode edgeMode; // what the kernel reads outside the image
+  private final double[] columnFactors; // vertical pass of a separable kernel, null otherwise
+  private final double[] rowFactors; // horizontal pass of a separable kernel, null otherwise
+  private int[] fixedValues; // kernel values times 2^fixedShift, null unless all are integers
+  private int[] fixedColumn; // column factors times a power of 2, null unless all are integers
+  private int[] fixedRow; // row factors times a power of 2, null unless all are integers
+  private int fixedShift; // how far the fixed-point sums must be shifted back down
+
+  // Largest power of 2 a kernel value may be scaled by to become an integer, 1/65536 precision
+  private static final int MAX_FIXED_SHIFT = 16;
+
+  // Bands smaller than this are not split any further, the fork overhead would dominate
+  private static final int MIN_BAND_ROWS = 16;
+
+  // Smallest kernel that is convolved through Fourier transforms instead of tap by tap
+  private static final int FOURIER_MIN_SIZE = 13;
+
+  // Largest block the Fourier path transforms at once
+  private static final int FOURIER_MAX_BLOCK = 1024;
+
+  // How close a double sum must be to a whole level to count as that level when it is stored
+  private static final double SNAP = 1e-7;
+
+  // One pool per parallelism level, shared by every Kernel so transformations don't spawn threads
+  private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
 
   /**
-   * Kernel object Constructor.
+   * Kernel object Constructor. The kernel will be applied using every available processor, and
+   * pixels outside the image count as black.
    * @param size size of the square matrix.
    * @param kernelValues values to be held within the matrix for transformations.
    * @throws IllegalArgumentException if the dimension of the kernel is not odd/square.
    */
   public Kernel(int size, double[][] kernelValues) throws IllegalArgumentException {
+    this(size, kernelValues, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Kernel object Constructor with a configurable parallelism level. The output image is split
+   * into bands of rows that are convolved on a ForkJoinPool with this many threads. The result is
+   * identical to the single-threaded result, because every output pixel is still computed on its
+   * own with the taps in the same order.
+   * @param size size of the square matrix.
+   * @param kernelValues values to be held within the matrix for transformations.
+   * @param parallelism number of threads to use, 1 runs on the calling thread.
+   * @throws IllegalArgumentException if the dimension of the kernel is not odd/square, or if the
+   *     parallelism is less than 1.
+   */
+  public Kernel(int size, double[][] kernelValues, int parallelism)
+          throws IllegalArgumentException {
+    this(size, kernelValues, parallelism, EdgeMode.ZERO);
+  }
+
+  /**
+   * Kernel object Constructor with a configurable parallelism level and edge behaviour.
+   * @param size size of the square matrix.
+   * @param kernelValues values to be held within the matrix for transformations.
+   * @param parallelism number of threads to use, 1 runs on the calling thread.
+   * @param edgeMode what the kernel reads where it reaches past the border of the image.
+   * @throws IllegalArgumentException if the dimension of the kernel is not odd/square, if the
+   *     parallelism is less than 1, or if the edge mode is null.
+   */
+  public Kernel(int size, double[][] kernelValues, int parallelism, EdgeMode edgeMode)
+          throws IllegalArgumentException {
     if (size < 0 || size % 2 != 1) {
       throw new IllegalArgumentException("Kernel must be a square with odd dimensions!");
     }
@@ -26,10 +89,214 @@ public class Kernel {
       throw new IllegalArgumentException("Kernel must be a square!");
     }
 
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1.");
+    }
+
+    if (edgeMode == null) {
+      throw new IllegalArgumentException("Edge mode cannot be null.");
+    }
+
     this.size = size;
     this.kernelValues = kernelValues;
     this.x = x;
     this.y = y;
+    this.parallelism = parallelism;
+    this.edgeMode = edgeMode;
+
+    // a rank-1 kernel is the outer product of a column and a row, find them if they exist
+    double[][] factors = findSeparableFactors(size, kernelValues);
+    this.columnFactors = factors == null ? null : factors[0];
+    this.rowFactors = factors == null ? null : factors[1];
+    prepareFixedPoint();
+  }
+
+  /**
+   * Builds a separable kernel directly from its two one-dimensional factors, so that the factors
+   * don't have to be recovered from the matrix. Value (row i, column j) of the kernel is
+   * column[i] * row[j]. Pixels outside the image count as black.
+   * @param column the factors applied along the vertical pass.
+   * @param row the factors applied along the horizontal pass.
+   * @return a kernel that is always applied as a horizontal pass followed by a vertical pass.
+   * @throws IllegalArgumentException if the factors differ in length or the length is not odd.
+   */
+  public static Kernel separable(double[] column, double[] row) throws IllegalArgumentException {
+    return separable(column, row, EdgeMode.ZERO);
+  }
+
+  /**
+   * Builds a separable kernel directly from its two one-dimensional factors, with the given edge
+   * behaviour.
+   * @param column the factors applied along the vertical pass.
+   * @param row the factors applied along the horizontal pass.
+   * @param edgeMode what the kernel reads where it reaches past the border of the image.
+   * @return a kernel that is always applied as a horizontal pass followed by a vertical pass.
+   * @throws IllegalArgumentException if the factors differ in length, the length is not odd, or
+   *     the edge mode is null.
+   */
+  public static Kernel separable(double[] column, double[] row, EdgeMode edgeMode)
+          throws IllegalArgumentException {
+    if (column.length != row.length) {
+      throw new IllegalArgumentException("Kernel must be a square!");
+    }
+    if (edgeMode == null) {
+      throw new IllegalArgumentException("Edge mode cannot be null.");
+    }
+    return new Kernel(column.clone(), row.clone(), Runtime.getRuntime().availableProcessors(),
+            edgeMode);
+  }
+
+  private Kernel(double[] column, double[] row, int parallelism, EdgeMode edgeMode) {
+    if (column.length % 2 != 1) {
+      throw new IllegalArgumentException("Kernel must be a square with odd dimensions!");
+    }
+    this.size = column.length;
+    this.kernelValues = new double[size][size];
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        this.kernelValues[i][j] = column[i] * row[j];
+      }
+    }
+    this.parallelism = parallelism;
+    this.edgeMode = edgeMode;
+    this.columnFactors = column;
+    this.rowFactors = row;
+    prepareFixedPoint();
+  }
+
+  /**
+   * Returns whether this kernel is separable, in which case applyKernel runs it as a horizontal
+   * one-dimensional pass followed by a vertical one, O(2k) per pixel instead of O(k^2).
+   * @return true if the kernel is the outer product of a column and a row.
+   */
+  public boolean isSeparable() {
+    return this.columnFactors != null;
+  }
+
+  public EdgeMode getEdgeMode() {
+    return edgeMode;
+  }
+
+  /**
+   * Returns whether this kernel is applied with integer arithmetic. That happens automatically
+   * when every coefficient is a multiple of a power of two no smaller than 1/65536 (such as the
+   * 1/16 and 1/8 steps of the blur and sharpen kernels) and the sums cannot overflow an int.
+   * The sums are then exactly the ones the double arithmetic would produce, scaled by a power of
+   * two, so the result is identical.
+   * @return true if the kernel runs on the fixed-point path.
+   */
+  public boolean isFixedPoint() {
+    return this.fixedValues != null || this.fixedColumn != null;
+  }
+
+  // Works out the integer form of the kernel, separable factors first because they are cheaper
+  private void prepareFixedPoint() {
+    if (isSeparable()) {
+      int columnShift = fixedPointShift(this.columnFactors);
+      int rowShift = fixedPointShift(this.rowFactors);
+      if (columnShift >= 0 && rowShift >= 0) {
+        int[] column = scale(this.columnFactors, columnShift);
+        int[] row = scale(this.rowFactors, rowShift);
+        if (255L * absoluteSum(row) * absoluteSum(column) <= Integer.MAX_VALUE) {
+          this.fixedColumn = column;
+          this.fixedRow = row;
+          this.fixedShift = columnShift + rowShift;
+        }
+      }
+      return;
+    }
+    double[] flat = new double[this.size * this.size];
+    for (int i = 0; i < this.size; i++) {
+      if (this.kernelValues[i].length != this.size) {
+        return;
+      }
+      System.arraycopy(this.kernelValues[i], 0, flat, i * this.size, this.size);
+    }
+    int shift = fixedPointShift(flat);
+    if (shift >= 0) {
+      int[] values = scale(flat, shift);
+      if (255L * absoluteSum(values) <= Integer.MAX_VALUE) {
+        this.fixedValues = values;
+        this.fixedShift = shift;
+      }
+    }
+  }
+
+  // Smallest s for which every value times 2^s is an integer, or -1 if there is none
+  private static int fixedPointShift(double[] values) {
+    for (int shift = 0; shift <= MAX_FIXED_SHIFT; shift++) {
+      boolean exact = true;
+      for (double value : values) {
+        double scaled = Math.scalb(value, shift);
+        if (scaled != Math.rint(scaled) || Math.abs(scaled) > Integer.MAX_VALUE) {
+          exact = false;
+          break;
+        }
+      }
+      if (exact) {
+        return shift;
+      }
+    }
+    return -1;
+  }
+
+  private static int[] scale(double[] values, int shift) {
+    int[] scaled = new int[values.length];
+    for (int i = 0; i < values.length; i++) {
+      scaled[i] = (int) Math.scalb(values[i], shift);
+    }
+    return scaled;
+  }
+
+  private static long absoluteSum(int[] values) {
+    long sum = 0;
+    for (int value : values) {
+      sum += Math.abs((long) value);
+    }
+    return sum;
+  }
+
+  // Takes the largest value as pivot and checks that every value is exactly the product of its
+  // pivot column and pivot row entries. Only exact products count, that way the two passes
+  // multiply out to the same products as the full matrix. They add them up in a different order,
+  // so with double weights the sums can differ in their last bits, and the results match the
+  // direct path up to the snap and truncation in storeRow rather than bit for bit.
+  private static double[][] findSeparableFactors(int size, double[][] values) {
+    if (values.length != size) {
+      return null;
+    }
+    int pivotRow = 0;
+    int pivotCol = 0;
+    for (int i = 0; i < size; i++) {
+      if (values[i].length != size) {
+        return null;
+      }
+      for (int j = 0; j < size; j++) {
+        if (Math.abs(values[i][j]) > Math.abs(values[pivotRow][pivotCol])) {
+          pivotRow = i;
+          pivotCol = j;
+        }
+      }
+    }
+    double pivot = values[pivotRow][pivotCol];
+    if (pivot == 0 || size == 1) {
+      return null;
+    }
+
+    double[] column = new double[size];
+    double[] row = new double[size];
+    for (int i = 0; i < size; i++) {
+      column[i] = values[i][pivotCol];
+      row[i] = values[pivotRow][i] / pivot;
+    }
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        if (column[i] * row[j] != values[i][j]) {
+          return null;
+        }
+      }
+    }
+    return new double[][] {column, row};
   }
 
   //Should these be PRIVATE or is it okay that they're public?!
@@ -54,14 +321,37 @@ public class Kernel {
 
   /**
    * Method to apply the kernel matrix to an image in order to transform it.
+   * Each channel is first copied into a plane that is padded by the kernel radius on every side,
+   * and only that padding is filled according to the edge mode. The convolution itself then reads
+   * the padded plane with no bounds checks at all, so the whole image runs through the same
+   * branch-free loops.
    * @param inputImage IImageState object to be transformed by kernel.
    * @return new IImageState object that is processed accordingly.
    */
   public IImageState applyKernel(IImageState inputImage) {
+    return applyKernel(inputImage, null, null);
+  }
+
+  /**
+   * Applies the kernel with per-pixel operations folded into the way in and out. The first
+   * operation is applied to the source pixels as they are read, before any padding, and the
+   * second to the convolved pixels before they are written to the new image. The result is the
+   * same as running the first operation, the kernel and the second operation one after the other,
+   * without the two images in between.
+   * @param inputImage IImageState object to be transformed by kernel.
+   * @param before the operation applied to the source first, or null for none.
+   * @param after the operation applied to the result last, or null for none.
+   * @return new IImageState object that is processed accordingly.
+   */
+  public IImageState applyKernel(IImageState inputImage, PixelOperation before,
+                                 PixelOperation after) {
     int kernelSize = this.size;
-    int radius = kernelSize / 2;
     int width = inputImage.getWidth();
     int height = inputImage.getHeight();
+    IImage processedImage = new PackedImageImpl(width, height);
+    if (width == 0 || height == 0) {
+      return processedImage;
+    }
 
     // Pre-calculate kernel values outside the pixel loop
     double[][] kernelVals = new double[kernelSize][kernelSize];
@@ -71,47 +361,497 @@ public class Kernel {
       }
     }
 
-    ImageImpl processedImage = new ImageImpl(width, height);
+    // Read the whole source once so the channels can be unpacked from a plain array
+    int[] source = new int[width * height];
+    inputImage.getRGB(0, 0, width, height, source, 0, width);
+    if (before != null) {
+      runInBands(height, (firstRow, lastRow) ->
+              before.apply(source, firstRow * width, lastRow * width));
+    }
+    int[] result = new int[width * height];
 
-    // Define the valid range for clamping
-    int minClamp = 0;
-    int maxClamp = 255;
+    int radius = kernelSize / 2;
+    int[] plane = new int[(width + 2 * radius) * (height + 2 * radius)];
+    if (usesFourierTransform(width, height)) {
+      FourierTransform transform = new FourierTransform(
+              fourierBlockSize(width + 2 * radius, height + 2 * radius));
+      double[][] spectrum = kernelSpectrum(transform);
+      for (int shift = 16; shift >= 0; shift -= 8) {
+        padChannel(source, width, height, shift, plane);
+        convolveFourier(transform, spectrum, plane, result, width, height, shift);
+      }
+      finish(result, width, height, after);
+      processedImage.setRGB(0, 0, width, height, result, 0, width);
+      return processedImage;
+    }
 
-    // Loop over each pixel in the input image
+    double[] widened = isFixedPoint() ? null : new double[plane.length];
+    int[] fixedHorizontal = this.fixedColumn != null
+            ? new int[(height + 2 * radius) * width] : null;
+    double[] horizontal = isSeparable() && !isFixedPoint()
+            ? new double[(height + 2 * radius) * width] : null;
 
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        double sumRed = 0;
-        double sumGreen = 0;
-        double sumBlue = 0;
+    for (int shift = 16; shift >= 0; shift -= 8) {
+      padChannel(source, width, height, shift, plane);
+      if (this.fixedColumn != null) {
+        convolveSeparableFixed(plane, fixedHorizontal, result, width, height, shift);
+      } else if (this.fixedValues != null) {
+        convolveDirectFixed(plane, result, width, height, shift);
+      } else {
+        // the double loops run noticeably faster on doubles than on ints converted per tap
+        runInBands(height + 2 * radius, (firstRow, lastRow) -> {
+          int paddedWidth = width + 2 * radius;
+          for (int i = firstRow * paddedWidth; i < lastRow * paddedWidth; i++) {
+            widened[i] = plane[i];
+          }
+        });
+        if (isSeparable()) {
+          convolveSeparable(widened, horizontal, result, width, height, shift);
+        } else {
+          convolveDirect(kernelVals, widened, result, width, height, shift);
+        }
+      }
+    }
+
+    finish(result, width, height, after);
+    processedImage.setRGB(0, 0, width, height, result, 0, width);
+    return processedImage;
+  }
+
+  // Applies the operation that was folded into the write-out, if any, to the finished pixels
+  private void finish(int[] result, int width, int height, PixelOperation after) {
+    if (after != null) {
+      runInBands(height, (firstRow, lastRow) ->
+              after.apply(result, firstRow * width, lastRow * width));
+    }
+  }
 
-        // Apply the Kernel to the target pixel and its neighbors
+  /**
+   * Unpacks one channel of the source into a plane that is radius pixels larger on each side.
+   * Interior rows copy straight across; the edge mode is only consulted for the padding.
+   */
+  private void padChannel(int[] source, int width, int height, int shift, int[] plane) {
+    int radius = this.size / 2;
+    int paddedWidth = width + 2 * radius;
+    int paddedHeight = height + 2 * radius;
+
+    runInBands(paddedHeight, (firstRow, lastRow) -> {
+      for (int py = firstRow; py < lastRow; py++) {
+        int sourceRow = edgeMode.resolve(py - radius, height);
+        int rowStart = py * paddedWidth;
+        if (sourceRow < 0) {
+          Arrays.fill(plane, rowStart, rowStart + paddedWidth, 0);
+          continue;
+        }
+        int sourceStart = sourceRow * width;
+        for (int px = 0; px < width; px++) {
+          plane[rowStart + radius + px] = (source[sourceStart + px] >> shift) & 0xFF;
+        }
+        for (int px = 0; px < radius; px++) {
+          plane[rowStart + px] = padValue(source, sourceStart, px - radius, width, shift);
+          plane[rowStart + radius + width + px] =
+                  padValue(source, sourceStart, width + px, width, shift);
+        }
+      }
+    });
+  }
+
+  private int padValue(int[] source, int sourceStart, int column, int width, int shift) {
+    int sourceColumn = edgeMode.resolve(column, width);
+    return sourceColumn < 0 ? 0 : (source[sourceStart + sourceColumn] >> shift) & 0xFF;
+  }
+
+  /**
+   * Convolves one padded channel with the full matrix. For each output row the taps are the
+   * outer loops and the pixels of the row the inner loop, so every pixel still adds its taps in
+   * the original order while the inner loop is a plain multiply-add over two arrays.
+   */
+  private void convolveDirect(double[][] kernelVals, double[] plane, int[] result,
+                              int width, int height, int shift) {
+    int kernelSize = this.size;
+    int paddedWidth = width + kernelSize - 1;
+
+    runInBands(height, (firstRow, lastRow) -> {
+      double[] sums = new double[width];
+      for (int i = firstRow; i < lastRow; i++) {
+        Arrays.fill(sums, 0);
+        // Apply the Kernel to every pixel of the row and its neighbors
+        for (int ky = 0; ky < kernelSize; ky++) {
+          for (int kx = 0; kx < kernelSize; kx++) {
+            double kernelVal = kernelVals[ky][kx];
+            int start = (i + ky) * paddedWidth + kx;
+            for (int j = 0; j < width; j++) {
+              sums[j] += kernelVal * plane[start + j];
+            }
+          }
+        }
+        storeRow(sums, result, i * width, width, shift);
+      }
+    });
+  }
+
+  /**
+   * Convolves one padded channel as a horizontal pass with the row factors over every padded
+   * row, then a vertical pass with the column factors.
+   */
+  private void convolveSeparable(double[] plane, double[] horizontal, int[] result,
+                                 int width, int height, int shift) {
+    int kernelSize = this.size;
+    int paddedWidth = width + kernelSize - 1;
+    double[] column = this.columnFactors;
+    double[] row = this.rowFactors;
+
+    runInBands(height + kernelSize - 1, (firstRow, lastRow) -> {
+      for (int i = firstRow; i < lastRow; i++) {
+        int target = i * width;
+        Arrays.fill(horizontal, target, target + width, 0);
+        for (int k = 0; k < kernelSize; k++) {
+          double factor = row[k];
+          int start = i * paddedWidth + k;
+          for (int j = 0; j < width; j++) {
+            horizontal[target + j] += factor * plane[start + j];
+          }
+        }
+      }
+    });
+    runInBands(height, (firstRow, lastRow) -> {
+      double[] sums = new double[width];
+      for (int i = firstRow; i < lastRow; i++) {
+        Arrays.fill(sums, 0);
+        for (int k = 0; k < kernelSize; k++) {
+          double factor = column[k];
+          int start = (i + k) * width;
+          for (int j = 0; j < width; j++) {
+            sums[j] += factor * horizontal[start + j];
+          }
+        }
+        storeRow(sums, result, i * width, width, shift);
+      }
+    });
+  }
+
+  /**
+   * Fixed-point version of convolveDirect: the same loops over ints, with the kernel values
+   * scaled up to integers.
+   */
+  private void convolveDirectFixed(int[] plane, int[] result, int width, int height, int shift) {
+    int kernelSize = this.size;
+    int paddedWidth = width + kernelSize - 1;
+    int[] values = this.fixedValues;
+
+    runInBands(height, (firstRow, lastRow) -> {
+      int[] sums = new int[width];
+      for (int i = firstRow; i < lastRow; i++) {
+        Arrays.fill(sums, 0);
         for (int ky = 0; ky < kernelSize; ky++) {
           for (int kx = 0; kx < kernelSize; kx++) {
-            int pixelY = i + ky - radius;
-            int pixelX = j + kx - radius;
-
-            if (pixelX >= 0 && pixelX < width && pixelY >= 0 && pixelY < height) {
-              int r = inputImage.getRedChannel(pixelX, pixelY);
-              int g = inputImage.getGreenChannel(pixelX, pixelY);
-              int b = inputImage.getBlueChannel(pixelX, pixelY);
-
-              double kernelVal = kernelVals[ky][kx];
-              sumRed += kernelVal * r;
-              sumGreen += kernelVal * g;
-              sumBlue += kernelVal * b;
+            int kernelVal = values[ky * kernelSize + kx];
+            if (kernelVal == 0) {
+              continue;
+            }
+            int start = (i + ky) * paddedWidth + kx;
+            for (int j = 0; j < width; j++) {
+              sums[j] += kernelVal * plane[start + j];
             }
           }
         }
+        storeFixedRow(sums, result, i * width, width, shift);
+      }
+    });
+  }
 
-        // Combine color components and set new pixel in the processedImage
-        int newR = (int) Math.max(minClamp, Math.min(maxClamp, sumRed));
-        int newG = (int) Math.max(minClamp, Math.min(maxClamp, sumGreen));
-        int newB = (int) Math.max(minClamp, Math.min(maxClamp, sumBlue));
-        processedImage.setPixel(j, i, newR, newG, newB);
+  /**
+   * Fixed-point version of convolveSeparable. The horizontal sums stay scaled up, and the final
+   * shift undoes the scaling of both passes at once.
+   */
+  private void convolveSeparableFixed(int[] plane, int[] horizontal, int[] result,
+                                      int width, int height, int shift) {
+    int kernelSize = this.size;
+    int paddedWidth = width + kernelSize - 1;
+    int[] column = this.fixedColumn;
+    int[] row = this.fixedRow;
+
+    runInBands(height + kernelSize - 1, (firstRow, lastRow) -> {
+      for (int i = firstRow; i < lastRow; i++) {
+        int target = i * width;
+        Arrays.fill(horizontal, target, target + width, 0);
+        for (int k = 0; k < kernelSize; k++) {
+          int factor = row[k];
+          int start = i * paddedWidth + k;
+          for (int j = 0; j < width; j++) {
+            horizontal[target + j] += factor * plane[start + j];
+          }
+        }
+      }
+    });
+    runInBands(height, (firstRow, lastRow) -> {
+      int[] sums = new int[width];
+      for (int i = firstRow; i < lastRow; i++) {
+        Arrays.fill(sums, 0);
+        for (int k = 0; k < kernelSize; k++) {
+          int factor = column[k];
+          int start = (i + k) * width;
+          for (int j = 0; j < width; j++) {
+            sums[j] += factor * horizontal[start + j];
+          }
+        }
+        storeFixedRow(sums, result, i * width, width, shift);
+      }
+    });
+  }
+
+  /**
+   * Returns whether applying this kernel to an image of the given size goes through Fourier
+   * transforms. That pays off for kernels of 13x13 and up, where the direct loops spend size^2
+   * multiplications on every pixel. Separable kernels stay on their two cheap 1-D passes, and an
+   * image smaller than the kernel has too few pixels for the transforms to be worth their set-up.
+   * @param width the width of the image.
+   * @param height the height of the image.
+   * @return true if the kernel would be applied through Fourier transforms.
+   */
+  public boolean usesFourierTransform(int width, int height) {
+    return this.size >= FOURIER_MIN_SIZE && !isSeparable()
+            && (long) width * height >= (long) this.size * this.size;
+  }
+
+  // Picks the block size that transforms the padded plane with the fewest butterflies in total.
+  // A kernel of 513x513 or more needs a block above FOURIER_MAX_BLOCK to leave room for any
+  // pixels next to its overlap, and then gets the smallest block that does.
+  private int fourierBlockSize(int paddedWidth, int paddedHeight) {
+    int overlap = this.size - 1;
+    int smallest = Integer.highestOneBit(2 * overlap) << 1;
+    int best = smallest;
+    double bestCost = Double.MAX_VALUE;
+    for (int n = smallest; n <= Math.max(smallest, FOURIER_MAX_BLOCK); n <<= 1) {
+      int block = n - overlap;
+      long blocks = (long) ((paddedWidth + block - 1) / block)
+              * ((paddedHeight + block - 1) / block);
+      double cost = blocks * (double) n * n * Integer.numberOfTrailingZeros(n);
+      if (cost < bestCost) {
+        best = n;
+        bestCost = cost;
+      }
+      if (block >= paddedWidth && block >= paddedHeight) {
+        break;
       }
     }
-    return processedImage;
+    return best;
+  }
+
+  /**
+   * Transforms the kernel, flipped so that the convolution computes the same correlation as the
+   * direct loops, into a block of the transform's size. The fixed-point values are used when the
+   * kernel has them, so that the Fourier path produces the integer sums of the fixed-point path.
+   */
+  private double[][] kernelSpectrum(FourierTransform transform) {
+    int n = transform.getSize();
+    int last = this.size - 1;
+    double[] re = new double[n * n];
+    double[] im = new double[n * n];
+    for (int ky = 0; ky < this.size; ky++) {
+      for (int kx = 0; kx < this.size; kx++) {
+        re[(last - ky) * n + (last - kx)] = this.fixedValues != null
+                ? this.fixedValues[ky * this.size + kx] : this.kernelValues[ky][kx];
+      }
+    }
+    transform.transform(re, im, false);
+    return new double[][] {re, im};
+  }
+
+  /**
+   * Convolves a padded plane through Fourier transforms with overlap-add. The plane is cut into
+   * blocks of n - size + 1 pixels on a side, each block's full linear convolution with the
+   * kernel lands in an n x n transform without wrapping around, and the overlapping parts of
+   * neighbouring blocks are added together. Both inputs are real, so two neighbouring blocks
+   * travel through each complex transform at once, one as the real part and one as the
+   * imaginary part; the kernel is real too, so their results come back apart in the same way.
+   *
+   * <p>The blocks of one block row only overlap the block rows just above and below, so even and
+   * odd block rows each run in parallel, one after the other.
+   */
+  private void convolveFourier(FourierTransform transform, double[][] spectrum, int[] plane,
+                               int[] result, int width, int height, int shift) {
+    int n = transform.getSize();
+    int overlap = this.size - 1;
+    int block = n - overlap;
+    int paddedWidth = width + overlap;
+    int paddedHeight = height + overlap;
+    int blockRows = (paddedHeight + block - 1) / block;
+    int blockColumns = (paddedWidth + block - 1) / block;
+    double[] sums = new double[width * height];
+
+    for (int parity = 0; parity < 2; parity++) {
+      int first = parity;
+      runInBands((blockRows - parity + 1) / 2, 1, (firstBand, lastBand) -> {
+        double[] re = new double[n * n];
+        double[] im = new double[n * n];
+        for (int band = firstBand; band < lastBand; band++) {
+          int top = (2 * band + first) * block;
+          for (int column = 0; column < blockColumns; column += 2) {
+            int left = column * block;
+            int right = left + block;
+            Arrays.fill(re, 0);
+            Arrays.fill(im, 0);
+            copyBlock(plane, paddedWidth, paddedHeight, top, left, block, re, n);
+            if (right < paddedWidth) {
+              copyBlock(plane, paddedWidth, paddedHeight, top, right, block, im, n);
+            }
+            transform.transform(re, im, false);
+            multiply(re, im, spectrum[0], spectrum[1]);
+            transform.transform(re, im, true);
+            addBlock(re, n, top - overlap, left - overlap, sums, width, height);
+            if (right < paddedWidth) {
+              addBlock(im, n, top - overlap, right - overlap, sums, width, height);
+            }
+          }
+        }
+      });
+    }
+
+    runInBands(height, (firstRow, lastRow) -> {
+      if (isFixedPoint()) {
+        int[] fixedSums = new int[width];
+        for (int i = firstRow; i < lastRow; i++) {
+          for (int j = 0; j < width; j++) {
+            // the true sums are integers and the transforms are far more accurate than 0.5
+            fixedSums[j] = (int) Math.rint(sums[i * width + j]);
+          }
+          storeFixedRow(fixedSums, result, i * width, width, shift);
+        }
+      } else {
+        double[] row = new double[width];
+        for (int i = firstRow; i < lastRow; i++) {
+          System.arraycopy(sums, i * width, row, 0, width);
+          storeRow(row, result, i * width, width, shift);
+        }
+      }
+    });
+  }
+
+  // Copies the part of a block x block square of the plane that lies inside it to a transform
+  private static void copyBlock(int[] plane, int paddedWidth, int paddedHeight, int top,
+                                int left, int block, double[] target, int n) {
+    int rows = Math.min(block, paddedHeight - top);
+    int columns = Math.min(block, paddedWidth - left);
+    for (int i = 0; i < rows; i++) {
+      int from = (top + i) * paddedWidth + left;
+      for (int j = 0; j < columns; j++) {
+        target[i * n + j] = plane[from + j];
+      }
+    }
+  }
+
+  // Complex multiplication of a transformed block by the kernel spectrum, in place
+  private static void multiply(double[] re, double[] im, double[] kernelRe, double[] kernelIm) {
+    for (int i = 0; i < re.length; i++) {
+      double r = re[i] * kernelRe[i] - im[i] * kernelIm[i];
+      im[i] = re[i] * kernelIm[i] + im[i] * kernelRe[i];
+      re[i] = r;
+    }
+  }
+
+  // Adds the part of a convolved block that falls inside the output image to the sums
+  private static void addBlock(double[] convolved, int n, int top, int left, double[] sums,
+                               int width, int height) {
+    int firstRow = Math.max(0, -top);
+    int lastRow = Math.min(n, height - top);
+    int firstColumn = Math.max(0, -left);
+    int lastColumn = Math.min(n, width - left);
+    for (int i = firstRow; i < lastRow; i++) {
+      int from = i * n;
+      int to = (top + i) * width + left;
+      for (int j = firstColumn; j < lastColumn; j++) {
+        sums[to + j] += convolved[from + j];
+      }
+    }
+  }
+
+  // Shifts a row of fixed-point sums back down, which rounds towards zero for positive sums just
+  // like the (int) cast of the double path, then clamps and merges them into the packed result
+  private void storeFixedRow(int[] sums, int[] result, int offset, int width, int shift) {
+    int fractionBits = this.fixedShift;
+    for (int j = 0; j < width; j++) {
+      int value = Math.min(255, Math.max(0, sums[j]) >> fractionBits);
+      result[offset + j] |= value << shift;
+    }
+  }
+
+  // Clamps a row of sums to [0, 255] and merges it into the packed result as one channel
+  private static void storeRow(double[] sums, int[] result, int offset, int width, int shift) {
+    // Define the valid range for clamping
+    int minClamp = 0;
+    int maxClamp = 255;
+    for (int j = 0; j < width; j++) {
+      // snap the rounding error off sums that should land on a whole level, so a flat area under
+      // a normalized kernel, or the tiny error of a transform, does not lose a level when the sum
+      // is truncated
+      double sum = sums[j];
+      double nearest = Math.rint(sum);
+      if (Math.abs(sum - nearest) < SNAP) {
+        sum = nearest;
+      }
+      int value = (int) Math.max(minClamp, Math.min(maxClamp, sum));
+      result[offset + j] |= value << shift;
+    }
+  }
+
+  /**
+   * Splits the rows [0, rows) into bands and runs the given work on them, on the calling
+   * thread or on the shared ForkJoinPool for this kernel's parallelism.
+   */
+  private void runInBands(int rows, BandWork work) {
+    runInBands(rows, MIN_BAND_ROWS, work);
+  }
+
+  // Same as above for work whose rows are expensive enough to be worth smaller bands
+  private void runInBands(int rows, int minBandRows, BandWork work) {
+    if (this.parallelism == 1 || rows <= minBandRows) {
+      work.run(0, rows);
+    } else {
+      // aim for a few bands per thread so that uneven bands still balance out
+      int bandRows = Math.max(minBandRows, rows / (this.parallelism * 4));
+      ForkJoinPool pool = POOLS.computeIfAbsent(this.parallelism, ForkJoinPool::new);
+      pool.invoke(new BandTask(work, 0, rows, bandRows));
+    }
+  }
+
+  /**
+   * A piece of work over a range of rows [firstRow, lastRow) that may run concurrently with the
+   * same work over other, disjoint ranges.
+   */
+  private interface BandWork {
+    void run(int firstRow, int lastRow);
+  }
+
+  /**
+   * Fork/join task that halves a range of rows until the bands are small enough, then runs the
+   * work on each band on whichever pool thread picks it up.
+   */
+  private static class BandTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final BandWork work;
+    private final int firstRow;
+    private final int lastRow;
+    private final int bandRows;
+
+    BandTask(BandWork work, int firstRow, int lastRow, int bandRows) {
+      this.work = work;
+      this.firstRow = firstRow;
+      this.lastRow = lastRow;
+      this.bandRows = bandRows;
+    }
+
+    @Override
+    protected void compute() {
+      if (lastRow - firstRow <= bandRows) {
+        work.run(firstRow, lastRow);
+        return;
+      }
+      int middle = (firstRow + lastRow) >>> 1;
+      invokeAll(new BandTask(work, firstRow, middle, bandRows),
+              new BandTask(work, middle, lastRow, bandRows));
+    }
   }
 
 }
@@ -0,0 +1,103 @@
+package model;
+
+/**
+ * This represents a primitive-backed implementation of an IImage. Instead of holding a Pixel
+ * object for every position, the red, green and blue values of each pixel are packed into one int
+ * (0xRRGGBB) and stored row by row in a single int array. This keeps a large image at 4 bytes per
+ * pixel, where ImageImpl pays for an object header and a reference on top of the channel values.
+ */
+public class PackedImageImpl implements IImage {
+  private final int width;
+  private final int height;
+  private final int[] data; // row-major, index is y * width + x
+
+  /**
+   * Constructs a PackedImageImpl object. Every pixel starts out black.
+   * @param width how many columns of pixels the image has.
+   * @param height how many rows of pixels the image has.
+   * @throws IllegalArgumentException if the width or height is negative, or the image has more
+   *                                  pixels than an array can hold.
+   */
+  public PackedImageImpl(int width, int height) throws IllegalArgumentException {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Width and height cannot be negative.");
+    }
+    this.width = width;
+    this.height = height;
+    try {
+      this.data = new int[Math.multiplyExact(width, height)];
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException("Image is too large.");
+    }
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getRedChannel(int x, int y) {
+    return (this.data[index(x, y)] >> 16) & 0xFF;
+  }
+
+  @Override
+  public int getGreenChannel(int x, int y) {
+    return (this.data[index(x, y)] >> 8) & 0xFF;
+  }
+
+  @Override
+  public int getBlueChannel(int x, int y) {
+    return this.data[index(x, y)] & 0xFF;
+  }
+
+  @Override
+  public void setPixel(int x, int y, int r, int g, int b) {
+    if (r < 0 || r > 255 || g < 0 || g > 255 || b < 0 || b > 255) {
+      throw new IllegalArgumentException("Pixel values out of bounds.");
+    }
+    this.data[index(x, y)] = (r << 16) | (g << 8) | b;
+  }
+
+  @Override
+  public void getRGB(int x, int y, int w, int h, int[] dest, int offset, int scansize) {
+    checkRect(x, y, w, h);
+    for (int j = 0; j < h; j++) {
+      System.arraycopy(this.data, (y + j) * this.width + x, dest, offset + j * scansize, w);
+    }
+  }
+
+  @Override
+  public void setRGB(int x, int y, int w, int h, int[] src, int offset, int scansize) {
+    checkRect(x, y, w, h);
+    for (int j = 0; j < h; j++) {
+      int from = offset + j * scansize;
+      int invalid = 0;
+      for (int i = 0; i < w; i++) {
+        invalid |= src[from + i];
+      }
+      if ((invalid & 0xFF000000) != 0) {
+        throw new IllegalArgumentException("Pixel values out of bounds.");
+      }
+      System.arraycopy(src, from, this.data, (y + j) * this.width + x, w);
+    }
+  }
+
+  private void checkRect(int x, int y, int w, int h) {
+    if (x < 0 || y < 0 || w < 0 || h < 0 || x + w > this.width || y + h > this.height) {
+      throw new IllegalArgumentException("x or y outside of bounds.");
+    }
+  }
+
+  private int index(int x, int y) {
+    if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+      throw new IllegalArgumentException("x or y outside of bounds.");
+    }
+    return y * this.width + x;
+  }
+}
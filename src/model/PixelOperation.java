@@ -0,0 +1,49 @@
+package model;
+
+/**
+ * Represents an operation that maps every packed 0xRRGGBB pixel on its own, without looking at
+ * its neighbours. Because no pixel depends on any other, the operation can be applied to any
+ * range of pixels, in place, from any number of threads at once, and several operations can be
+ * applied to the same range one after the other in a single sweep over the image.
+ */
+public interface PixelOperation {
+
+  /**
+   * Applies the operation in place to a range of packed pixels.
+   * @param pixels the pixels to map.
+   * @param from the first index to map.
+   * @param to one past the last index to map.
+   */
+  void apply(int[] pixels, int from, int to);
+
+  /**
+   * Applies the operation to every pixel of an image, one row at a time.
+   * @param sourceImage the image to map, which is left unchanged.
+   * @return a new image with the operation applied.
+   */
+  default IImageState apply(IImageState sourceImage) {
+    int width = sourceImage.getWidth();
+    int height = sourceImage.getHeight();
+    IImage newImage = new PackedImageImpl(width, height);
+    int[] row = new int[width]; // reused for every row, read and written in place
+
+    for (int y = 0; y < height; y++) {
+      sourceImage.getRow(y, row);
+      apply(row, 0, width);
+      newImage.setRow(y, row);
+    }
+    return newImage;
+  }
+
+  /**
+   * Returns an operation that applies this one and then the next one to each range.
+   * @param next the operation to apply after this one.
+   * @return the combined operation.
+   */
+  default PixelOperation andThen(PixelOperation next) {
+    return (pixels, from, to) -> {
+      apply(pixels, from, to);
+      next.apply(pixels, from, to);
+    };
+  }
+}
@@ -0,0 +1,152 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The codec CompressingImageDataBase keeps cold images in. Each pixel is predicted from the pixel
+ * above it (or, in the first row, the pixel to its left), and only the difference, taken per
+ * channel, is written, in the smallest of four forms:
+ * <ul>
+ *   <li>a run of 1 to 64 pixels that equal their prediction, in one byte;</li>
+ *   <li>a difference of -2 to 1 in every channel, in one byte;</li>
+ *   <li>a difference of -32 to 31 in green, and of red and blue within -8 to 7 of green's, in two
+ *   bytes;</li>
+ *   <li>any other difference, in four bytes.</li>
+ * </ul>
+ * Photos change little from one row to the next, so most pixels take one or two bytes instead of
+ * the four PackedImageImpl holds, and decoding is a single pass with no tables to build.
+ */
+final class RowDeltaCodec {
+  private static final int RUN = 0x00; // 00rrrrrr: run length - 1
+  private static final int DIFF = 0x40; // 01rrggbb: each difference + 2
+  private static final int LUMA = 0x80; // 10gggggg green + 32, then rrrrbbbb red, blue - green + 8
+  private static final int RGB = 0xC0; // then the three differences as bytes
+
+  private RowDeltaCodec() {
+    // only static methods
+  }
+
+  /**
+   * Compresses an image.
+   * @param image the image.
+   * @return the compressed pixels, without the size of the image.
+   */
+  static byte[] compress(IImageState image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    byte[] out = new byte[Math.max(16, width * height)];
+    int position = 0;
+    int run = 0;
+    int[] above = new int[width];
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      image.getRow(y, row);
+      for (int x = 0; x < width; x++) {
+        int predicted = y > 0 ? above[x] : x > 0 ? row[x - 1] : 0;
+        int pixel = row[x];
+        if (pixel == predicted) {
+          run++;
+          if (run == 64) {
+            out = room(out, position);
+            out[position++] = (byte) (RUN | 63);
+            run = 0;
+          }
+          continue;
+        }
+        out = room(out, position);
+        if (run > 0) {
+          out[position++] = (byte) (RUN | (run - 1));
+          run = 0;
+        }
+        int dr = (byte) ((pixel >> 16) - (predicted >> 16));
+        int dg = (byte) ((pixel >> 8) - (predicted >> 8));
+        int db = (byte) (pixel - predicted);
+        int drg = dr - dg;
+        int dbg = db - dg;
+        if (dr >= -2 && dr <= 1 && dg >= -2 && dg <= 1 && db >= -2 && db <= 1) {
+          out[position++] = (byte) (DIFF | (dr + 2) << 4 | (dg + 2) << 2 | (db + 2));
+        } else if (dg >= -32 && dg <= 31 && drg >= -8 && drg <= 7 && dbg >= -8 && dbg <= 7) {
+          out[position++] = (byte) (LUMA | (dg + 32));
+          out[position++] = (byte) ((drg + 8) << 4 | (dbg + 8));
+        } else {
+          out[position++] = (byte) RGB;
+          out[position++] = (byte) dr;
+          out[position++] = (byte) dg;
+          out[position++] = (byte) db;
+        }
+      }
+      int[] swap = above;
+      above = row;
+      row = swap;
+    }
+    if (run > 0) {
+      out = room(out, position);
+      out[position++] = (byte) (RUN | (run - 1));
+    }
+    return Arrays.copyOf(out, position);
+  }
+
+  /**
+   * Decompresses an image.
+   * @param bytes the compressed pixels.
+   * @param width the width of the image.
+   * @param height the height of the image.
+   * @return a new image with the pixels.
+   * @throws IllegalStateException if the bytes end before the image does.
+   */
+  static IImage decompress(byte[] bytes, int width, int height) throws IllegalStateException {
+    IImage image = new PackedImageImpl(width, height);
+    int position = 0;
+    int run = 0;
+    int[] above = new int[width];
+    int[] row = new int[width];
+    try {
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          int predicted = y > 0 ? above[x] : x > 0 ? row[x - 1] : 0;
+          if (run > 0) {
+            run--;
+            row[x] = predicted;
+            continue;
+          }
+          int op = bytes[position++] & 0xFF;
+          int dr;
+          int dg;
+          int db;
+          if (op < DIFF) {
+            run = op;
+            row[x] = predicted;
+            continue;
+          } else if (op < LUMA) {
+            dr = (op >> 4 & 3) - 2;
+            dg = (op >> 2 & 3) - 2;
+            db = (op & 3) - 2;
+          } else if (op < RGB) {
+            int next = bytes[position++] & 0xFF;
+            dg = (op & 0x3F) - 32;
+            dr = dg + (next >> 4) - 8;
+            db = dg + (next & 0x0F) - 8;
+          } else {
+            dr = bytes[position++];
+            dg = bytes[position++];
+            db = bytes[position++];
+          }
+          row[x] = ((predicted >> 16) + dr & 0xFF) << 16 | ((predicted >> 8) + dg & 0xFF) << 8
+                  | (predicted + db & 0xFF);
+        }
+        image.setRow(y, row);
+        int[] swap = above;
+        above = row;
+        row = swap;
+      }
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IllegalStateException("Compressed image is damaged.");
+    }
+    return image;
+  }
+
+  // makes sure there is room for the longest op at a position
+  private static byte[] room(byte[] out, int position) {
+    return position + 5 <= out.length ? out : Arrays.copyOf(out, out.length * 2);
+  }
+}
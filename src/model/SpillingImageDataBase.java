@@ -0,0 +1,357 @@
+package model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Represents an IImageDataBase that keeps no more than a budget of bytes of images in memory.
+ * When an image added or read back pushes the images in memory over the budget, the images used
+ * least recently are written out to a spill file until they fit again. Reading a spilled image
+ * reads it back in, so the database behaves like ImageDataBase apart from the time that takes.
+ *
+ * <p>An image counts for 4 bytes a pixel, which is what PackedImageImpl holds. The spill file
+ * holds the same packed 0xRRGGBB values row after row, so an image is written and read back
+ * without any conversion. Images are not copied when they are added, so, as with ImageDataBase,
+ * an image must not be changed once it is in the database; that is also why an image that was
+ * read back does not have to be written out again the next time it is spilled.
+ *
+ * <p>The spill file is a temporary file, deleted by close or when the program exits.
+ */
+public class SpillingImageDataBase implements IImageDataBase, Closeable {
+  private final long budget;
+  private final File spillFile;
+  private final LinkedHashMap<String, IImageState> resident; // least recently used first
+  private final Map<String, Spilled> spilled; // where each image that was spilled sits
+  private FileChannel channel; // opened the first time an image is spilled
+  private long residentBytes;
+  private long fileEnd;
+  private long deadBytes; // bytes of the spill file whose image was replaced since
+  private long hits;
+  private long misses;
+  private long spills;
+
+  /**
+   * Constructs an empty SpillingImageDataBase.
+   * @param budget how many bytes of images to keep in memory at most.
+   * @throws IllegalArgumentException if the budget is negative.
+   * @throws IllegalStateException if the spill file cannot be created.
+   */
+  public SpillingImageDataBase(long budget) throws IllegalArgumentException,
+          IllegalStateException {
+    this(budget, null);
+  }
+
+  /**
+   * Constructs an empty SpillingImageDataBase that spills to a file in the given directory.
+   * @param budget how many bytes of images to keep in memory at most.
+   * @param directory where to create the spill file, or null for the default temporary directory.
+   * @throws IllegalArgumentException if the budget is negative.
+   * @throws IllegalStateException if the spill file cannot be created.
+   */
+  public SpillingImageDataBase(long budget, File directory) throws IllegalArgumentException,
+          IllegalStateException {
+    if (budget < 0) {
+      throw new IllegalArgumentException("Memory budget cannot be negative.");
+    }
+    this.budget = budget;
+    this.resident = new LinkedHashMap<>(16, 0.75f, true);
+    this.spilled = new HashMap<>();
+    try {
+      this.spillFile = File.createTempFile("images", ".spill", directory);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to create spill file.");
+    }
+    this.spillFile.deleteOnExit();
+  }
+
+  @Override
+  public synchronized void add(String id, IImageState image) {
+    if (id == null || image == null) {
+      throw new IllegalArgumentException("ID or image is null");
+    }
+    forget(id);
+    this.resident.put(id, image);
+    this.residentBytes += size(image);
+    evict();
+  }
+
+  @Override
+  public synchronized IImageState get(String id) {
+    Objects.requireNonNull(id);
+    IImageState image = this.resident.get(id);
+    if (image != null) {
+      this.hits++;
+      return image;
+    }
+    Spilled record = this.spilled.get(id);
+    if (record == null) {
+      return null;
+    }
+    this.misses++;
+    image = read(record);
+    this.resident.put(id, image);
+    this.residentBytes += size(image);
+    evict();
+    return image;
+  }
+
+  /**
+   * Returns every image in the database by id. The map is a read-only view: a spilled image is
+   * read back only when the map is asked for it.
+   * @return the images by id.
+   */
+  @Override
+  public Map<String, IImageState> getImages() {
+    return new AbstractMap<>() {
+      @Override
+      public IImageState get(Object key) {
+        return key instanceof String ? SpillingImageDataBase.this.get((String) key) : null;
+      }
+
+      @Override
+      public boolean containsKey(Object key) {
+        synchronized (SpillingImageDataBase.this) {
+          return resident.containsKey(key) || spilled.containsKey(key);
+        }
+      }
+
+      @Override
+      public Set<Entry<String, IImageState>> entrySet() {
+        return new AbstractSet<>() {
+          @Override
+          public Iterator<Entry<String, IImageState>> iterator() {
+            Iterator<String> ids = ids().iterator();
+            return new Iterator<>() {
+              @Override
+              public boolean hasNext() {
+                return ids.hasNext();
+              }
+
+              @Override
+              public Entry<String, IImageState> next() {
+                String id = ids.next();
+                return new SimpleImmutableEntry<>(id, SpillingImageDataBase.this.get(id));
+              }
+            };
+          }
+
+          @Override
+          public int size() {
+            return ids().size();
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * Returns how many times get found the image in memory.
+   * @return the number of hits.
+   */
+  public synchronized long getHits() {
+    return this.hits;
+  }
+
+  /**
+   * Returns how many times get had to read the image back from the spill file.
+   * @return the number of misses.
+   */
+  public synchronized long getMisses() {
+    return this.misses;
+  }
+
+  /**
+   * Returns how many times an image was written to the spill file.
+   * @return the number of spills.
+   */
+  public synchronized long getSpills() {
+    return this.spills;
+  }
+
+  /**
+   * Returns how many bytes of images are in memory.
+   * @return the bytes in memory, at most the budget unless one image is larger than that.
+   */
+  public synchronized long getResidentBytes() {
+    return this.residentBytes;
+  }
+
+  /**
+   * Deletes the spill file. The images that were spilled are gone afterwards.
+   */
+  @Override
+  public synchronized void close() {
+    try {
+      if (this.channel != null) {
+        this.channel.close();
+      }
+    } catch (IOException e) {
+      // the file is deleted anyway
+    }
+    this.spillFile.delete();
+    this.spilled.clear();
+  }
+
+  // the ids of every image, in memory or not
+  private synchronized List<String> ids() {
+    List<String> ids = new ArrayList<>(this.resident.keySet());
+    for (String id : this.spilled.keySet()) {
+      if (!this.resident.containsKey(id)) {
+        ids.add(id);
+      }
+    }
+    return ids;
+  }
+
+  // what an image costs in memory
+  private static long size(IImageState image) {
+    return 4L * image.getWidth() * image.getHeight();
+  }
+
+  // drops an image that is being replaced, wherever it is
+  private void forget(String id) {
+    IImageState image = this.resident.remove(id);
+    if (image != null) {
+      this.residentBytes -= size(image);
+    }
+    Spilled record = this.spilled.remove(id);
+    if (record != null) {
+      this.deadBytes += record.bytes();
+    }
+  }
+
+  // spills the least recently used images until the rest fit, keeping the most recent one
+  private void evict() {
+    Iterator<Map.Entry<String, IImageState>> eldest = this.resident.entrySet().iterator();
+    while (this.residentBytes > this.budget && this.resident.size() > 1) {
+      Map.Entry<String, IImageState> entry = eldest.next();
+      if (!this.spilled.containsKey(entry.getKey())) {
+        this.spilled.put(entry.getKey(), write(entry.getValue()));
+        this.spills++;
+      }
+      this.residentBytes -= size(entry.getValue());
+      eldest.remove();
+    }
+  }
+
+  // appends an image to the spill file, first compacting the file if most of it is dead
+  private Spilled write(IImageState image) {
+    try {
+      if (this.channel == null) {
+        this.channel = FileChannel.open(this.spillFile.toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+      }
+      if (this.deadBytes > this.fileEnd / 2) {
+        compact();
+      }
+      Spilled record = new Spilled(this.fileEnd, image.getWidth(), image.getHeight());
+      ByteBuffer bytes = ByteBuffer.allocate(4 * image.getWidth());
+      IntBuffer ints = bytes.asIntBuffer();
+      int[] row = new int[image.getWidth()];
+      long position = record.offset;
+      for (int y = 0; y < image.getHeight(); y++) {
+        image.getRow(y, row);
+        ints.clear();
+        ints.put(row);
+        bytes.clear();
+        while (bytes.hasRemaining()) {
+          position += this.channel.write(bytes, position);
+        }
+      }
+      this.fileEnd = position;
+      return record;
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to spill image to disk.");
+    }
+  }
+
+  // reads a spilled image back into memory
+  private IImageState read(Spilled record) {
+    IImage image = new PackedImageImpl(record.width, record.height);
+    ByteBuffer bytes = ByteBuffer.allocate(4 * record.width);
+    IntBuffer ints = bytes.asIntBuffer();
+    int[] row = new int[record.width];
+    long position = record.offset;
+    try {
+      for (int y = 0; y < record.height; y++) {
+        bytes.clear();
+        while (bytes.hasRemaining()) {
+          int read = this.channel.read(bytes, position);
+          if (read < 0) {
+            throw new IOException("Spill file ended early.");
+          }
+          position += read;
+        }
+        ints.clear();
+        ints.get(row);
+        image.setRow(y, row);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read spilled image from disk.");
+    }
+    return image;
+  }
+
+  // moves the images still spilled to the start of the file, in the order they were written
+  private void compact() throws IOException {
+    List<Map.Entry<String, Spilled>> live = new ArrayList<>(this.spilled.entrySet());
+    live.sort((a, b) -> Long.compare(a.getValue().offset, b.getValue().offset));
+    ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+    long to = 0;
+    for (Map.Entry<String, Spilled> entry : live) {
+      Spilled record = entry.getValue();
+      // the image only ever moves towards the start, so copying it forwards is safe
+      for (long from = record.offset, end = record.offset + record.bytes(); from < end; ) {
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), end - from));
+        int read = this.channel.read(buffer, from);
+        if (read < 0) {
+          throw new IOException("Spill file ended early.");
+        }
+        from += read;
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          to += this.channel.write(buffer, to);
+        }
+      }
+      entry.setValue(new Spilled(to - record.bytes(), record.width, record.height));
+    }
+    this.channel.truncate(to);
+    this.fileEnd = to;
+    this.deadBytes = 0;
+  }
+
+  /**
+   * Where a spilled image sits in the spill file.
+   */
+  private static final class Spilled {
+    private final long offset;
+    private final int width;
+    private final int height;
+
+    Spilled(long offset, int width, int height) {
+      this.offset = offset;
+      this.width = width;
+      this.height = height;
+    }
+
+    long bytes() {
+      return 4L * this.width * this.height;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package model;
+
+/**
+ * Represents a summed-area table (integral image) over one channel of a packed image. Entry
+ * (x, y) holds the sum of every channel value above and to the left of pixel (x, y), so the sum
+ * over any rectangle is four lookups no matter how large the rectangle is. That makes a box blur
+ * cost the same per pixel for a radius of 1 as for a radius of 100.
+ *
+ * <p>The table is built one channel at a time and can be rebuilt in place, so blurring all three
+ * channels of an image, or blurring it several times over, reuses the same array.
+ */
+public class SummedAreaTable {
+  private final int width;
+  private final int height;
+  // (width + 1) x (height + 1), row 0 and column 0 are zero; longs because the sum over a large
+  // image overflows an int
+  private final long[] sums;
+
+  /**
+   * Constructs an empty SummedAreaTable for images of the given size.
+   * @param width the width of the images the table will be built from.
+   * @param height the height of the images the table will be built from.
+   * @throws IllegalArgumentException if the width or height is negative.
+   */
+  public SummedAreaTable(int width, int height) throws IllegalArgumentException {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Width and height cannot be negative.");
+    }
+    this.width = width;
+    this.height = height;
+    this.sums = new long[(width + 1) * (height + 1)];
+  }
+
+  /**
+   * Fills the table from one channel of an image, replacing whatever it held before.
+   * @param pixels the image as packed 0xRRGGBB values, row by row.
+   * @param shift where the channel sits in each packed value: 16 for red, 8 green, 0 blue.
+   * @throws IllegalArgumentException if the array is smaller than the image.
+   */
+  public void build(int[] pixels, int shift) throws IllegalArgumentException {
+    if (pixels.length < this.width * this.height) {
+      throw new IllegalArgumentException("Pixel array is smaller than the image.");
+    }
+    int stride = this.width + 1;
+    for (int y = 0; y < this.height; y++) {
+      long rowSum = 0;
+      int above = y * stride + 1;
+      int target = above + stride;
+      int source = y * this.width;
+      for (int x = 0; x < this.width; x++) {
+        rowSum += (pixels[source + x] >> shift) & 0xFF;
+        this.sums[target + x] = this.sums[above + x] + rowSum;
+      }
+    }
+  }
+
+  /**
+   * Returns the sum of the channel over the rectangle [x0, x1) x [y0, y1).
+   * @param x0 the first column of the rectangle.
+   * @param y0 the first row of the rectangle.
+   * @param x1 one past the last column of the rectangle.
+   * @param y1 one past the last row of the rectangle.
+   * @return the sum of the channel values inside the rectangle.
+   * @throws IllegalArgumentException if the rectangle is not inside the image.
+   */
+  public long sum(int x0, int y0, int x1, int y1) throws IllegalArgumentException {
+    if (x0 < 0 || y0 < 0 || x1 > this.width || y1 > this.height || x0 > x1 || y0 > y1) {
+      throw new IllegalArgumentException("x or y outside of bounds.");
+    }
+    int stride = this.width + 1;
+    return this.sums[y1 * stride + x1] - this.sums[y0 * stride + x1]
+            - this.sums[y1 * stride + x0] + this.sums[y0 * stride + x0];
+  }
+
+  /**
+   * Box blurs the channel the table was built from and merges it into a packed result. Every
+   * pixel becomes the rounded average of the (2 * radius + 1)^2 square around it. Near the border
+   * the square is cut off at the edge of the image and only the pixels inside it are averaged,
+   * so a flat image stays flat all the way to its edges.
+   * @param radius how many pixels on either side of a pixel are averaged into it.
+   * @param result the packed result, which must hold zero in this channel.
+   * @param shift where the channel goes in each packed value.
+   * @throws IllegalArgumentException if the radius is negative or the result is too small.
+   */
+  public void boxBlur(int radius, int[] result, int shift) throws IllegalArgumentException {
+    if (radius < 0) {
+      throw new IllegalArgumentException("Blur radius cannot be negative.");
+    }
+    if (result.length < this.width * this.height) {
+      throw new IllegalArgumentException("Pixel array is smaller than the image.");
+    }
+    int stride = this.width + 1;
+    for (int y = 0; y < this.height; y++) {
+      int top = Math.max(0, y - radius) * stride;
+      int bottom = Math.min(this.height, y + radius + 1) * stride;
+      int rows = (bottom - top) / stride;
+      int target = y * this.width;
+      for (int x = 0; x < this.width; x++) {
+        int left = Math.max(0, x - radius);
+        int right = Math.min(this.width, x + radius + 1);
+        long sum = this.sums[bottom + right] - this.sums[top + right]
+                - this.sums[bottom + left] + this.sums[top + left];
+        long count = (long) rows * (right - left);
+        result[target + x] |= (int) ((sum + count / 2) / count) << shift;
+      }
+    }
+  }
+}
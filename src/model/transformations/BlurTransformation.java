@@ -10,7 +10,7 @@ import model.Kernel;
  * by applying the Gaussian blur 3x3 matrix of calculations to a specified Pixel, and its
  * surrounding pixels.
  */
-public class BlurTransformation implements ITransformation {
+public class BlurTransformation implements IKernelTransformation {
   private int row; // row position of target Pixel
   private int col; // col position of target Pixel
 
@@ -36,7 +36,7 @@ public class BlurTransformation implements ITransformation {
 
 
   @Override
-  public IImageState run(IImageState sourceImage) {
+  public Kernel getKernel() {
 
     double[][] kernelValues = {
             {(0.0625), (0.125), (0.0625)},
@@ -44,8 +44,12 @@ public class BlurTransformation implements ITransformation {
             {(0.0625), (0.125), (0.0625)}
     };
 
-    Kernel newKernel = new Kernel(3, kernelValues);
-    IImageState processedImage = newKernel.applyKernel(sourceImage);
+    return new Kernel(3, kernelValues);
+  }
+
+  @Override
+  public IImageState run(IImageState sourceImage) {
+    IImageState processedImage = getKernel().applyKernel(sourceImage);
 
     return processedImage;
   }
@@ -0,0 +1,56 @@
+package model.transformations;
+
+import model.IImage;
+import model.IImageState;
+import model.PackedImageImpl;
+import model.SummedAreaTable;
+
+/**
+ * Represents a box blur with an arbitrary radius: every pixel becomes the average of the square
+ * of (2 * radius + 1)^2 pixels around it. The averages are read from a summed-area table, so the
+ * blur takes the same time whatever the radius. Near the border only the part of the square that
+ * lies inside the image is averaged.
+ */
+public class BoxBlurTransformation implements ITransformation {
+  private final int radius;
+
+  /**
+   * Constructor of a BoxBlurTransformation object.
+   * @param radius how many pixels on either side of a pixel are averaged into it.
+   * @throws IllegalArgumentException if the radius is negative.
+   */
+  public BoxBlurTransformation(int radius) throws IllegalArgumentException {
+    if (radius < 0) {
+      throw new IllegalArgumentException("Blur radius cannot be negative.");
+    }
+    this.radius = radius;
+  }
+
+  @Override
+  public IImageState run(IImageState sourceImage) {
+    int width = sourceImage.getWidth();
+    int height = sourceImage.getHeight();
+    int[] pixels = new int[width * height];
+    sourceImage.getRGB(0, 0, width, height, pixels, 0, width);
+    int[] result = new int[width * height];
+    blur(new SummedAreaTable(width, height), pixels, result, this.radius);
+
+    IImage newImage = new PackedImageImpl(width, height);
+    newImage.setRGB(0, 0, width, height, result, 0, width);
+    return newImage;
+  }
+
+  /**
+   * Box blurs all three channels of a packed image through a summed-area table of its size.
+   * @param table the table to build each channel in, reused from channel to channel.
+   * @param pixels the packed source pixels.
+   * @param result the packed blurred pixels, which must be all zero to begin with.
+   * @param radius the radius of the box.
+   */
+  static void blur(SummedAreaTable table, int[] pixels, int[] result, int radius) {
+    for (int shift = 16; shift >= 0; shift -= 8) {
+      table.build(pixels, shift);
+      table.boxBlur(radius, result, shift);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package model.transformations;
+
+import java.util.Arrays;
+
+import model.IImage;
+import model.IImageState;
+import model.PackedImageImpl;
+import model.SummedAreaTable;
+
+/**
+ * Represents an approximate Gaussian blur for large radii, built from three box blurs in a row.
+ * Repeated box blurs converge on a Gaussian, and three are already close to it, with box sizes
+ * chosen so that their combined variance matches the Gaussian blur of the same radius (a
+ * standard deviation of a third of the radius). Each box blur reads a summed-area table, so the
+ * cost does not grow with the radius, where GaussianBlurTransformation grows linearly with it.
+ */
+public class FastGaussianBlurTransformation implements ITransformation {
+  private static final int PASSES = 3;
+  private final int radius;
+
+  /**
+   * Constructor of a FastGaussianBlurTransformation object.
+   * @param radius how far the blur reaches, as for GaussianBlurTransformation.
+   * @throws IllegalArgumentException if the radius is negative.
+   */
+  public FastGaussianBlurTransformation(int radius) throws IllegalArgumentException {
+    if (radius < 0) {
+      throw new IllegalArgumentException("Blur radius cannot be negative.");
+    }
+    this.radius = radius;
+  }
+
+  /**
+   * Returns the radius of each box blur, chosen so that the boxes add up to the variance of a
+   * Gaussian with a standard deviation of a third of the blur radius.
+   * @return the radii of the three box blurs, in the order they are applied.
+   */
+  public int[] getBoxRadii() {
+    double sigma = Math.max(this.radius / 3.0, 0.5);
+    // a box of odd width w has variance (w^2 - 1) / 12, so three of width w have 3 (w^2 - 1) / 12
+    int lower = (int) Math.floor(Math.sqrt(12 * sigma * sigma / PASSES + 1));
+    if (lower % 2 == 0) {
+      lower--;
+    }
+    int upper = lower + 2;
+    // how many of the boxes take the lower width so that the variances add up most closely
+    long lowerCount = Math.round((12 * sigma * sigma - PASSES * lower * lower - 4 * PASSES * lower
+            - 3 * PASSES) / (-4.0 * lower - 4));
+    int[] radii = new int[PASSES];
+    for (int i = 0; i < PASSES; i++) {
+      radii[i] = ((i < lowerCount ? lower : upper) - 1) / 2;
+    }
+    return radii;
+  }
+
+  @Override
+  public IImageState run(IImageState sourceImage) {
+    int width = sourceImage.getWidth();
+    int height = sourceImage.getHeight();
+    int[] pixels = new int[width * height];
+    sourceImage.getRGB(0, 0, width, height, pixels, 0, width);
+
+    if (this.radius > 0) {
+      SummedAreaTable table = new SummedAreaTable(width, height);
+      int[] blurred = new int[width * height];
+      for (int boxRadius : getBoxRadii()) {
+        Arrays.fill(blurred, 0);
+        BoxBlurTransformation.blur(table, pixels, blurred, boxRadius);
+        int[] swap = pixels;
+        pixels = blurred;
+        blurred = swap;
+      }
+    }
+
+    IImage newImage = new PackedImageImpl(width, height);
+    newImage.setRGB(0, 0, width, height, pixels, 0, width);
+    return newImage;
+  }
+}
@@ -0,0 +1,28 @@
+package model.transformations;
+
+/**
+ * Represents a gamma correction. Every channel value v becomes 255 * (v / 255)^(1 / gamma), so a
+ * gamma above 1 lifts the shadows and mid tones and a gamma below 1 darkens them, while black
+ * and white stay where they are.
+ */
+public class GammaTransformation implements IPointTransformation {
+  private final double gamma;
+
+  /**
+   * Constructor of a GammaTransformation object.
+   * @param gamma the gamma value, 1 leaves the image unchanged.
+   * @throws IllegalArgumentException if the gamma is not a positive number.
+   */
+  public GammaTransformation(double gamma) throws IllegalArgumentException {
+    if (!(gamma > 0) || Double.isInfinite(gamma)) {
+      throw new IllegalArgumentException("Gamma must be a positive number.");
+    }
+    this.gamma = gamma;
+  }
+
+  @Override
+  public LookupTable getLookupTable() {
+    return LookupTable.perChannel(value ->
+            (int) Math.round(255 * Math.pow(value / 255.0, 1 / this.gamma)));
+  }
+}
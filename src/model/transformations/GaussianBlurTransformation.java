@@ -0,0 +1,60 @@
+package model.transformations;
+
+import model.EdgeMode;
+import model.Kernel;
+
+/**
+ * Represents a Gaussian blur with an arbitrary radius. Unlike the fixed 3x3 BlurTransformation,
+ * the kernel here is (2 * radius + 1) pixels wide, with a standard deviation of a third of the
+ * radius so that the kernel covers three standard deviations on either side. Because a Gaussian
+ * kernel is separable it is built from its one-dimensional factors and applied as two passes.
+ */
+public class GaussianBlurTransformation implements IKernelTransformation {
+  private final int radius;
+  private final EdgeMode edgeMode;
+
+  /**
+   * Constructor of a GaussianBlurTransformation object. Pixels outside the image count as black,
+   * like in the BlurTransformation.
+   * @param radius how many pixels on either side of a pixel contribute to its blurred value.
+   * @throws IllegalArgumentException if the radius is negative.
+   */
+  public GaussianBlurTransformation(int radius) throws IllegalArgumentException {
+    this(radius, EdgeMode.ZERO);
+  }
+
+  /**
+   * Constructor of a GaussianBlurTransformation object with a chosen edge behaviour.
+   * @param radius how many pixels on either side of a pixel contribute to its blurred value.
+   * @param edgeMode what the blur reads where it reaches past the border of the image.
+   * @throws IllegalArgumentException if the radius is negative or the edge mode is null.
+   */
+  public GaussianBlurTransformation(int radius, EdgeMode edgeMode)
+          throws IllegalArgumentException {
+    if (radius < 0) {
+      throw new IllegalArgumentException("Blur radius cannot be negative.");
+    }
+    if (edgeMode == null) {
+      throw new IllegalArgumentException("Edge mode cannot be null.");
+    }
+    this.radius = radius;
+    this.edgeMode = edgeMode;
+  }
+
+  @Override
+  public Kernel getKernel() {
+    double[] weights = new double[2 * radius + 1];
+    double sigma = Math.max(radius / 3.0, 0.5);
+    double total = 0;
+    for (int i = -radius; i <= radius; i++) {
+      weights[i + radius] = Math.exp(-(i * i) / (2 * sigma * sigma));
+      total += weights[i + radius];
+    }
+    // normalize so that the blur keeps the overall brightness of the image
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] /= total;
+    }
+
+    return Kernel.separable(weights, weights, edgeMode);
+  }
+}
@@ -1,15 +1,13 @@
 package model.transformations;
 
-import model.IImage;
-import model.IImageState;
-import model.ImageImpl;
+import model.PixelOperation;
 
 /**
  * Represents a greyscale intensity transformation strategy pattern. If the command pattern to
  * transform an image by calculating its intensity component, this class will be the workhorse for
  * this transformation.
  */
-public class GreyscaleIntensityTransformation implements ITransformation {
+public class GreyscaleIntensityTransformation implements IPixelTransformation {
 
   public GreyscaleIntensityTransformation() {
     // Constructor left empty to make command patterns and strategy patterns as neat and clean
@@ -23,19 +21,17 @@ public class GreyscaleIntensityTransformation implements ITransformation {
   }
 
   @Override
-  public IImageState run(IImageState sourceImage) {
-    IImage newImage = new ImageImpl(sourceImage.getWidth(), sourceImage.getHeight());
-
-    for (int row = 0; row < sourceImage.getHeight(); row++) {
-      for (int col = 0; col < sourceImage.getWidth(); col++) {
-        int r = sourceImage.getRedChannel(col, row);
-        int g = sourceImage.getGreenChannel(col, row);
-        int b = sourceImage.getBlueChannel(col, row);
+  public PixelOperation getPixelOperation() {
+    return (pixels, from, to) -> {
+      for (int i = from; i < to; i++) {
+        int rgb = pixels[i];
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
 
         int intensity = intensity(r, g, b);
-        newImage.setPixel(col, row, intensity, intensity, intensity);
+        pixels[i] = (intensity << 16) | (intensity << 8) | intensity;
       }
-    }
-    return newImage; //this is a full image, it has setters (IIMage, not IImageState)
+    };
   }
 }
@@ -1,15 +1,13 @@
 package model.transformations;
 
-import model.IImage;
-import model.IImageState;
-import model.ImageImpl;
+import model.PixelOperation;
 
 /**
  * Represents a greyscale value transformation strategy pattern. If the command pattern to
  * transform an image by calculating its value component, this class will be the workhorse for
  * this transformation.
  */
-public class GreyscaleValueTransformation implements ITransformation {
+public class GreyscaleValueTransformation implements IPixelTransformation {
 
   public GreyscaleValueTransformation() {
     // Constructor left empty to make command patterns and strategy patterns as neat and clean
@@ -21,19 +19,17 @@ public class GreyscaleValueTransformation implements ITransformation {
   }
 
   @Override
-  public IImageState run(IImageState sourceImage) {
-    IImage newImage = new ImageImpl(sourceImage.getWidth(), sourceImage.getHeight());
-
-    for (int row = 0; row < sourceImage.getHeight(); row++) {
-      for (int col = 0; col < sourceImage.getWidth(); col++) {
-        int r = sourceImage.getRedChannel(col, row);
-        int g = sourceImage.getGreenChannel(col, row);
-        int b = sourceImage.getBlueChannel(col, row);
+  public PixelOperation getPixelOperation() {
+    return (pixels, from, to) -> {
+      for (int i = from; i < to; i++) {
+        int rgb = pixels[i];
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
 
         int maxValue = maxValue(r, g, b);
-        newImage.setPixel(col, row, maxValue, maxValue, maxValue);
+        pixels[i] = (maxValue << 16) | (maxValue << 8) | maxValue;
       }
-    }
-    return newImage; //this is a full image, it has setters (IIMage, not IImageState)
+    };
   }
 }
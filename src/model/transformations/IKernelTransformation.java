@@ -0,0 +1,23 @@
+package model.transformations;
+
+import model.IImageState;
+import model.Kernel;
+
+/**
+ * This represents the contract for transformations that convolve the image with a Kernel. A
+ * TransformationPipeline applies the pixel transformations around a kernel transformation while
+ * the kernel reads its source and writes its result, instead of in sweeps of their own.
+ */
+public interface IKernelTransformation extends ITransformation {
+
+  /**
+   * Returns the kernel this transformation convolves the image with.
+   * @return the kernel.
+   */
+  Kernel getKernel();
+
+  @Override
+  default IImageState run(IImageState sourceImage) {
+    return getKernel().applyKernel(sourceImage);
+  }
+}
@@ -0,0 +1,24 @@
+package model.transformations;
+
+import model.IImageState;
+import model.PixelOperation;
+
+/**
+ * This represents the contract for transformations where each pixel of the result depends only on
+ * the same pixel of the source. Such a transformation hands out its work as a PixelOperation, so
+ * that a TransformationPipeline can apply it together with its neighbours in one sweep instead of
+ * writing out an image of its own.
+ */
+public interface IPixelTransformation extends ITransformation {
+
+  /**
+   * Returns the operation this transformation applies to every pixel.
+   * @return the operation, safe to apply to several ranges at once.
+   */
+  PixelOperation getPixelOperation();
+
+  @Override
+  default IImageState run(IImageState sourceImage) {
+    return getPixelOperation().apply(sourceImage);
+  }
+}
@@ -0,0 +1,23 @@
+package model.transformations;
+
+import model.PixelOperation;
+
+/**
+ * This represents the contract for transformations where each channel of the result depends only
+ * on one channel of the same source pixel. Such a transformation is compiled into a LookupTable
+ * once, and running it is a single pass of table lookups over the image. Consecutive point
+ * transformations in a TransformationPipeline are combined into one table.
+ */
+public interface IPointTransformation extends IPixelTransformation {
+
+  /**
+   * Returns this transformation compiled into a lookup table.
+   * @return the table that maps every source pixel to its result.
+   */
+  LookupTable getLookupTable();
+
+  @Override
+  default PixelOperation getPixelOperation() {
+    return getLookupTable();
+  }
+}
@@ -0,0 +1,52 @@
+package model.transformations;
+
+/**
+ * Represents a levels adjustment. The user picks the shadow, mid and highlight points b, m and w
+ * with 0 <= b < m < w <= 255, and every channel value is mapped through the quadratic curve that
+ * sends b to 0, m to 128 and w to 255. Values below b become 0 and values above w become 255.
+ */
+public class LevelsAdjustTransformation implements IPointTransformation {
+  private final int black;
+  private final int mid;
+  private final int white;
+
+  /**
+   * Constructor of a LevelsAdjustTransformation object.
+   * @param black the value that becomes 0, the shadow point.
+   * @param mid the value that becomes 128, the mid point.
+   * @param white the value that becomes 255, the highlight point.
+   * @throws IllegalArgumentException if the points are not increasing within [0, 255].
+   */
+  public LevelsAdjustTransformation(int black, int mid, int white)
+          throws IllegalArgumentException {
+    if (black < 0 || black >= mid || mid >= white || white > 255) {
+      throw new IllegalArgumentException("Levels must satisfy 0 <= black < mid < white <= 255.");
+    }
+    this.black = black;
+    this.mid = mid;
+    this.white = white;
+  }
+
+  @Override
+  public LookupTable getLookupTable() {
+    // coefficients of y = a x^2 + b x + c through (black, 0), (mid, 128) and (white, 255)
+    double b = this.black;
+    double m = this.mid;
+    double w = this.white;
+    double denominator = b * b * (m - w) - b * (m * m - w * w) + w * m * m - m * w * w;
+    double a = (-b * (128 - 255) + 128 * w - 255 * m) / denominator;
+    double linear = (b * b * (128 - 255) + 255 * m * m - 128 * w * w) / denominator;
+    double constant = (b * b * (255 * m - 128 * w) - b * (255 * m * m - 128 * w * w))
+            / denominator;
+    return LookupTable.perChannel(value -> {
+      if (value <= this.black) {
+        return 0;
+      }
+      if (value >= this.white) {
+        return 255;
+      }
+      long mapped = Math.round(a * value * value + linear * value + constant);
+      return (int) Math.max(0, Math.min(255, mapped));
+    });
+  }
+}
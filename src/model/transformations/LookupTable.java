@@ -0,0 +1,139 @@
+package model.transformations;
+
+import java.util.function.IntUnaryOperator;
+
+import model.PixelOperation;
+
+/**
+ * Represents a per-pixel operation compiled into lookup tables. Each of the three output channels
+ * is read from one source channel (usually the same one) through a table of 256 entries, so
+ * however much arithmetic went into the mapping, applying it costs three lookups per pixel.
+ *
+ * <p>Two tables applied one after the other can always be combined into a single table, see
+ * {@link #andThen(LookupTable)}, which lets a chain of point operations run as one pass.
+ */
+public final class LookupTable implements PixelOperation {
+  private static final int[] SHIFTS = {16, 8, 0};
+
+  // one table per output channel, red first, with every entry already shifted into place
+  private final int[][] tables;
+  // which source channel each output channel reads, as the shift of that channel
+  private final int[] sources;
+  // true if every table maps each value to itself, so the table only moves channels around
+  private final boolean identity;
+
+  private LookupTable(int[][] values, int[] sources) {
+    this.tables = new int[3][256];
+    boolean same = true;
+    for (int c = 0; c < 3; c++) {
+      for (int v = 0; v < 256; v++) {
+        this.tables[c][v] = values[c][v] << SHIFTS[c];
+        same &= values[c][v] == v;
+      }
+    }
+    this.sources = sources;
+    this.identity = same;
+  }
+
+  /**
+   * Compiles one mapping that is applied to each of the three channels on its own.
+   * @param mapping the new value of a channel given its old value.
+   * @return the compiled table.
+   * @throws IllegalArgumentException if the mapping gives a value outside [0, 255].
+   */
+  public static LookupTable perChannel(IntUnaryOperator mapping) throws IllegalArgumentException {
+    return perChannel(mapping, mapping, mapping);
+  }
+
+  /**
+   * Compiles a separate mapping for each channel, each applied to that channel's old value.
+   * @param red the new red value given the old red value.
+   * @param green the new green value given the old green value.
+   * @param blue the new blue value given the old blue value.
+   * @return the compiled table.
+   * @throws IllegalArgumentException if a mapping gives a value outside [0, 255].
+   */
+  public static LookupTable perChannel(IntUnaryOperator red, IntUnaryOperator green,
+                                       IntUnaryOperator blue) throws IllegalArgumentException {
+    IntUnaryOperator[] mappings = {red, green, blue};
+    int[][] values = new int[3][256];
+    for (int c = 0; c < 3; c++) {
+      for (int v = 0; v < 256; v++) {
+        int mapped = mappings[c].applyAsInt(v);
+        if (mapped < 0 || mapped > 255) {
+          throw new IllegalArgumentException("Pixel values out of bounds.");
+        }
+        values[c][v] = mapped;
+      }
+    }
+    return new LookupTable(values, SHIFTS.clone());
+  }
+
+  /**
+   * Returns the table that copies one channel into all three, turning the image greyscale.
+   * @param shift the channel to copy: 16 for red, 8 for green, 0 for blue.
+   * @return the table.
+   * @throws IllegalArgumentException if the shift is not 16, 8 or 0.
+   */
+  public static LookupTable greyscaleFrom(int shift) throws IllegalArgumentException {
+    if (shift != 16 && shift != 8 && shift != 0) {
+      throw new IllegalArgumentException("Channel shift must be 16, 8 or 0.");
+    }
+    int[][] values = new int[3][256];
+    for (int c = 0; c < 3; c++) {
+      for (int v = 0; v < 256; v++) {
+        values[c][v] = v;
+      }
+    }
+    return new LookupTable(values, new int[] {shift, shift, shift});
+  }
+
+  /**
+   * Combines this table with one applied after it into a single table with the same effect, so
+   * the two cost a single set of lookups.
+   * @param next the table applied to the output of this one.
+   * @return a table that does both in one pass.
+   */
+  public LookupTable andThen(LookupTable next) {
+    int[][] values = new int[3][256];
+    int[] sources = new int[3];
+    for (int c = 0; c < 3; c++) {
+      // next reads channel "via" of this table's output, which this table reads from its source
+      int via = channelIndex(next.sources[c]);
+      sources[c] = this.sources[via];
+      for (int v = 0; v < 256; v++) {
+        int intermediate = this.tables[via][v] >> SHIFTS[via];
+        values[c][v] = next.tables[c][intermediate] >> SHIFTS[c];
+      }
+    }
+    return new LookupTable(values, sources);
+  }
+
+  @Override
+  public void apply(int[] pixels, int from, int to) {
+    int[] red = this.tables[0];
+    int[] green = this.tables[1];
+    int[] blue = this.tables[2];
+    int redSource = this.sources[0];
+    int greenSource = this.sources[1];
+    int blueSource = this.sources[2];
+    if (this.identity) {
+      // plain shifts and masks vectorise, where three table lookups per pixel cannot
+      for (int i = from; i < to; i++) {
+        int rgb = pixels[i];
+        pixels[i] = ((rgb >> redSource) & 0xFF) << 16 | ((rgb >> greenSource) & 0xFF) << 8
+                | (rgb >> blueSource) & 0xFF;
+      }
+      return;
+    }
+    for (int i = from; i < to; i++) {
+      int rgb = pixels[i];
+      pixels[i] = red[(rgb >> redSource) & 0xFF] | green[(rgb >> greenSource) & 0xFF]
+              | blue[(rgb >> blueSource) & 0xFF];
+    }
+  }
+
+  private static int channelIndex(int shift) {
+    return shift == 16 ? 0 : shift == 8 ? 1 : 2;
+  }
+}
@@ -0,0 +1,28 @@
+package model.transformations;
+
+/**
+ * Represents a posterize transformation, which reduces every channel to a number of evenly spaced
+ * levels between 0 and 255. Each value moves to the nearest level, so 2 levels leaves only 0 and
+ * 255 and 256 levels leaves the image unchanged.
+ */
+public class PosterizeTransformation implements IPointTransformation {
+  private final int levels;
+
+  /**
+   * Constructor of a PosterizeTransformation object.
+   * @param levels how many values each channel may take, from 2 to 256.
+   * @throws IllegalArgumentException if the number of levels is outside [2, 256].
+   */
+  public PosterizeTransformation(int levels) throws IllegalArgumentException {
+    if (levels < 2 || levels > 256) {
+      throw new IllegalArgumentException("Number of levels must be between 2 and 256.");
+    }
+    this.levels = levels;
+  }
+
+  @Override
+  public LookupTable getLookupTable() {
+    double step = 255.0 / (this.levels - 1);
+    return LookupTable.perChannel(value -> (int) Math.round(Math.round(value / step) * step));
+  }
+}
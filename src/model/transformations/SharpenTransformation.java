@@ -7,7 +7,7 @@ import model.Kernel;
  * Represents a transformation on all images where the image is being sharpened. An image can be
  * sharpened by applying a 5x5 Kernel of calculations to each Pixel in the image.
  */
-public class SharpenTransformation implements ITransformation {
+public class SharpenTransformation implements IKernelTransformation {
   private int row; // row position of target pixel
   private int col; // col position of target pixel
 
@@ -32,7 +32,7 @@ public class SharpenTransformation implements ITransformation {
   }
 
   @Override
-  public IImageState run(IImageState sourceImage) {
+  public Kernel getKernel() {
 
     double[][] kernelValues = {
             {(-0.125), (-0.125), (-0.125), (-0.125), (-0.125)},
@@ -42,8 +42,12 @@ public class SharpenTransformation implements ITransformation {
             {(-0.125), (-0.125), (-0.125), (-0.125), (-0.125)}
     };
 
-    Kernel newKernel = new Kernel(5, kernelValues);
-    IImageState processedImage = newKernel.applyKernel(sourceImage);
+    return new Kernel(5, kernelValues);
+  }
+
+  @Override
+  public IImageState run(IImageState sourceImage) {
+    IImageState processedImage = getKernel().applyKernel(sourceImage);
 
     return processedImage;
   }
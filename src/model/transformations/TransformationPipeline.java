@@ -0,0 +1,155 @@
+package model.transformations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.IImageState;
+import model.Kernel;
+import model.PixelOperation;
+
+/**
+ * Represents a chain of transformations run one after the other, fused so that the chain sweeps
+ * over the image as few times as possible. Running each transformation on its own writes out a
+ * complete image for every step; the pipeline instead groups the steps into passes:
+ * <ul>
+ *   <li>consecutive point transformations are combined into a single lookup table;</li>
+ *   <li>consecutive pixel transformations are applied one after the other to the same row while
+ *   it is in cache;</li>
+ *   <li>pixel transformations just before a kernel transformation are applied as the kernel reads
+ *   its source, and those just after it as the kernel writes its result.</li>
+ * </ul>
+ * Any other transformation is a pass of its own. The result is always the same as running the
+ * transformations one by one.
+ */
+public class TransformationPipeline implements ITransformation {
+  private final List<ITransformation> stages;
+
+  /**
+   * Constructs an empty TransformationPipeline, which returns a copy of its source when run.
+   */
+  public TransformationPipeline() {
+    this.stages = new ArrayList<>();
+  }
+
+  /**
+   * Adds a transformation to the end of the pipeline.
+   * @param transformation the transformation to run on the result of the previous ones.
+   * @return this pipeline, so that calls can be chained.
+   * @throws IllegalArgumentException if the transformation is null.
+   */
+  public TransformationPipeline then(ITransformation transformation)
+          throws IllegalArgumentException {
+    if (transformation == null) {
+      throw new IllegalArgumentException("Transformation cannot be null.");
+    }
+    this.stages.add(transformation);
+    return this;
+  }
+
+  /**
+   * Returns how many sweeps over the image running the pipeline takes once it is fused.
+   * @return the number of passes.
+   */
+  public int getPassCount() {
+    return plan().size();
+  }
+
+  @Override
+  public IImageState run(IImageState sourceImage) {
+    List<Pass> passes = plan();
+    if (passes.isEmpty()) {
+      return LookupTable.perChannel(value -> value).apply(sourceImage);
+    }
+    IImageState image = sourceImage;
+    for (Pass pass : passes) {
+      image = pass.run(image);
+    }
+    return image;
+  }
+
+  // Groups the stages into passes, see the class comment
+  private List<Pass> plan() {
+    List<Pass> passes = new ArrayList<>();
+    Pass current = new Pass();
+    for (ITransformation stage : this.stages) {
+      if (stage instanceof IPixelTransformation) {
+        if (current.kernel != null) {
+          current.after.add((IPixelTransformation) stage);
+        } else {
+          current.before.add((IPixelTransformation) stage);
+        }
+        continue;
+      }
+      if (stage instanceof IKernelTransformation && current.kernel == null) {
+        current.kernel = ((IKernelTransformation) stage).getKernel();
+        continue;
+      }
+      if (!current.isEmpty()) {
+        passes.add(current);
+        current = new Pass();
+      }
+      if (stage instanceof IKernelTransformation) {
+        current.kernel = ((IKernelTransformation) stage).getKernel();
+      } else {
+        current.other = stage;
+        passes.add(current);
+        current = new Pass();
+      }
+    }
+    if (!current.isEmpty()) {
+      passes.add(current);
+    }
+    return passes;
+  }
+
+  /**
+   * Combines a run of pixel transformations into one operation. Neighbouring point
+   * transformations become a single lookup table first.
+   */
+  private static PixelOperation fuse(List<IPixelTransformation> transformations) {
+    PixelOperation fused = null;
+    LookupTable table = null;
+    for (IPixelTransformation transformation : transformations) {
+      if (transformation instanceof IPointTransformation) {
+        LookupTable next = ((IPointTransformation) transformation).getLookupTable();
+        table = table == null ? next : table.andThen(next);
+        continue;
+      }
+      fused = append(append(fused, table), transformation.getPixelOperation());
+      table = null;
+    }
+    return append(fused, table);
+  }
+
+  private static PixelOperation append(PixelOperation first, PixelOperation second) {
+    if (first == null) {
+      return second;
+    }
+    return second == null ? first : first.andThen(second);
+  }
+
+  /**
+   * One sweep over the image: either a transformation that cannot be fused, or an optional
+   * kernel with the pixel operations before and after it.
+   */
+  private static class Pass {
+    private final List<IPixelTransformation> before = new ArrayList<>();
+    private final List<IPixelTransformation> after = new ArrayList<>();
+    private Kernel kernel;
+    private ITransformation other;
+
+    boolean isEmpty() {
+      return before.isEmpty() && kernel == null && other == null;
+    }
+
+    IImageState run(IImageState image) {
+      if (other != null) {
+        return other.run(image);
+      }
+      if (kernel != null) {
+        return kernel.applyKernel(image, fuse(before), fuse(after));
+      }
+      return fuse(before).apply(image);
+    }
+  }
+}
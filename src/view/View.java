@@ -5,7 +5,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.List;
 import java.util.ArrayList;
@@ -286,9 +285,9 @@ public class View extends JFrame implements ActionListener, IView {
       try {
         //save the current image to selected file path
         if (selectedPath.toLowerCase().endsWith(".ppm")) {
-          IImageState saveImage = ImageUtil.convertToIImageState(currentImage);
+          IImageState saveImage = ImageUtil.wrap(currentImage);
 
-          PPMImageSaver ppmImageSaver = new PPMImageSaver(selectedPath, saveImage, new FileWriter(selectedFile));
+          PPMImageSaver ppmImageSaver = new PPMImageSaver(selectedPath, saveImage);
           ppmImageSaver.run();
         } else {
           ImageIO.write(currentImage, "png", selectedFile); // TO CHANGE THIS TO JPG OR PNG WITH IF LOGIC!!
@@ -0,0 +1,94 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+
+import controller.ControllerImpl;
+import controller.ImageUtil;
+import controller.io.BMPImageSaver;
+import model.IImage;
+import model.IImageDataBase;
+import model.IImageState;
+import model.ImageDataBase;
+import model.PackedImageImpl;
+
+/**
+ * Represents the tests for BMPImageSaver, which writes 24 bit BMP files by hand, and for loading
+ * and saving BMP files through the commands.
+ */
+public class BMPImageSaverTest {
+
+  private static String temporary() throws IOException {
+    File file = File.createTempFile("saver", ".bmp");
+    file.deleteOnExit();
+    return file.getPath();
+  }
+
+  @Test
+  public void testExactBytes() throws IOException {
+    IImage image = new PackedImageImpl(1, 2);
+    image.setPixel(0, 0, 1, 2, 3);
+    image.setPixel(0, 1, 4, 5, 6);
+    String path = temporary();
+    new BMPImageSaver(path, image).run();
+    byte[] bytes = Files.readAllBytes(new File(path).toPath());
+
+    assertEquals(54 + 2 * 4, bytes.length);
+    assertEquals('B', bytes[0]);
+    assertEquals('M', bytes[1]);
+    assertEquals(62, bytes[2]);
+    assertEquals(54, bytes[10]);
+    assertEquals(24, bytes[28]);
+    // the bottom row comes first, in blue, green, red order and padded to 4 bytes
+    byte[] pixels = new byte[8];
+    System.arraycopy(bytes, 54, pixels, 0, 8);
+    assertArrayEquals(new byte[] {6, 5, 4, 0, 3, 2, 1, 0}, pixels);
+  }
+
+  @Test
+  public void testRoundTripEveryPadding() throws IOException {
+    for (int width = 1; width <= 4; width++) {
+      IImageState image = KernelTest.randomImage(width, 5, width);
+      String path = temporary();
+      new BMPImageSaver(path, image).run();
+      assertEquals(54 + ((3 * width + 3) / 4 * 4) * 5, new File(path).length());
+      KernelTest.assertSameImage(image, ImageUtil.readBMP(path));
+    }
+  }
+
+  @Test
+  public void testStreamMatchesFile() throws IOException {
+    IImageState image = KernelTest.randomImage(7, 3, 11);
+    String direct = temporary();
+    new BMPImageSaver(direct, image).run();
+    String streamed = temporary();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    new BMPImageSaver(streamed, image, output).run();
+
+    byte[] expected = Files.readAllBytes(new File(direct).toPath());
+    assertArrayEquals(expected, output.toByteArray());
+    assertArrayEquals(expected, Files.readAllBytes(new File(streamed).toPath()));
+  }
+
+  @Test
+  public void testCommands() throws IOException {
+    IImageDataBase model = new ImageDataBase();
+    IImageState image = KernelTest.randomImage(6, 5, 21);
+    model.add("img", image);
+    String path = temporary();
+    new ControllerImpl(new StringReader("save " + path + " img\nload " + path + " a\n"
+            + "loadBMP " + path + " b\n"), model, new StringBuilder()).start();
+    KernelTest.assertSameImage(image, model.get("a"));
+    KernelTest.assertSameImage(image, model.get("b"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUnwritableFile() {
+    new BMPImageSaver("no/such/directory/image.bmp", new PackedImageImpl(1, 1)).run();
+  }
+}
@@ -0,0 +1,43 @@
+import java.io.IOException;
+
+import model.IImageState;
+import model.transformations.FastGaussianBlurTransformation;
+import model.transformations.GaussianBlurTransformation;
+import model.transformations.ITransformation;
+
+/**
+ * Compares the separable GaussianBlurTransformation against the FastGaussianBlurTransformation
+ * built from summed-area tables, at the large radii used for background softening. The fast blur
+ * should take about the same time at every radius.
+ * Usage: java BlurBenchmark [scale] (the default scale is 4).
+ */
+public class BlurBenchmark {
+
+  /**
+   * Runs the benchmark from the project root.
+   * @param args optional scale factor applied to each side of res/Lake.png.
+   * @throws IOException if res/Lake.png cannot be read.
+   */
+  public static void main(String[] args) throws IOException {
+    int scale = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+    IImageState image = KernelBenchmark.tiledLake(scale);
+    System.out.println("Image size: " + image.getWidth() + "x" + image.getHeight());
+
+    for (int radius : new int[] {5, 20, 50, 100}) {
+      System.out.printf("radius %3d: gaussian %6d ms  fast %6d ms%n", radius,
+              best(new GaussianBlurTransformation(radius), image) / 1000000,
+              best(new FastGaussianBlurTransformation(radius), image) / 1000000);
+    }
+  }
+
+  private static long best(ITransformation transformation, IImageState image) {
+    transformation.run(image); // warm up
+    long best = Long.MAX_VALUE;
+    for (int run = 0; run < 3; run++) {
+      long start = System.nanoTime();
+      transformation.run(image);
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+}
@@ -0,0 +1,111 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import controller.BufferedImageState;
+import controller.ImageUtil;
+import model.IImageState;
+
+/**
+ * Represents the tests for BufferedImageState and the conversions in ImageUtil, which read and
+ * write the arrays behind a BufferedImage's raster and must give the same pixels as going through
+ * BufferedImage.getRGB one pixel at a time.
+ */
+public class BufferedImageStateTest {
+
+  private static BufferedImage randomBufferedImage(int width, int height, int type, long seed) {
+    BufferedImage image = new BufferedImage(width, height, type);
+    Random random = new Random(seed);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        image.setRGB(x, y, random.nextInt());
+      }
+    }
+    return image;
+  }
+
+  private static void assertSamePixels(BufferedImage expected, IImageState actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        int rgb = expected.getRGB(x, y);
+        assertEquals((rgb >> 16) & 0xFF, actual.getRedChannel(x, y));
+        assertEquals((rgb >> 8) & 0xFF, actual.getGreenChannel(x, y));
+        assertEquals(rgb & 0xFF, actual.getBlueChannel(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testEveryWrappedType() {
+    int[] types = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+        BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR};
+    for (int type : types) {
+      BufferedImage image = randomBufferedImage(9, 5, type, type);
+      assertTrue(BufferedImageState.isSupported(image));
+      IImageState wrapped = new BufferedImageState(image);
+      assertSamePixels(image, wrapped);
+      assertSamePixels(image, ImageUtil.convertToIImageState(image));
+      KernelTest.assertSameImage(wrapped, ImageUtil.convertToIImageState(image));
+    }
+  }
+
+  @Test
+  public void testUnsupportedTypeIsCopied() {
+    BufferedImage image = randomBufferedImage(6, 4, BufferedImage.TYPE_BYTE_GRAY, 5);
+    assertFalse(BufferedImageState.isSupported(image));
+    assertFalse(ImageUtil.wrap(image) instanceof BufferedImageState);
+    assertSamePixels(image, ImageUtil.wrap(image));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedTypeIsRejected() {
+    new BufferedImageState(new BufferedImage(2, 2, BufferedImage.TYPE_USHORT_565_RGB));
+  }
+
+  @Test
+  public void testSubimage() {
+    // a subimage shares the raster of its parent, translated and with the parent's row length
+    for (int type : new int[] {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR}) {
+      BufferedImage parent = randomBufferedImage(12, 10, type, 8);
+      BufferedImage part = parent.getSubimage(3, 2, 5, 6);
+      assertSamePixels(part, new BufferedImageState(part));
+
+      int[] rows = new int[5 * 2];
+      new BufferedImageState(part).getRGB(0, 4, 5, 2, rows, 0, 5);
+      for (int i = 0; i < rows.length; i++) {
+        assertEquals(part.getRGB(i % 5, 4 + i / 5) & 0xFFFFFF, rows[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testWrapDoesNotCopy() {
+    BufferedImage image = new BufferedImage(3, 3, BufferedImage.TYPE_3BYTE_BGR);
+    IImageState wrapped = ImageUtil.wrap(image);
+    image.setRGB(1, 2, 0x102030);
+    assertEquals(0x10, wrapped.getRedChannel(1, 2));
+    assertEquals(0x20, wrapped.getGreenChannel(1, 2));
+    assertEquals(0x30, wrapped.getBlueChannel(1, 2));
+  }
+
+  @Test
+  public void testRoundTrip() {
+    IImageState image = KernelTest.randomImage(17, 11, 4);
+    BufferedImage buffered = ImageUtil.convertToBufferedImage(image);
+    assertEquals(BufferedImage.TYPE_INT_RGB, buffered.getType());
+    KernelTest.assertSameImage(image, ImageUtil.wrap(buffered));
+    KernelTest.assertSameImage(image, ImageUtil.convertToIImageState(buffered));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOutOfBounds() {
+    new BufferedImageState(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB))
+            .getRedChannel(2, 0);
+  }
+}
@@ -0,0 +1,144 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import controller.ControllerImpl;
+import model.CompressingImageDataBase;
+import model.IImage;
+import model.IImageState;
+import model.ImageDataBase;
+import model.PackedImageImpl;
+
+/**
+ * Represents the tests for CompressingImageDataBase, which keeps the images that went cold
+ * compressed in memory.
+ */
+public class CompressingImageDataBaseTest {
+
+  // a grey ramp from left to right, which compresses well
+  private static IImageState ramp(int width, int height, int step) {
+    IImage image = new PackedImageImpl(width, height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int value = (x * step) & 0xFF;
+        image.setPixel(x, y, value, value, value);
+      }
+    }
+    return image;
+  }
+
+  @Test
+  public void testIdleImagesAreCompressed() {
+    // no idle time at all, so every image but the last one used goes cold
+    CompressingImageDataBase images = new CompressingImageDataBase(Long.MAX_VALUE, 0);
+    IImageState a = KernelTest.randomImage(10, 10, 1);
+    IImageState b = KernelTest.randomImage(10, 10, 2);
+    IImageState c = KernelTest.randomImage(7, 3, 3);
+    images.add("a", a);
+    images.add("b", b);
+    images.add("c", c);
+    assertEquals(2, images.getCompressions());
+    assertEquals(7 * 3 * 4, images.getHotBytes());
+    assertSame(c, images.get("c"));
+    assertEquals(0, images.getDecompressions());
+
+    KernelTest.assertSameImage(a, images.get("a"));
+    assertEquals(1, images.getDecompressions());
+    assertEquals(3, images.getCompressions());
+    assertEquals(10 * 10 * 4, images.getHotBytes());
+    KernelTest.assertSameImage(b, images.get("b"));
+    KernelTest.assertSameImage(c, images.get("c"));
+    assertEquals(3, images.getDecompressions());
+    assertTrue(images.getAverageDecompressionNanos() > 0);
+    assertNull(images.get("d"));
+  }
+
+  @Test
+  public void testBudget() {
+    // the images are never idle for long enough, so only the budget makes them go cold
+    CompressingImageDataBase images = new CompressingImageDataBase(1000, Long.MAX_VALUE);
+    IImageState a = ramp(10, 10, 10);
+    IImageState b = ramp(10, 10, 20);
+    IImageState c = ramp(10, 10, 30);
+    images.add("a", a);
+    images.add("b", b);
+    assertEquals(0, images.getCompressions());
+    images.add("c", c); // a was used least recently
+    assertEquals(1, images.getCompressions());
+    assertEquals(800, images.getHotBytes());
+    assertTrue(images.getColdBytes() < 100);
+    assertTrue(images.getCompressionRatio() > 4);
+    assertSame(b, images.get("b"));
+    assertSame(c, images.get("c"));
+    // reading a back makes b the least recently used
+    KernelTest.assertSameImage(a, images.get("a"));
+    assertEquals(2, images.getCompressions());
+    KernelTest.assertSameImage(b, images.get("b"));
+  }
+
+  @Test
+  public void testCodec() {
+    CompressingImageDataBase images = new CompressingImageDataBase(0, 0);
+    // large differences, long runs across rows, and images with no pixels at all
+    IImageState random = KernelTest.randomImage(31, 17, 4);
+    IImageState flat = ramp(200, 3, 0);
+    IImageState wrapping = ramp(300, 2, 7);
+    IImageState empty = new PackedImageImpl(0, 5);
+    images.add("random", random);
+    images.add("flat", flat);
+    images.add("wrapping", wrapping);
+    images.add("empty", empty);
+    images.add("last", random);
+    assertEquals(4, images.getCompressions());
+    KernelTest.assertSameImage(random, images.get("random"));
+    KernelTest.assertSameImage(flat, images.get("flat"));
+    KernelTest.assertSameImage(wrapping, images.get("wrapping"));
+    KernelTest.assertSameImage(empty, images.get("empty"));
+  }
+
+  @Test
+  public void testReplacedImages() {
+    CompressingImageDataBase images = new CompressingImageDataBase(0, 0);
+    IImageState last = null;
+    for (int i = 0; i < 20; i++) {
+      last = KernelTest.randomImage(8, 5, i);
+      images.add("img", last);
+      images.add("other" + i % 3, ramp(3, 4, i));
+    }
+    assertEquals(4, images.getImages().size());
+    KernelTest.assertSameImage(last, images.get("img"));
+    KernelTest.assertSameImage(ramp(3, 4, 19), images.get("other1"));
+    KernelTest.assertSameImage(ramp(3, 4, 18), images.get("other0"));
+    // only other0 is hot, and the bytes of the replaced images are gone
+    assertEquals(3 * 4 * 4, images.getHotBytes());
+    assertTrue(images.getColdBytes() < (8 * 5 + 2 * 3 * 4) * 4);
+  }
+
+  @Test
+  public void testScriptMatchesImageDataBase() {
+    String script = "load res/Lake.png lake\nblur lake soft\nsharpen lake crisp\n"
+            + "luma-component soft grey\nbrighten 40 grey bright\nposterize 4 crisp flat\n";
+    ImageDataBase expected = new ImageDataBase();
+    new ControllerImpl(new StringReader(script), expected, new StringBuilder()).start();
+    CompressingImageDataBase images = new CompressingImageDataBase(0, 0);
+    new ControllerImpl(new StringReader(script), images, new StringBuilder()).start();
+
+    // a photo takes well under the 4 bytes a pixel it takes uncompressed
+    assertTrue(images.getCompressionRatio() > 1.5);
+    Map<String, IImageState> all = images.getImages();
+    assertEquals(expected.getImages().size(), all.size());
+    for (String id : expected.getImages().keySet()) {
+      KernelTest.assertSameImage(expected.get(id), all.get(id));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeIdleTime() {
+    new CompressingImageDataBase(100, -1);
+  }
+}
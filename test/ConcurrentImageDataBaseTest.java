@@ -0,0 +1,158 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import controller.ControllerImpl;
+import model.ConcurrentImageDataBase;
+import model.IImageState;
+import model.ImageDataBase;
+import model.PackedImageImpl;
+
+/**
+ * Represents the tests for ConcurrentImageDataBase, which several threads and scripts may use at
+ * once.
+ */
+public class ConcurrentImageDataBaseTest {
+
+  private static void runAll(List<Runnable> tasks) throws InterruptedException {
+    List<Thread> threads = new ArrayList<>();
+    for (Runnable task : tasks) {
+      threads.add(new Thread(task));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+  }
+
+  @Test
+  public void testAddAndGet() {
+    ConcurrentImageDataBase images = new ConcurrentImageDataBase();
+    IImageState a = KernelTest.randomImage(3, 3, 1);
+    IImageState b = KernelTest.randomImage(3, 3, 2);
+    assertNull(images.get("a"));
+    images.add("a", a);
+    assertSame(a, images.get("a"));
+    images.add("a", b);
+    assertSame(b, images.get("a"));
+  }
+
+  @Test
+  public void testSnapshot() {
+    ConcurrentImageDataBase images = new ConcurrentImageDataBase();
+    images.add("a", KernelTest.randomImage(2, 2, 1));
+    Map<String, IImageState> snapshot = images.getImages();
+    images.add("b", KernelTest.randomImage(2, 2, 2));
+    assertEquals(1, snapshot.size());
+    assertFalse(snapshot.containsKey("b"));
+    assertEquals(2, images.getImages().size());
+  }
+
+  @Test
+  public void testSnapshotIsOneMoment() throws InterruptedException {
+    ConcurrentImageDataBase images = new ConcurrentImageDataBase();
+    IImageState image = new PackedImageImpl(1, 1);
+    int count = 20000;
+    List<String> failures = new ArrayList<>();
+    List<Runnable> tasks = new ArrayList<>();
+    for (int w = 0; w < 2; w++) {
+      String writer = "w" + w + "-";
+      tasks.add(() -> {
+        for (int i = 0; i < count; i++) {
+          images.add(writer + i, image);
+        }
+      });
+    }
+    for (int r = 0; r < 2; r++) {
+      tasks.add(() -> {
+        for (int i = 0; i < 200; i++) {
+          Map<String, IImageState> snapshot = images.getImages();
+          // each writer adds its ids in order, so the ones in the copy must be the first ones
+          for (int w = 0; w < 2; w++) {
+            int present = 0;
+            int last = -1;
+            for (int k = 0; k < count; k++) {
+              if (snapshot.containsKey("w" + w + "-" + k)) {
+                present++;
+                last = k;
+              }
+            }
+            if (present != last + 1) {
+              synchronized (failures) {
+                failures.add("writer " + w + ": " + present + " ids, last " + last);
+              }
+            }
+          }
+        }
+      });
+    }
+    runAll(tasks);
+    assertEquals(List.of(), failures);
+    assertEquals(2 * count, images.getImages().size());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSnapshotCannotChange() {
+    ConcurrentImageDataBase images = new ConcurrentImageDataBase();
+    images.getImages().put("a", KernelTest.randomImage(2, 2, 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullImage() {
+    new ConcurrentImageDataBase().add("a", null);
+  }
+
+  @Test
+  public void testUpdatesAreNotLost() throws InterruptedException {
+    ConcurrentImageDataBase images = new ConcurrentImageDataBase();
+    // the width of the image counts the updates
+    images.add("count", new PackedImageImpl(0, 1));
+    List<Runnable> tasks = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      String own = "own" + t;
+      tasks.add(() -> {
+        for (int i = 0; i < 200; i++) {
+          images.update("count", current -> new PackedImageImpl(current.getWidth() + 1, 1));
+          images.add(own, KernelTest.randomImage(2, 2, i));
+        }
+      });
+    }
+    runAll(tasks);
+    assertEquals(800, images.get("count").getWidth());
+    assertEquals(5, images.getImages().size());
+  }
+
+  @Test
+  public void testScriptsShareOneDatabase() throws InterruptedException {
+    String[] scripts = new String[4];
+    for (int s = 0; s < scripts.length; s++) {
+      scripts[s] = "load res/Lake.png lake" + s + "\nbrighten " + (10 * s) + " lake" + s + " b" + s
+              + "\nblur b" + s + " c" + s + "\n";
+    }
+    ImageDataBase expected = new ImageDataBase();
+    for (String script : scripts) {
+      new ControllerImpl(new StringReader(script), expected, new StringBuilder()).start();
+    }
+
+    ConcurrentImageDataBase images = new ConcurrentImageDataBase();
+    List<Runnable> tasks = new ArrayList<>();
+    for (String script : scripts) {
+      tasks.add(() -> new ControllerImpl(new StringReader(script), images, new StringBuilder())
+              .start());
+    }
+    runAll(tasks);
+    assertEquals(expected.getImages().keySet(), images.getImages().keySet());
+    for (String id : expected.getImages().keySet()) {
+      KernelTest.assertSameImage(expected.get(id), images.get(id));
+    }
+  }
+}
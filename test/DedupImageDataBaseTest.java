@@ -0,0 +1,99 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import controller.ControllerImpl;
+import model.DedupImageDataBase;
+import model.IImage;
+import model.IImageState;
+import model.ImageImpl;
+import model.PackedImageImpl;
+
+/**
+ * Represents the tests for DedupImageDataBase, which keeps one copy of each distinct image.
+ */
+public class DedupImageDataBaseTest {
+
+  @Test
+  public void testImagesAreMatchedByContent() {
+    IImageState source = KernelTest.randomImage(7, 5, 3);
+    IImage pixels = new ImageImpl(7, 5);
+    IImage changed = new PackedImageImpl(7, 5);
+    for (int y = 0; y < 5; y++) {
+      for (int x = 0; x < 7; x++) {
+        pixels.setPixel(x, y, source.getRedChannel(x, y), source.getGreenChannel(x, y),
+                source.getBlueChannel(x, y));
+        changed.setPixel(x, y, source.getRedChannel(x, y), source.getGreenChannel(x, y),
+                source.getBlueChannel(x, y));
+      }
+    }
+    int red = changed.getRedChannel(2, 3);
+    changed.setPixel(2, 3, (red + 1) % 256, changed.getGreenChannel(2, 3),
+            changed.getBlueChannel(2, 3));
+
+    DedupImageDataBase images = new DedupImageDataBase();
+    images.add("source", source);
+    // the same pixels in another kind of image
+    images.add("pixels", pixels);
+    assertSame(source, images.get("pixels"));
+    // one pixel apart
+    images.add("changed", changed);
+    assertSame(changed, images.get("changed"));
+    // the same black pixels in a different shape
+    images.add("wide", new PackedImageImpl(3, 2));
+    images.add("tall", new PackedImageImpl(2, 3));
+    assertNotSame(images.get("wide"), images.get("tall"));
+    assertEquals(4, images.getUniqueImages());
+    // a copy that is already kept is shared again when it is added under another id
+    images.add("again", changed);
+    assertEquals(4, images.getUniqueImages());
+    assertEquals(4 * 35 * 4 + 2 * 6 * 4, images.getLogicalBytes());
+    assertEquals(2 * 35 * 4 + 2 * 6 * 4, images.getPhysicalBytes());
+  }
+
+  @Test
+  public void testIdenticalImagesShareACopy() {
+    DedupImageDataBase images = new DedupImageDataBase();
+    IImageState a = KernelTest.randomImage(10, 10, 1);
+    IImageState same = KernelTest.randomImage(10, 10, 1);
+    IImageState other = KernelTest.randomImage(10, 10, 2);
+    images.add("a", a);
+    images.add("b", same);
+    images.add("c", other);
+    assertSame(a, images.get("b"));
+    assertNotSame(a, images.get("c"));
+    assertEquals(2, images.getUniqueImages());
+    assertEquals(1200, images.getLogicalBytes());
+    assertEquals(800, images.getPhysicalBytes());
+    assertEquals(1.5, images.getDedupRatio(), 1e-9);
+
+    // the copy stays as long as an id refers to it
+    images.add("a", other);
+    assertSame(a, images.get("b"));
+    images.add("b", other);
+    assertEquals(1, images.getUniqueImages());
+    assertEquals(3.0, images.getDedupRatio(), 1e-9);
+  }
+
+  @Test
+  public void testScript() {
+    DedupImageDataBase images = new DedupImageDataBase();
+    new ControllerImpl(new StringReader("load res/Lake.png a\nload res/Lake.png b\n"
+            + "luma-component a grey\nvalue-component grey grey2\nbrighten 5 a c\n"), images,
+            new StringBuilder()).start();
+    assertSame(images.get("a"), images.get("b"));
+    // greyscale of a grey image is the same image
+    assertSame(images.get("grey"), images.get("grey2"));
+    assertEquals(3, images.getUniqueImages());
+    assertEquals(5.0 / 3, images.getDedupRatio(), 1e-9);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullImage() {
+    new DedupImageDataBase().add("a", null);
+  }
+}
@@ -0,0 +1,158 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.file.Files;
+
+import controller.ControllerImpl;
+import model.DirectoryImageDataBase;
+import model.IImageState;
+
+/**
+ * Represents the tests for DirectoryImageDataBase, which keeps its images in a directory that a
+ * later run can open again, and must survive a write cut short by a crash.
+ */
+public class DirectoryImageDataBaseTest {
+
+  private static File directory() throws IOException {
+    File directory = Files.createTempDirectory("store").toFile();
+    directory.deleteOnExit();
+    return directory;
+  }
+
+  private static int rawFiles(File directory) {
+    int count = 0;
+    for (File file : directory.listFiles()) {
+      count += file.getName().endsWith(".raw") ? 1 : 0;
+    }
+    return count;
+  }
+
+  @Test
+  public void testReopen() throws IOException {
+    File directory = directory();
+    IImageState a = KernelTest.randomImage(12, 7, 1);
+    IImageState b = KernelTest.randomImage(5, 9, 2);
+    DirectoryImageDataBase images = new DirectoryImageDataBase(directory);
+    images.add("a", a);
+    images.add("b", b);
+    KernelTest.assertSameImage(a, images.get("a"));
+    images.close();
+
+    DirectoryImageDataBase reopened = new DirectoryImageDataBase(directory);
+    KernelTest.assertSameImage(a, reopened.get("a"));
+    KernelTest.assertSameImage(b, reopened.get("b"));
+    assertEquals(2, reopened.getImages().size());
+    assertNull(reopened.get("c"));
+    reopened.close();
+  }
+
+  @Test
+  public void testReplaceKeepsOneFilePerId() throws IOException {
+    File directory = directory();
+    DirectoryImageDataBase images = new DirectoryImageDataBase(directory);
+    // enough replacements that the index is rewritten along the way
+    for (int i = 0; i < 150; i++) {
+      images.add("img", KernelTest.randomImage(3, 3, i));
+      images.add("other", KernelTest.randomImage(2, 2, i));
+    }
+    assertEquals(2, rawFiles(directory));
+    assertTrue(new File(directory, "index").length() < 100 * 40);
+    images.close();
+
+    DirectoryImageDataBase reopened = new DirectoryImageDataBase(directory);
+    KernelTest.assertSameImage(KernelTest.randomImage(3, 3, 149), reopened.get("img"));
+    KernelTest.assertSameImage(KernelTest.randomImage(2, 2, 149), reopened.get("other"));
+    reopened.close();
+  }
+
+  @Test
+  public void testTornIndexRecord() throws IOException {
+    File directory = directory();
+    IImageState a = KernelTest.randomImage(4, 4, 1);
+    DirectoryImageDataBase images = new DirectoryImageDataBase(directory);
+    images.add("a", a);
+    images.add("b", KernelTest.randomImage(4, 4, 2));
+    images.close();
+
+    // a crash while the second record was being appended leaves part of it behind
+    File index = new File(directory, "index");
+    try (RandomAccessFile file = new RandomAccessFile(index, "rw")) {
+      file.setLength(file.length() - 5);
+    }
+    DirectoryImageDataBase reopened = new DirectoryImageDataBase(directory);
+    KernelTest.assertSameImage(a, reopened.get("a"));
+    assertNull(reopened.get("b"));
+    assertEquals(1, rawFiles(directory));
+    // the index was cut back to its last whole record, so it can be appended to
+    reopened.add("c", a);
+    reopened.close();
+    DirectoryImageDataBase again = new DirectoryImageDataBase(directory);
+    KernelTest.assertSameImage(a, again.get("c"));
+    again.close();
+  }
+
+  @Test
+  public void testLeftoverFilesAreRemoved() throws IOException {
+    File directory = directory();
+    new DirectoryImageDataBase(directory).close();
+    // an image file that was written but never recorded, and one cut short
+    try (FileOutputStream output = new FileOutputStream(new File(directory, "image1.raw"))) {
+      output.write(new byte[40]);
+    }
+    try (FileOutputStream output = new FileOutputStream(new File(directory, "image2.raw.tmp"))) {
+      output.write(new byte[10]);
+    }
+    new DirectoryImageDataBase(directory).close();
+    assertFalse(new File(directory, "image1.raw").exists());
+    assertFalse(new File(directory, "image2.raw.tmp").exists());
+  }
+
+  @Test
+  public void testReplacedFileThatCannotBeDeleted() throws IOException {
+    File directory = directory();
+    DirectoryImageDataBase images = new DirectoryImageDataBase(directory);
+    images.add("a", KernelTest.randomImage(4, 4, 1));
+    // stand in for a file that cannot be deleted yet, as a mapped file on some platforms
+    File old = null;
+    for (File file : directory.listFiles()) {
+      old = file.getName().endsWith(".raw") ? file : old;
+    }
+    assertTrue(old.delete() && old.mkdir());
+    assertTrue(new File(old, "busy").createNewFile());
+
+    IImageState b = KernelTest.randomImage(4, 4, 2);
+    images.add("a", b);
+    KernelTest.assertSameImage(b, images.get("a"));
+    images.close();
+    DirectoryImageDataBase reopened = new DirectoryImageDataBase(directory);
+    KernelTest.assertSameImage(b, reopened.get("a"));
+    reopened.close();
+  }
+
+  @Test
+  public void testScriptAcrossRuns() throws IOException {
+    File directory = directory();
+    DirectoryImageDataBase first = new DirectoryImageDataBase(directory);
+    new ControllerImpl(new StringReader("load res/Lake.png lake\nblur lake soft\n"), first,
+            new StringBuilder()).start();
+    first.close();
+
+    DirectoryImageDataBase second = new DirectoryImageDataBase(directory);
+    new ControllerImpl(new StringReader("sharpen soft crisp\n"), second, new StringBuilder())
+            .start();
+    DirectoryImageDataBase expected = new DirectoryImageDataBase(directory());
+    new ControllerImpl(new StringReader("load res/Lake.png lake\nblur lake soft\n"
+            + "sharpen soft crisp\n"), expected, new StringBuilder()).start();
+    KernelTest.assertSameImage(expected.get("crisp"), second.get("crisp"));
+    second.close();
+    expected.close();
+  }
+}
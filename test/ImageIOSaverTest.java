@@ -0,0 +1,129 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import controller.ImageUtil;
+import controller.io.JPGImageSaver;
+import controller.io.PNGImageSaver;
+import model.IImageState;
+import model.PackedImageImpl;
+
+/**
+ * Represents the tests for the savers of the formats ImageIO writes (PNGImageSaver and
+ * JPGImageSaver), which share one encoder and its cached ImageWriters.
+ */
+public class ImageIOSaverTest {
+
+  private static String temporary(String suffix) throws IOException {
+    File file = File.createTempFile("saver", suffix);
+    file.deleteOnExit();
+    return file.getPath();
+  }
+
+  @Test
+  public void testLosslessRoundTrip() throws IOException {
+    IImageState image = KernelTest.randomImage(23, 14, 6);
+    String png = temporary(".png");
+    new PNGImageSaver(png, image).run();
+    KernelTest.assertSameImage(image, ImageUtil.readPNG(png));
+  }
+
+  @Test
+  public void testJPG() throws IOException {
+    IImageState image = KernelTest.randomImage(20, 9, 2);
+    String jpg = temporary(".jpg");
+    new JPGImageSaver(jpg, image).run();
+    IImageState read = ImageUtil.readJPG(jpg);
+    assertEquals(20, read.getWidth());
+    assertEquals(9, read.getHeight());
+  }
+
+  @Test
+  public void testStreamMatchesFile() throws IOException {
+    IImageState image = KernelTest.randomImage(16, 16, 1);
+    String streamed = temporary(".png");
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    new PNGImageSaver(streamed, image, output).run();
+    String direct = temporary(".png");
+    new PNGImageSaver(direct, image).run();
+
+    byte[] expected = Files.readAllBytes(new File(direct).toPath());
+    assertArrayEquals(expected, output.toByteArray());
+    assertArrayEquals(expected, Files.readAllBytes(new File(streamed).toPath()));
+  }
+
+  @Test
+  public void testReplacesLongerFile() throws IOException {
+    String png = temporary(".png");
+    try (FileOutputStream output = new FileOutputStream(png)) {
+      output.write(new byte[100000]);
+    }
+    IImageState image = KernelTest.randomImage(4, 3, 9);
+    new PNGImageSaver(png, image).run();
+    KernelTest.assertSameImage(image, ImageUtil.readPNG(png));
+  }
+
+  @Test
+  public void testSavesOnSeveralThreads() throws Exception {
+    IImageState image = KernelTest.randomImage(40, 30, 5);
+    String expected = temporary(".png");
+    new PNGImageSaver(expected, image).run();
+
+    List<String> paths = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      String path = temporary(".png");
+      paths.add(path);
+      threads.add(new Thread(() -> new PNGImageSaver(path, image).run()));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    for (String path : paths) {
+      assertArrayEquals(Files.readAllBytes(new File(expected).toPath()),
+              Files.readAllBytes(new File(path).toPath()));
+    }
+  }
+
+  @Test
+  public void testFailedSaveKeepsFile() throws IOException {
+    IImageState image = KernelTest.randomImage(6, 5, 3);
+    String png = temporary(".png");
+    new PNGImageSaver(png, image).run();
+    byte[] saved = Files.readAllBytes(new File(png).toPath());
+    IImageState broken = new PackedImageImpl(6, 5) {
+      @Override
+      public void getRGB(int x, int y, int w, int h, int[] dest, int offset, int scansize) {
+        throw new IllegalStateException("cannot read the image");
+      }
+    };
+    try {
+      new PNGImageSaver(png, broken).run();
+      fail("the save should have failed");
+    } catch (IllegalStateException e) {
+      assertEquals("cannot read the image", e.getMessage());
+    }
+    assertArrayEquals(saved, Files.readAllBytes(new File(png).toPath()));
+    // and no half-written file is left next to it
+    File[] left = new File(png).getAbsoluteFile().getParentFile()
+            .listFiles((directory, name) -> name.startsWith("." + new File(png).getName()));
+    assertEquals(0, left.length);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUnwritableFile() {
+    new PNGImageSaver("no/such/directory/image.png", new PackedImageImpl(1, 1)).run();
+  }
+}
@@ -0,0 +1,83 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import model.IImage;
+import model.ImageImpl;
+import model.PackedImageImpl;
+
+/**
+ * Compares the memory footprint and the fill/read throughput of ImageImpl (one Pixel object per
+ * position) against PackedImageImpl (one packed int per position). res/Lake.png is tiled up by a
+ * scale factor so that the comparison runs on a photo-sized image.
+ * Usage: java ImageStorageBenchmark [scale] (the default scale is 16).
+ */
+public class ImageStorageBenchmark {
+
+  /**
+   * Runs the benchmark from the project root.
+   * @param args optional scale factor applied to each side of res/Lake.png.
+   * @throws IOException if res/Lake.png cannot be read.
+   */
+  public static void main(String[] args) throws IOException {
+    int scale = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+    BufferedImage lake = ImageIO.read(new File("res/Lake.png"));
+    int width = lake.getWidth() * scale;
+    int height = lake.getHeight() * scale;
+    int[] rgb = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        rgb[y * width + x] = lake.getRGB(x % lake.getWidth(), y % lake.getHeight());
+      }
+    }
+    System.out.println("Image size: " + width + "x" + height + " ("
+            + (width * (long) height / 1000000.0) + " MP)");
+
+    for (int round = 0; round < 3; round++) {
+      measure(false, width, height, rgb);
+      measure(true, width, height, rgb);
+    }
+  }
+
+  private static void measure(boolean packed, int width, int height, int[] rgb) {
+    long before = usedMemory();
+    String name = packed ? "PackedImageImpl" : "ImageImpl";
+    IImage image = packed ? new PackedImageImpl(width, height) : new ImageImpl(width, height);
+
+    long start = System.nanoTime();
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int value = rgb[y * width + x];
+        image.setPixel(x, y, (value >> 16) & 0xFF, (value >> 8) & 0xFF, value & 0xFF);
+      }
+    }
+    long fill = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    long checksum = 0;
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        checksum += image.getRedChannel(x, y) + image.getGreenChannel(x, y)
+                + image.getBlueChannel(x, y);
+      }
+    }
+    long read = System.nanoTime() - start;
+    long retained = usedMemory() - before;
+    // keep the image reachable until after the measurement
+    checksum += image.getWidth();
+
+    System.out.printf("%-16s retained %7.1f MB (%5.1f B/px)  fill %6d ms  read %6d ms  [%d]%n",
+            name, retained / 1e6, retained / (double) (width * (long) height),
+            fill / 1000000, read / 1000000, checksum);
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,107 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import controller.ImageUtil;
+import model.IImageState;
+import model.Kernel;
+
+/**
+ * Measures how Kernel.applyKernel scales with its parallelism level. res/Lake.png is tiled up by
+ * a scale factor and convolved with the 5x5 sharpen kernel at 1, 2, 4, 8 and 16 threads. It then
+ * compares the fixed-point path against the double path on one thread, forcing the double path
+ * by nudging one coefficient by a tiny amount that never changes the rounded result. Finally it
+ * times random kernels from 7x7 to 31x31, which cross over from the direct loops to the Fourier
+ * path.
+ * Usage: java KernelBenchmark [scale] (the default scale is 8).
+ */
+public class KernelBenchmark {
+
+  /**
+   * Runs the benchmark from the project root.
+   * @param args optional scale factor applied to each side of res/Lake.png.
+   * @throws IOException if res/Lake.png cannot be read.
+   */
+  public static void main(String[] args) throws IOException {
+    int scale = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+    IImageState image = tiledLake(scale);
+    System.out.println("Image size: " + image.getWidth() + "x" + image.getHeight()
+            + ", available processors: " + Runtime.getRuntime().availableProcessors());
+
+    double[][] sharpen = {
+            {-0.125, -0.125, -0.125, -0.125, -0.125},
+            {-0.125, 0.25, 0.25, 0.25, -0.125},
+            {-0.125, 0.25, 1, 0.25, -0.125},
+            {-0.125, 0.25, 0.25, 0.25, -0.125},
+            {-0.125, -0.125, -0.125, -0.125, -0.125}
+    };
+    for (int threads : new int[] {1, 2, 4, 8, 16}) {
+      Kernel kernel = new Kernel(5, sharpen, threads);
+      kernel.applyKernel(image); // warm up
+      long best = Long.MAX_VALUE;
+      for (int run = 0; run < 3; run++) {
+        long start = System.nanoTime();
+        kernel.applyKernel(image);
+        best = Math.min(best, System.nanoTime() - start);
+      }
+      System.out.printf("%2d threads: %6d ms%n", threads, best / 1000000);
+    }
+
+    double[][] nudged = new double[5][];
+    for (int i = 0; i < 5; i++) {
+      nudged[i] = sharpen[i].clone();
+    }
+    nudged[2][2] += Math.scalb(1.0, -40);
+    Kernel fixed = new Kernel(5, sharpen, 1);
+    Kernel floating = new Kernel(5, nudged, 1);
+    System.out.printf("fixed point: %6d ms%n", bestOfThree(fixed, image) / 1000000);
+    System.out.printf("double:      %6d ms%n", bestOfThree(floating, image) / 1000000);
+
+    Random random = new Random(1);
+    for (int size : new int[] {7, 11, 13, 15, 21, 31}) {
+      double[][] values = new double[size][size];
+      for (double[] row : values) {
+        for (int i = 0; i < size; i++) {
+          row[i] = random.nextDouble() * 2 / (size * size);
+        }
+      }
+      Kernel kernel = new Kernel(size, values, 1);
+      String path = kernel.usesFourierTransform(image.getWidth(), image.getHeight())
+              ? "fourier" : "direct";
+      System.out.printf("%2dx%-2d %-7s %6d ms%n", size, size, path,
+              bestOfThree(kernel, image) / 1000000);
+    }
+  }
+
+  private static long bestOfThree(Kernel kernel, IImageState image) {
+    kernel.applyKernel(image); // warm up
+    long best = Long.MAX_VALUE;
+    for (int run = 0; run < 3; run++) {
+      long start = System.nanoTime();
+      kernel.applyKernel(image);
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+
+  /**
+   * Loads res/Lake.png and repeats it scale times in each direction.
+   * @param scale how many copies of the image to place along each side.
+   * @return the tiled image.
+   * @throws IOException if res/Lake.png cannot be read.
+   */
+  static IImageState tiledLake(int scale) throws IOException {
+    BufferedImage lake = ImageIO.read(new File("res/Lake.png"));
+    BufferedImage tiled = new BufferedImage(lake.getWidth() * scale, lake.getHeight() * scale,
+            BufferedImage.TYPE_INT_RGB);
+    for (int ty = 0; ty < scale; ty++) {
+      for (int tx = 0; tx < scale; tx++) {
+        tiled.getGraphics().drawImage(lake, tx * lake.getWidth(), ty * lake.getHeight(), null);
+      }
+    }
+    return ImageUtil.convertToIImageState(tiled);
+  }
+}
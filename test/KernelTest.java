@@ -1,11 +1,20 @@
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Random;
+
+import model.EdgeMode;
+import model.IImage;
 import model.ImageImpl;
 import model.Kernel;
+import model.PackedImageImpl;
 import model.Pixel;
 import model.IImageState;
+import model.transformations.GaussianBlurTransformation;
 import view.IImageTextView;
 import view.TextView;
 
@@ -133,4 +142,332 @@ public class KernelTest {
     }
   }
 
+  // the row-band parallel path must give exactly the same pixels as the single-threaded one
+  @Test
+  public void testParallelMatchesSerial() {
+    IImageState image = randomImage(61, 203, 7);
+    double[][] kernelValues = {
+            {0.1, 0.2, 0.1},
+            {0.2, 0.3, 0.2},
+            {0.1, 0.2, 0.1}
+    };
+    IImageState serial = new Kernel(3, kernelValues, 1).applyKernel(image);
+    for (int parallelism : new int[] {2, 3, 8}) {
+      assertSameImage(serial, new Kernel(3, kernelValues, parallelism).applyKernel(image));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidParallelism() {
+    new Kernel(3, new double[3][3], 0);
+  }
+
+  @Test
+  public void testSeparableDetection() {
+    double[][] blur = {
+            {0.0625, 0.125, 0.0625},
+            {0.125, 0.25, 0.125},
+            {0.0625, 0.125, 0.0625}
+    };
+    assertTrue(new Kernel(3, blur).isSeparable());
+    assertFalse(kernel.isSeparable());
+    assertTrue(Kernel.separable(new double[] {1, 2, 1}, new double[] {1, 0, -1}).isSeparable());
+  }
+
+  // the two one-dimensional passes must give exactly what the full matrix gives
+  @Test
+  public void testSeparableMatchesDirect() {
+    double[][] blur = {
+            {0.0625, 0.125, 0.0625},
+            {0.125, 0.25, 0.125},
+            {0.0625, 0.125, 0.0625}
+    };
+    IImageState image = randomImage(45, 38, 11);
+    assertSameImage(referenceConvolve(blur, image), new Kernel(3, blur).applyKernel(image));
+    assertSameImage(referenceConvolve(blur, dummyImage),
+            new Kernel(3, blur).applyKernel(dummyImage));
+
+    Kernel sobel = Kernel.separable(new double[] {0.25, 0.5, 0.25}, new double[] {1, 0, -1});
+    assertSameImage(referenceConvolve(sobel.getValues(), image), sobel.applyKernel(image));
+  }
+
+  @Test
+  public void testGaussianBlurRadius() {
+    IImage flat = new PackedImageImpl(40, 30);
+    for (int y = 0; y < 30; y++) {
+      for (int x = 0; x < 40; x++) {
+        flat.setPixel(x, y, 200, 100, 50);
+      }
+    }
+    // a normalized blur leaves a flat area alone, away from the zero-padded border
+    IImageState blurred = new GaussianBlurTransformation(6).run(flat);
+    assertEquals(200, blurred.getRedChannel(20, 15));
+    assertEquals(100, blurred.getGreenChannel(20, 15));
+    assertEquals(50, blurred.getBlueChannel(20, 15));
+    assertTrue(blurred.getRedChannel(0, 0) < 200);
+
+    IImageState image = randomImage(12, 9, 5);
+    assertSameImage(image, new GaussianBlurTransformation(0).run(image));
+  }
+
+  @Test
+  public void testEdgeModeResolve() {
+    assertEquals(-1, EdgeMode.ZERO.resolve(-1, 5));
+    assertEquals(0, EdgeMode.CLAMP.resolve(-3, 5));
+    assertEquals(4, EdgeMode.CLAMP.resolve(7, 5));
+    assertEquals(1, EdgeMode.MIRROR.resolve(-1, 5));
+    assertEquals(3, EdgeMode.MIRROR.resolve(5, 5));
+    assertEquals(2, EdgeMode.MIRROR.resolve(-10, 5));
+    assertEquals(0, EdgeMode.MIRROR.resolve(3, 1));
+    assertEquals(4, EdgeMode.WRAP.resolve(-1, 5));
+    assertEquals(1, EdgeMode.WRAP.resolve(11, 5));
+    assertEquals(2, EdgeMode.ZERO.resolve(2, 5));
+  }
+
+  // every edge mode must match a per-tap reference, including kernels wider than the image
+  @Test
+  public void testEdgeModesMatchReference() {
+    double[][] sharpen = {
+            {-0.125, -0.125, -0.125, -0.125, -0.125},
+            {-0.125, 0.25, 0.25, 0.25, -0.125},
+            {-0.125, 0.25, 1, 0.25, -0.125},
+            {-0.125, 0.25, 0.25, 0.25, -0.125},
+            {-0.125, -0.125, -0.125, -0.125, -0.125}
+    };
+    double[][] blur = {
+            {0.0625, 0.125, 0.0625},
+            {0.125, 0.25, 0.125},
+            {0.0625, 0.125, 0.0625}
+    };
+    IImageState image = randomImage(23, 17, 3);
+    IImageState tiny = randomImage(3, 2, 4);
+    for (EdgeMode mode : EdgeMode.values()) {
+      assertSameImage(referenceConvolve(sharpen, image, mode),
+              new Kernel(5, sharpen, 2, mode).applyKernel(image));
+      assertSameImage(referenceConvolve(blur, image, mode),
+              new Kernel(3, blur, 1, mode).applyKernel(image));
+      assertSameImage(referenceConvolve(sharpen, tiny, mode),
+              new Kernel(5, sharpen, 1, mode).applyKernel(tiny));
+    }
+  }
+
+  @Test
+  public void testClampKeepsFlatBorder() {
+    IImage flat = new PackedImageImpl(8, 8);
+    for (int y = 0; y < 8; y++) {
+      for (int x = 0; x < 8; x++) {
+        flat.setPixel(x, y, 90, 90, 90);
+      }
+    }
+    IImageState blurred = new GaussianBlurTransformation(3, EdgeMode.CLAMP).run(flat);
+    assertEquals(90, blurred.getRedChannel(0, 0), 1);
+    assertEquals(90, blurred.getBlueChannel(7, 7), 1);
+  }
+
+  // a normalized kernel must not lose a level to the rounding error of its double weights,
+  // whether it runs tap by tap, as two passes or through Fourier transforms
+  @Test
+  public void testFlatImageIsUnchanged() {
+    IImage flat = new PackedImageImpl(50, 45);
+    for (int y = 0; y < 45; y++) {
+      for (int x = 0; x < 50; x++) {
+        flat.setPixel(x, y, 200, 255, 100);
+      }
+    }
+    for (int radius : new int[] {1, 2, 3, 5, 6, 10, 20}) {
+      assertSameImage(flat, new GaussianBlurTransformation(radius, EdgeMode.CLAMP).run(flat));
+    }
+    double[][] box = new double[5][5];
+    for (double[] row : box) {
+      Arrays.fill(row, 1 / 25.0);
+    }
+    assertFalse(new Kernel(5, box).isFixedPoint());
+    assertSameImage(flat, new Kernel(5, box, 1, EdgeMode.MIRROR).applyKernel(flat));
+  }
+
+  @Test
+  public void testFixedPointDetection() {
+    double[][] blur = {
+            {0.0625, 0.125, 0.0625},
+            {0.125, 0.25, 0.125},
+            {0.0625, 0.125, 0.0625}
+    };
+    assertTrue(new Kernel(3, blur).isFixedPoint());
+    assertTrue(Kernel.separable(new double[] {1, 2, 1}, new double[] {1, 0, -1}).isFixedPoint());
+    assertFalse(new Kernel(3, new double[][] {{0.1, 0.2, 0.1}, {0.2, 0.3, 0.2}, {0.1, 0.2, 0.1}})
+            .isFixedPoint());
+    // large enough to overflow an int sum of 255s
+    assertFalse(new Kernel(1, new double[][] {{1 << 24}}).isFixedPoint());
+  }
+
+  // the integer path must give exactly the pixels of the double path, clamping included
+  @Test
+  public void testFixedPointMatchesDouble() {
+    double[][] sharpen = {
+            {-0.125, -0.125, -0.125, -0.125, -0.125},
+            {-0.125, 0.25, 0.25, 0.25, -0.125},
+            {-0.125, 0.25, 1, 0.25, -0.125},
+            {-0.125, 0.25, 0.25, 0.25, -0.125},
+            {-0.125, -0.125, -0.125, -0.125, -0.125}
+    };
+    double[][] nudged = new double[5][];
+    for (int i = 0; i < 5; i++) {
+      nudged[i] = sharpen[i].clone();
+    }
+    nudged[2][2] += Math.scalb(1.0, -40);
+    Kernel fixed = new Kernel(5, sharpen, 1);
+    Kernel floating = new Kernel(5, nudged, 1);
+    assertTrue(fixed.isFixedPoint());
+    assertFalse(floating.isFixedPoint());
+
+    IImageState image = randomImage(37, 29, 13);
+    assertSameImage(floating.applyKernel(image), fixed.applyKernel(image));
+    assertSameImage(referenceConvolve(sharpen, image), fixed.applyKernel(image));
+
+    Kernel sobel = Kernel.separable(new double[] {1, 2, 1}, new double[] {0.5, 0, -0.5},
+            EdgeMode.MIRROR);
+    assertSameImage(referenceConvolve(sobel.getValues(), image, EdgeMode.MIRROR),
+            sobel.applyKernel(image));
+  }
+
+  @Test
+  public void testFourierSelection() {
+    Kernel large = new Kernel(15, new double[15][15]);
+    assertTrue(large.usesFourierTransform(640, 480));
+    assertFalse(large.usesFourierTransform(10, 10));
+    assertTrue(new Kernel(13, new double[13][13]).usesFourierTransform(640, 480));
+    assertFalse(new Kernel(11, new double[11][11]).usesFourierTransform(640, 480));
+    double[] box = new double[15];
+    Arrays.fill(box, 1.0 / 15);
+    assertFalse(Kernel.separable(box, box).usesFourierTransform(640, 480));
+  }
+
+  // a dyadic kernel keeps integer sums, so the Fourier path must match the reference exactly
+  @Test
+  public void testFourierMatchesReferenceExactly() {
+    double[][] values = new double[15][15];
+    Random random = new Random(17);
+    for (double[] row : values) {
+      for (int i = 0; i < row.length; i++) {
+        row[i] = (random.nextInt(17) - 6) / 256.0;
+      }
+    }
+    IImageState image = randomImage(131, 77, 19);
+    for (EdgeMode mode : EdgeMode.values()) {
+      Kernel kernel = new Kernel(15, values, 2, mode);
+      assertTrue(kernel.isFixedPoint());
+      assertTrue(kernel.usesFourierTransform(131, 77));
+      assertSameImage(referenceConvolve(values, image, mode), kernel.applyKernel(image));
+    }
+  }
+
+  // with arbitrary doubles the transform error may tip a sum across a whole level, never more
+  @Test
+  public void testFourierCloseToReference() {
+    double[][] values = new double[17][17];
+    Random random = new Random(23);
+    for (double[] row : values) {
+      for (int i = 0; i < row.length; i++) {
+        row[i] = random.nextDouble() / 200;
+      }
+    }
+    IImageState image = randomImage(90, 140, 29);
+    Kernel kernel = new Kernel(17, values, 1, EdgeMode.MIRROR);
+    assertFalse(kernel.isFixedPoint());
+    IImageState expected = referenceConvolve(values, image, EdgeMode.MIRROR);
+    IImageState actual = kernel.applyKernel(image);
+    for (int y = 0; y < 140; y++) {
+      for (int x = 0; x < 90; x++) {
+        assertEquals(expected.getRedChannel(x, y), actual.getRedChannel(x, y), 1);
+        assertEquals(expected.getGreenChannel(x, y), actual.getGreenChannel(x, y), 1);
+        assertEquals(expected.getBlueChannel(x, y), actual.getBlueChannel(x, y), 1);
+      }
+    }
+  }
+
+  // a kernel of 513x513 needs a transform block above the usual largest one
+  @Test
+  public void testFourierHugeKernel() {
+    int size = 513;
+    int radius = size / 2;
+    double[][] values = new double[size][size];
+    // half the pixel itself and half the pixel up and to the left by the radius, which is not
+    // separable and easy to check
+    values[0][0] = 0.5;
+    values[radius][radius] = 0.5;
+    IImageState image = randomImage(520, 520, 31);
+    Kernel kernel = new Kernel(size, values);
+    assertTrue(kernel.usesFourierTransform(520, 520));
+    IImageState actual = kernel.applyKernel(image);
+    for (int y = 0; y < 520; y += 7) {
+      for (int x = 0; x < 520; x += 3) {
+        int[] shifted = {0, 0, 0};
+        if (x >= radius && y >= radius) {
+          shifted = new int[] {image.getRedChannel(x - radius, y - radius),
+              image.getGreenChannel(x - radius, y - radius),
+              image.getBlueChannel(x - radius, y - radius)};
+        }
+        assertEquals((image.getRedChannel(x, y) + shifted[0]) / 2, actual.getRedChannel(x, y));
+        assertEquals((image.getGreenChannel(x, y) + shifted[1]) / 2,
+                actual.getGreenChannel(x, y));
+        assertEquals((image.getBlueChannel(x, y) + shifted[2]) / 2, actual.getBlueChannel(x, y));
+      }
+    }
+  }
+
+  // straightforward zero-padded convolution used to check the optimized paths against
+  static IImageState referenceConvolve(double[][] values, IImageState image) {
+    return referenceConvolve(values, image, EdgeMode.ZERO);
+  }
+
+  // per-tap convolution that resolves every neighbor through the edge mode
+  static IImageState referenceConvolve(double[][] values, IImageState image, EdgeMode mode) {
+    int radius = values.length / 2;
+    IImage result = new PackedImageImpl(image.getWidth(), image.getHeight());
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        double r = 0;
+        double g = 0;
+        double b = 0;
+        for (int ky = 0; ky < values.length; ky++) {
+          for (int kx = 0; kx < values.length; kx++) {
+            int px = mode.resolve(x + kx - radius, image.getWidth());
+            int py = mode.resolve(y + ky - radius, image.getHeight());
+            if (px >= 0 && py >= 0) {
+              r += values[ky][kx] * image.getRedChannel(px, py);
+              g += values[ky][kx] * image.getGreenChannel(px, py);
+              b += values[ky][kx] * image.getBlueChannel(px, py);
+            }
+          }
+        }
+        result.setPixel(x, y, (int) Math.max(0, Math.min(255, r)),
+                (int) Math.max(0, Math.min(255, g)), (int) Math.max(0, Math.min(255, b)));
+      }
+    }
+    return result;
+  }
+
+  // builds a reproducible image of random pixels
+  static IImage randomImage(int width, int height, long seed) {
+    Random random = new Random(seed);
+    IImage image = new PackedImageImpl(width, height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        image.setPixel(x, y, random.nextInt(256), random.nextInt(256), random.nextInt(256));
+      }
+    }
+    return image;
+  }
+
+  static void assertSameImage(IImageState expected, IImageState actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRedChannel(x, y), actual.getRedChannel(x, y));
+        assertEquals(expected.getGreenChannel(x, y), actual.getGreenChannel(x, y));
+        assertEquals(expected.getBlueChannel(x, y), actual.getBlueChannel(x, y));
+      }
+    }
+  }
 }
@@ -0,0 +1,141 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Scanner;
+
+import controller.ImageUtil;
+import controller.io.PNMImageSaver;
+import controller.io.PPMImageSaver;
+import model.IImage;
+import model.IImageState;
+import model.PackedImageImpl;
+
+/**
+ * Compares ImageUtil.readPPM against the Scanner-based reader it replaced, and PPMImageSaver
+ * against the per-pixel String writer it replaced, on a P3 file of a tiled copy of res/Lake.png,
+ * checking that both sides agree. The same image is also saved and read back as a binary P6 file.
+ * Usage: java PPMBenchmark [scale] (the default scale is 4).
+ */
+public class PPMBenchmark {
+
+  /**
+   * Runs the benchmark from the project root.
+   * @param args optional scale factor applied to each side of res/Lake.png.
+   * @throws IOException if res/Lake.png cannot be read or the temporary file cannot be written.
+   */
+  public static void main(String[] args) throws IOException {
+    int scale = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+    IImageState image = KernelBenchmark.tiledLake(scale);
+    File file = File.createTempFile("benchmark", ".ppm");
+    file.deleteOnExit();
+    File reference = File.createTempFile("reference", ".ppm");
+    reference.deleteOnExit();
+    for (int round = 0; round < 3; round++) {
+      long start = System.nanoTime();
+      referenceSavePPM(image, reference);
+      long before = System.nanoTime() - start;
+      start = System.nanoTime();
+      new PPMImageSaver(file.getPath(), image).run();
+      long after = System.nanoTime() - start;
+      System.out.printf("P3 save: String per pixel %6d ms   digit table %6d ms%n",
+              before / 1000000, after / 1000000);
+    }
+    if (!Arrays.equals(Files.readAllBytes(file.toPath()),
+            Files.readAllBytes(reference.toPath()))) {
+      throw new IllegalStateException("Savers wrote different files");
+    }
+    System.out.println("Image size: " + image.getWidth() + "x" + image.getHeight() + ", "
+            + file.length() / 1000000 + " MB");
+
+    // both readers print the header, which would drown out the timings
+    PrintStream out = System.out;
+    System.setOut(new PrintStream(PrintStream.nullOutputStream()));
+    File binary = File.createTempFile("benchmark", ".pnm");
+    binary.deleteOnExit();
+    IImageState[] read = new IImageState[3];
+    long[][] times = new long[3][4];
+    for (int round = 0; round < 3; round++) {
+      long start = System.nanoTime();
+      read[0] = referenceReadPPM(file.getPath());
+      times[round][0] = System.nanoTime() - start;
+      start = System.nanoTime();
+      read[1] = ImageUtil.readPPM(file.getPath());
+      times[round][1] = System.nanoTime() - start;
+      start = System.nanoTime();
+      new PNMImageSaver(binary.getPath(), image, false).run();
+      times[round][2] = System.nanoTime() - start;
+      start = System.nanoTime();
+      read[2] = ImageUtil.readPPM(binary.getPath());
+      times[round][3] = System.nanoTime() - start;
+    }
+    System.setOut(out);
+
+    check(read[0], read[1]);
+    check(read[0], read[2]);
+    System.out.println("P6 file: " + binary.length() / 1000000 + " MB");
+    for (long[] round : times) {
+      System.out.printf("P3: Scanner %6d ms   byte tokenizer %6d ms   P6: save %4d ms   "
+              + "read %4d ms%n", round[0] / 1000000, round[1] / 1000000, round[2] / 1000000,
+              round[3] / 1000000);
+    }
+  }
+
+  private static void check(IImageState expected, IImageState actual) {
+    int[] expectedRow = new int[expected.getWidth()];
+    int[] actualRow = new int[actual.getWidth()];
+    for (int y = 0; y < expected.getHeight(); y++) {
+      expected.getRow(y, expectedRow);
+      actual.getRow(y, actualRow);
+      for (int x = 0; x < expectedRow.length; x++) {
+        if (expectedRow[x] != actualRow[x]) {
+          throw new IllegalStateException("Readers differ at " + x + ", " + y);
+        }
+      }
+    }
+  }
+
+  // PPMImageSaver as it was written before, one String per pixel into an unbuffered FileWriter
+  private static void referenceSavePPM(IImageState image, File file) throws IOException {
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.append("P3\n");
+      writer.append(image.getWidth() + " " + image.getHeight() + "\n");
+      writer.append("255\n");
+      for (int row = 0; row < image.getHeight(); row++) {
+        for (int col = 0; col < image.getWidth(); col++) {
+          int r = image.getRedChannel(col, row);
+          int g = image.getGreenChannel(col, row);
+          int b = image.getBlueChannel(col, row);
+          writer.append(r + "\n" + g + "\n" + b + "\n");
+        }
+      }
+    }
+  }
+
+  // ImageUtil.readPPM as it was written before
+  private static IImageState referenceReadPPM(String filename) throws IOException {
+    Scanner sc = new Scanner(new FileInputStream(filename));
+    StringBuilder builder = new StringBuilder();
+    while (sc.hasNextLine()) {
+      String s = sc.nextLine();
+      if (s.charAt(0) != '#') {
+        builder.append(s + System.lineSeparator());
+      }
+    }
+    sc = new Scanner(builder.toString());
+    sc.next();
+    int width = sc.nextInt();
+    int height = sc.nextInt();
+    sc.nextInt();
+    IImage loadedImage = new PackedImageImpl(width, height);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        loadedImage.setPixel(j, i, sc.nextInt(), sc.nextInt(), sc.nextInt());
+      }
+    }
+    return loadedImage;
+  }
+}
@@ -0,0 +1,51 @@
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import controller.ImageUtil;
+import controller.io.PPMImageSaver;
+import model.IImage;
+import model.IImageState;
+import model.PackedImageImpl;
+
+/**
+ * Represents the tests for PPMImageSaver, which formats plain (P3) files through a buffer and
+ * must write exactly the text it always has, whether to an Appendable or to the file itself.
+ */
+public class PPMImageSaverTest {
+
+  @Test
+  public void testExactText() {
+    IImage image = new PackedImageImpl(3, 1);
+    image.setPixel(0, 0, 0, 9, 10);
+    image.setPixel(1, 0, 99, 100, 255);
+    image.setPixel(2, 0, 7, 42, 180);
+    StringBuilder output = new StringBuilder();
+    new PPMImageSaver("unused.ppm", image, output).run();
+    assertEquals("P3\n3 1\n255\n0\n9\n10\n99\n100\n255\n7\n42\n180\n", output.toString());
+  }
+
+  @Test
+  public void testFileMatchesAppendable() throws IOException {
+    // large enough that the text spans several of the saver's chunks
+    IImageState image = KernelTest.randomImage(150, 120, 17);
+    StringBuilder expected = new StringBuilder();
+    new PPMImageSaver("unused.ppm", image, expected).run();
+
+    File file = File.createTempFile("saver", ".ppm");
+    file.deleteOnExit();
+    new PPMImageSaver(file.getPath(), image).run();
+    assertEquals(expected.toString(),
+            new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII));
+    KernelTest.assertSameImage(image, ImageUtil.readPPM(file.getPath()));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUnwritableFile() {
+    new PPMImageSaver("no/such/directory/image.ppm", new PackedImageImpl(1, 1)).run();
+  }
+}
@@ -0,0 +1,184 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import controller.ControllerImpl;
+import controller.ImageUtil;
+import controller.io.PNMImageSaver;
+import model.IImageDataBase;
+import model.IImageState;
+import model.ImageDataBase;
+import model.transformations.GreyscaleLumaTransformation;
+
+/**
+ * Represents the tests for reading PPM files with ImageUtil.readPPM: plain (P3) files, in
+ * particular the comments and blank lines the format allows, and binary (P6 and P5) files, which
+ * are also written by PNMImageSaver.
+ */
+public class PPMReaderTest {
+
+  private static String write(String contents) throws IOException {
+    File file = File.createTempFile("reader", ".ppm");
+    file.deleteOnExit();
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.write(contents);
+    }
+    return file.getPath();
+  }
+
+  private static String writeBytes(String header, int... samples) throws IOException {
+    File file = File.createTempFile("reader", ".pnm");
+    file.deleteOnExit();
+    try (FileOutputStream output = new FileOutputStream(file)) {
+      output.write(header.getBytes(StandardCharsets.US_ASCII));
+      for (int sample : samples) {
+        output.write(sample);
+      }
+    }
+    return file.getPath();
+  }
+
+  private static String temporary(String suffix) throws IOException {
+    File file = File.createTempFile("saver", suffix);
+    file.deleteOnExit();
+    return file.getPath();
+  }
+
+  private static void assertPixels(int[] expected, IImageState image) {
+    int[] actual = new int[expected.length];
+    image.getRGB(0, 0, image.getWidth(), image.getHeight(), actual, 0, image.getWidth());
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], actual[i] & 0xFFFFFF);
+    }
+  }
+
+  @Test
+  public void testPlainFile() throws IOException {
+    IImageState image = ImageUtil.readPPM(write("P3\n2 2\n255\n255 0 0 0 255 0\n"
+            + "0 0 255 10 20 30\n"));
+    assertEquals(2, image.getWidth());
+    assertEquals(2, image.getHeight());
+    assertPixels(new int[] {0xFF0000, 0x00FF00, 0x0000FF, 0x0A141E}, image);
+  }
+
+  @Test
+  public void testCommentsAndBlankLines() throws IOException {
+    IImageState image = ImageUtil.readPPM(write("# made by hand\nP3 # magic\n\n"
+            + "   # indented comment\n3 1\n255#no space before it\n\n"
+            + "1 2 3 # first pixel\r\n4 5 6\r\n\t7 8 9\n\n"));
+    assertEquals(3, image.getWidth());
+    assertEquals(1, image.getHeight());
+    assertPixels(new int[] {0x010203, 0x040506, 0x070809}, image);
+  }
+
+  @Test
+  public void testNoTrailingNewline() throws IOException {
+    assertPixels(new int[] {0x112233}, ImageUtil.readPPM(write("P3 1 1 255 17 34 51")));
+  }
+
+  @Test
+  public void testMissingFile() {
+    assertTrue(ImageUtil.readPPM("no/such/file.ppm") == null);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testTruncatedFile() throws IOException {
+    ImageUtil.readPPM(write("P3\n2 2\n255\n255 0 0 0 255 0\n0 0\n"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testNotANumber() throws IOException {
+    ImageUtil.readPPM(write("P3\n1 1\n255\n1 x 3\n"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testValueOutOfBounds() throws IOException {
+    ImageUtil.readPPM(write("P3\n1 1\n255\n1 256 3\n"));
+  }
+
+  @Test
+  public void testBinaryRGB() throws IOException {
+    IImageState image = ImageUtil.readPPM(writeBytes("P6\n# binary\n2 1\n255\n",
+            255, 128, 0, 1, 2, 3));
+    assertEquals(2, image.getWidth());
+    assertPixels(new int[] {0xFF8000, 0x010203}, image);
+  }
+
+  @Test
+  public void testBinaryGrey() throws IOException {
+    IImageState image = ImageUtil.readPPM(writeBytes("P5 3 1 255\n", 0, 10, 255));
+    assertPixels(new int[] {0x000000, 0x0A0A0A, 0xFFFFFF}, image);
+  }
+
+  @Test
+  public void testBinaryRasterStartingWithWhitespaceByte() throws IOException {
+    // the single byte after the maximum value ends the header, even if the raster starts with
+    // bytes that look like whitespace or a comment
+    IImageState image = ImageUtil.readPPM(writeBytes("P6 1 2 255\n", 32, 10, '#', 9, 13, 0));
+    assertPixels(new int[] {0x200A23, 0x090D00}, image);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testTruncatedBinary() throws IOException {
+    ImageUtil.readPPM(writeBytes("P6 2 1 255\n", 1, 2, 3, 4, 5));
+  }
+
+  // the pixel count overflows an int, so it must not wrap around to a small image
+  @Test
+  public void testImageTooLarge() throws IOException {
+    try {
+      ImageUtil.readPPM(writeBytes("P6 65536 65537 255\n", 1, 2, 3));
+      fail("the image should have been refused");
+    } catch (IllegalStateException e) {
+      assertEquals("Invalid PPM file: bad image size.", e.getMessage());
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testSixteenBitBinary() throws IOException {
+    ImageUtil.readPPM(writeBytes("P5 1 1 65535\n", 1, 2));
+  }
+
+  @Test
+  public void testBinaryRoundTrip() throws IOException {
+    IImageState image = KernelTest.randomImage(13, 7, 3);
+    String path = temporary(".pnm");
+    new PNMImageSaver(path, image, false).run();
+    assertEquals("P6\n13 7\n255\n".length() + 13 * 7 * 3, new File(path).length());
+    KernelTest.assertSameImage(image, ImageUtil.readPPM(path));
+
+    String grey = temporary(".pgm");
+    new PNMImageSaver(grey, image, true).run();
+    assertEquals("P5\n13 7\n255\n".length() + 13 * 7, new File(grey).length());
+    KernelTest.assertSameImage(new GreyscaleLumaTransformation().run(image),
+            ImageUtil.readPPM(grey));
+  }
+
+  @Test
+  public void testCommandsPickTheFormat() throws IOException {
+    IImageDataBase model = new ImageDataBase();
+    IImageState image = KernelTest.randomImage(6, 4, 12);
+    model.add("img", image);
+    String binary = temporary(".pnm");
+    String grey = temporary(".pgm");
+    new ControllerImpl(new StringReader("save " + binary + " img\nsave " + grey + " img\n"
+            + "load " + binary + " a\nload " + grey + " b\n"), model, new StringBuilder())
+            .start();
+
+    KernelTest.assertSameImage(image, model.get("a"));
+    KernelTest.assertSameImage(new GreyscaleLumaTransformation().run(image), model.get("b"));
+    try (FileInputStream input = new FileInputStream(binary)) {
+      assertEquals('P', input.read());
+      assertEquals('6', input.read());
+    }
+  }
+}
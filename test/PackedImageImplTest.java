@@ -0,0 +1,168 @@
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+
+import model.IImage;
+import model.ImageImpl;
+import model.PackedImageImpl;
+import model.Pixel;
+
+
+/**
+ * Represents the tests for PackedImageImpl, the primitive-backed implementation of an Image
+ * object. A PackedImageImpl must behave exactly like an ImageImpl, so most of these tests mirror
+ * the ImageImplTest class.
+ */
+public class PackedImageImplTest {
+  private IImage testImage;
+
+  @Before
+  public void setup() {
+    Pixel[][] testPixels = new Pixel[][] {
+            { new Pixel(255, 0, 0), new Pixel(0, 255, 0), new Pixel(0, 0, 255) },
+            { new Pixel(128, 128, 128), new Pixel(64, 64, 64), new Pixel(100, 100, 100) }
+    };
+    // initialize the image:
+    testImage = new PackedImageImpl(testPixels[0].length, testPixels.length);
+    for (int i = 0; i < testPixels.length; i++) {
+      for (int j = 0; j < testPixels[0].length; j++) {
+        Pixel pixel = testPixels[i][j];
+        testImage.setPixel(j, i, pixel.getR(), pixel.getG(), pixel.getB());
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooManyPixels() {
+    new PackedImageImpl(65536, 65537);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetPixelNegative() {
+    testImage.setPixel(1, 1, -1, 100, 255);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetPixelOverMax() {
+    testImage.setPixel(1, 1, 100, 400, 255);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeDimensions() {
+    new PackedImageImpl(-1, 4);
+  }
+
+  @Test
+  public void testGetHeightAndWidth() {
+    assertEquals(2, testImage.getHeight());
+    assertEquals(3, testImage.getWidth());
+  }
+
+  @Test
+  public void testGetChannels() {
+    assertEquals(255, testImage.getRedChannel(0, 0));
+    assertEquals(255, testImage.getGreenChannel(1, 0));
+    assertEquals(255, testImage.getBlueChannel(2, 0));
+    assertEquals(128, testImage.getRedChannel(0, 1));
+    assertEquals(64, testImage.getGreenChannel(1, 1));
+    assertEquals(100, testImage.getBlueChannel(2, 1));
+    assertEquals(0, testImage.getBlueChannel(0, 0));
+  }
+
+  @Test
+  public void testOverwritePixel() {
+    testImage.setPixel(2, 1, 1, 2, 3);
+    assertEquals(1, testImage.getRedChannel(2, 1));
+    assertEquals(2, testImage.getGreenChannel(2, 1));
+    assertEquals(3, testImage.getBlueChannel(2, 1));
+  }
+
+  // the packed image must be a drop-in for ImageImpl, so compare every channel of both
+  @Test
+  public void testMatchesImageImpl() {
+    IImage reference = new ImageImpl(3, 2);
+    for (int y = 0; y < 2; y++) {
+      for (int x = 0; x < 3; x++) {
+        reference.setPixel(x, y, testImage.getRedChannel(x, y),
+                testImage.getGreenChannel(x, y), testImage.getBlueChannel(x, y));
+      }
+    }
+    for (int y = 0; y < 2; y++) {
+      for (int x = 0; x < 3; x++) {
+        assertEquals(reference.getRedChannel(x, y), testImage.getRedChannel(x, y));
+        assertEquals(reference.getGreenChannel(x, y), testImage.getGreenChannel(x, y));
+        assertEquals(reference.getBlueChannel(x, y), testImage.getBlueChannel(x, y));
+      }
+    }
+  }
+
+  // the bulk accessors must agree with the per-pixel getters
+  @Test
+  public void testGetRowAndRectangle() {
+    int[] row = new int[3];
+    testImage.getRow(1, row);
+    assertEquals(0x808080, row[0]);
+    assertEquals(0x404040, row[1]);
+    assertEquals(0x646464, row[2]);
+
+    int[] rect = new int[6];
+    testImage.getRGB(1, 0, 2, 2, rect, 1, 3);
+    assertEquals(0x00FF00, rect[1]);
+    assertEquals(0x0000FF, rect[2]);
+    assertEquals(0x404040, rect[4]);
+    assertEquals(0x646464, rect[5]);
+  }
+
+  @Test
+  public void testSetRGBRectangle() {
+    int[] values = {0x010203, 0x040506, 0x070809, 0x0A0B0C};
+    testImage.setRGB(1, 0, 2, 2, values, 0, 2);
+    assertEquals(1, testImage.getRedChannel(1, 0));
+    assertEquals(6, testImage.getBlueChannel(2, 0));
+    assertEquals(8, testImage.getGreenChannel(1, 1));
+    assertEquals(0x0C, testImage.getBlueChannel(2, 1));
+    assertEquals(255, testImage.getRedChannel(0, 0));
+  }
+
+  @Test
+  public void testImageImplBulkMatchesPacked() {
+    IImage reference = new ImageImpl(3, 2);
+    int[] row = new int[3];
+    for (int y = 0; y < 2; y++) {
+      testImage.getRow(y, row);
+      reference.setRow(y, row);
+    }
+    int[] expected = new int[6];
+    int[] actual = new int[6];
+    testImage.getRGB(0, 0, 3, 2, expected, 0, 3);
+    reference.getRGB(0, 0, 3, 2, actual, 0, 3);
+    for (int i = 0; i < 6; i++) {
+      assertEquals(expected[i], actual[i]);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetRGBAlphaBitsRejected() {
+    testImage.setRow(0, new int[] {0xFF000000, 0, 0});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRGBOutOfBounds() {
+    testImage.getRGB(2, 0, 2, 1, new int[2], 0, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testXOutOfBoundsGetRed() {
+    testImage.getRedChannel(5, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testYOutOfBoundsGetGreen() {
+    testImage.getGreenChannel(0, -5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testXOutOfBoundsSetPixel() {
+    testImage.setPixel(4, 3, 20, 20, 20);
+  }
+}
@@ -0,0 +1,139 @@
+import java.io.IOException;
+
+import model.IImage;
+import model.IImageState;
+import model.PackedImageImpl;
+import model.transformations.BrightenTransformation;
+import model.transformations.GreyscaleChannelTransformation;
+import model.transformations.GreyscaleIntensityTransformation;
+import model.transformations.GreyscaleLumaTransformation;
+import model.transformations.GreyscaleValueTransformation;
+import model.transformations.ITransformation;
+import model.transformations.PosterizeTransformation;
+
+/**
+ * Measures the per-pixel transformations on a tiled copy of res/Lake.png. Brighten, luma and the
+ * red channel are also run through the loops they used before they were made branch-free or
+ * compiled into lookup tables, to compare the two and to check that the results are identical.
+ * Usage: java PointOperationBenchmark [scale] (the default scale is 8).
+ */
+public class PointOperationBenchmark {
+
+  /**
+   * Runs the benchmark from the project root.
+   * @param args optional scale factor applied to each side of res/Lake.png.
+   * @throws IOException if res/Lake.png cannot be read.
+   */
+  public static void main(String[] args) throws IOException {
+    int scale = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+    IImageState image = KernelBenchmark.tiledLake(scale);
+    System.out.println("Image size: " + image.getWidth() + "x" + image.getHeight());
+
+    ITransformation brighten = new BrightenTransformation(40);
+    ITransformation luma = new GreyscaleLumaTransformation();
+    check("brighten", referenceBrighten(image, 40), brighten.run(image));
+    check("luma", referenceLuma(image), luma.run(image));
+    ITransformation red = new GreyscaleChannelTransformation("red");
+    check("red channel", referenceChannel(image, "red"), red.run(image));
+
+    for (int round = 0; round < 3; round++) {
+      report("brighten (branches)", time(() -> referenceBrighten(image, 40)));
+      report("brighten", time(() -> brighten.run(image)));
+      report("luma (multiplies)", time(() -> referenceLuma(image)));
+      report("luma", time(() -> luma.run(image)));
+      report("red (String.equals)", time(() -> referenceChannel(image, "red")));
+      report("red", time(() -> red.run(image)));
+      report("posterize", time(() -> new PosterizeTransformation(4).run(image)));
+      report("intensity", time(() -> new GreyscaleIntensityTransformation().run(image)));
+      report("value", time(() -> new GreyscaleValueTransformation().run(image)));
+    }
+  }
+
+  private static long time(Runnable work) {
+    long start = System.nanoTime();
+    work.run();
+    return System.nanoTime() - start;
+  }
+
+  private static void report(String name, long nanos) {
+    System.out.printf("%-20s %6d ms%n", name, nanos / 1000000);
+  }
+
+  private static void check(String name, IImageState expected, IImageState actual) {
+    int[] expectedRow = new int[expected.getWidth()];
+    int[] actualRow = new int[actual.getWidth()];
+    for (int y = 0; y < expected.getHeight(); y++) {
+      expected.getRow(y, expectedRow);
+      actual.getRow(y, actualRow);
+      for (int x = 0; x < expectedRow.length; x++) {
+        if (expectedRow[x] != actualRow[x]) {
+          throw new IllegalStateException(name + " differs at " + x + ", " + y);
+        }
+      }
+    }
+  }
+
+  // the brighten loop as it was written before, clamping each channel with branches
+  private static IImageState referenceBrighten(IImageState source, int amount) {
+    int width = source.getWidth();
+    IImage result = new PackedImageImpl(width, source.getHeight());
+    int[] row = new int[width];
+    for (int y = 0; y < source.getHeight(); y++) {
+      source.getRow(y, row);
+      for (int x = 0; x < width; x++) {
+        int rgb = row[x];
+        int r = ((rgb >> 16) & 0xFF) + amount;
+        int g = ((rgb >> 8) & 0xFF) + amount;
+        int b = (rgb & 0xFF) + amount;
+        r = r < 0 ? 0 : r > 255 ? 255 : r;
+        g = g < 0 ? 0 : g > 255 ? 255 : g;
+        b = b < 0 ? 0 : b > 255 ? 255 : b;
+        row[x] = (r << 16) | (g << 8) | b;
+      }
+      result.setRow(y, row);
+    }
+    return result;
+  }
+
+  // the luma loop as it was written before, converting and multiplying every channel
+  private static IImageState referenceLuma(IImageState source) {
+    int width = source.getWidth();
+    IImage result = new PackedImageImpl(width, source.getHeight());
+    int[] row = new int[width];
+    for (int y = 0; y < source.getHeight(); y++) {
+      source.getRow(y, row);
+      for (int x = 0; x < width; x++) {
+        int rgb = row[x];
+        int luma = (int) (0.2126 * ((rgb >> 16) & 0xFF) + 0.7152 * ((rgb >> 8) & 0xFF)
+                + 0.0722 * (rgb & 0xFF));
+        row[x] = (luma << 16) | (luma << 8) | luma;
+      }
+      result.setRow(y, row);
+    }
+    return result;
+  }
+
+  // the channel loop as it was written before, comparing the channel name for every pixel
+  private static IImageState referenceChannel(IImageState source, String channel) {
+    int width = source.getWidth();
+    IImage result = new PackedImageImpl(width, source.getHeight());
+    int[] row = new int[width];
+    for (int y = 0; y < source.getHeight(); y++) {
+      source.getRow(y, row);
+      for (int x = 0; x < width; x++) {
+        int rgb = row[x];
+        int value;
+        if (channel.equals("red")) {
+          value = (rgb >> 16) & 0xFF;
+        } else if (channel.equals("green")) {
+          value = (rgb >> 8) & 0xFF;
+        } else {
+          value = rgb & 0xFF;
+        }
+        row[x] = (value << 16) | (value << 8) | value;
+      }
+      result.setRow(y, row);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,169 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import controller.ControllerImpl;
+import model.IImage;
+import model.IImageDataBase;
+import model.IImageState;
+import model.ImageDataBase;
+import model.PackedImageImpl;
+import model.transformations.BrightenTransformation;
+import model.transformations.GammaTransformation;
+import model.transformations.GreyscaleChannelTransformation;
+import model.transformations.GreyscaleLumaTransformation;
+import model.transformations.IPointTransformation;
+import model.transformations.LevelsAdjustTransformation;
+import model.transformations.LookupTable;
+import model.transformations.PosterizeTransformation;
+
+
+/**
+ * Represents the tests for the per-pixel transformations: the branch-free loops, checked against
+ * the formulas they replace, and the transformations that are compiled into lookup tables.
+ */
+public class PointTransformationsTest {
+
+  // the lookup tables must reproduce the luma formula exactly: every value of each channel on its
+  // own, and a sample of 2^16 colors
+  @Test
+  public void testLumaMatchesFormula() {
+    IImage colors = KernelTest.randomImage(256, 259, 7);
+    for (int value = 0; value < 256; value++) {
+      colors.setPixel(value, 0, value, 0, 0);
+      colors.setPixel(value, 1, 0, value, 0);
+      colors.setPixel(value, 2, 0, 0, value);
+    }
+    IImageState luma = new GreyscaleLumaTransformation().run(colors);
+    for (int y = 0; y < colors.getHeight(); y++) {
+      for (int x = 0; x < colors.getWidth(); x++) {
+        int expected = (int) (0.2126 * colors.getRedChannel(x, y)
+                + 0.7152 * colors.getGreenChannel(x, y) + 0.0722 * colors.getBlueChannel(x, y));
+        assertEquals(expected, luma.getRedChannel(x, y));
+        assertEquals(expected, luma.getGreenChannel(x, y));
+        assertEquals(expected, luma.getBlueChannel(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testBrightenClampsBothWays() {
+    PackedImageImpl image = new PackedImageImpl(2, 1);
+    image.setPixel(0, 0, 250, 10, 128);
+    image.setPixel(1, 0, 0, 255, 60);
+    IImageState brighter = new BrightenTransformation(20).run(image);
+    assertEquals(255, brighter.getRedChannel(0, 0));
+    assertEquals(30, brighter.getGreenChannel(0, 0));
+    assertEquals(148, brighter.getBlueChannel(0, 0));
+    IImageState darker = new BrightenTransformation(-70).run(image);
+    assertEquals(0, darker.getRedChannel(1, 0));
+    assertEquals(185, darker.getGreenChannel(1, 0));
+    assertEquals(0, darker.getBlueChannel(1, 0));
+  }
+
+  @Test
+  public void testGreyscaleChannelTable() {
+    IImage image = KernelTest.randomImage(9, 7, 41);
+    IImageState green = new GreyscaleChannelTransformation("green").run(image);
+    for (int y = 0; y < 7; y++) {
+      for (int x = 0; x < 9; x++) {
+        int value = image.getGreenChannel(x, y);
+        assertEquals(value, green.getRedChannel(x, y));
+        assertEquals(value, green.getGreenChannel(x, y));
+        assertEquals(value, green.getBlueChannel(x, y));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGreyscaleInvalidChannel() {
+    new GreyscaleChannelTransformation("pink").run(KernelTest.randomImage(2, 2, 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTableOutOfRange() {
+    LookupTable.perChannel(value -> value + 1);
+  }
+
+  // combining two tables must give what applying them one after the other gives
+  @Test
+  public void testCombinedTablesMatchSequence() {
+    IImage image = KernelTest.randomImage(31, 17, 43);
+    IPointTransformation[] steps = {
+        new GreyscaleChannelTransformation("blue"), new BrightenTransformation(-25),
+        new GammaTransformation(1.8), new LevelsAdjustTransformation(10, 90, 240),
+        new PosterizeTransformation(5)
+    };
+    IImageState expected = image;
+    LookupTable combined = LookupTable.perChannel(value -> value);
+    for (IPointTransformation step : steps) {
+      expected = step.run(expected);
+      combined = combined.andThen(step.getLookupTable());
+    }
+    KernelTest.assertSameImage(expected, combined.apply(image));
+
+    LookupTable swap = LookupTable.perChannel(value -> 255 - value, value -> value / 2,
+            value -> value);
+    LookupTable red = LookupTable.greyscaleFrom(16);
+    KernelTest.assertSameImage(red.apply(swap.apply(image)), swap.andThen(red).apply(image));
+  }
+
+  @Test
+  public void testLevelsGammaPosterize() {
+    PackedImageImpl image = new PackedImageImpl(4, 1);
+    image.setPixel(0, 0, 0, 10, 20);
+    image.setPixel(1, 0, 100, 128, 200);
+    image.setPixel(2, 0, 230, 240, 255);
+    image.setPixel(3, 0, 64, 191, 127);
+
+    IImageState levels = new LevelsAdjustTransformation(20, 100, 230).run(image);
+    assertEquals(0, levels.getBlueChannel(0, 0));
+    assertEquals(128, levels.getRedChannel(1, 0));
+    assertEquals(255, levels.getRedChannel(2, 0));
+    assertEquals(255, levels.getGreenChannel(2, 0));
+
+    IImageState gamma = new GammaTransformation(2).run(image);
+    assertEquals(0, gamma.getRedChannel(0, 0));
+    assertEquals(255, gamma.getBlueChannel(2, 0));
+    assertEquals(128, gamma.getRedChannel(3, 0));
+    KernelTest.assertSameImage(image, new GammaTransformation(1).run(image));
+
+    IImageState poster = new PosterizeTransformation(2).run(image);
+    assertEquals(0, poster.getRedChannel(3, 0));
+    assertEquals(255, poster.getGreenChannel(3, 0));
+    assertEquals(0, poster.getBlueChannel(3, 0));
+    KernelTest.assertSameImage(image, new PosterizeTransformation(256).run(image));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLevelsOutOfOrder() {
+    new LevelsAdjustTransformation(50, 40, 200);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeGamma() {
+    new GammaTransformation(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPosterizeOneLevel() {
+    new PosterizeTransformation(1);
+  }
+
+  @Test
+  public void testPointCommands() throws Exception {
+    IImageDataBase model = new ImageDataBase();
+    IImage image = KernelTest.randomImage(6, 5, 47);
+    model.add("img", image);
+    StringBuilder log = new StringBuilder();
+    new ControllerImpl(new StringReader("levels-adjust 20 100 230 img lv\n"
+            + "gamma 2.2 img gm\nposterize 4 img ps\nposterize 1 img bad\n"), model, log).start();
+    KernelTest.assertSameImage(new LevelsAdjustTransformation(20, 100, 230).run(image),
+            model.get("lv"));
+    KernelTest.assertSameImage(new GammaTransformation(2.2).run(image), model.get("gm"));
+    KernelTest.assertSameImage(new PosterizeTransformation(4).run(image), model.get("ps"));
+    assertTrue(model.get("bad") == null);
+  }
+}
@@ -0,0 +1,66 @@
+import java.io.File;
+import java.io.IOException;
+
+import controller.ImageUtil;
+import controller.io.PNGImageSaver;
+import controller.io.QOIImageLoader;
+import controller.io.QOIImageSaver;
+import model.IImageState;
+
+/**
+ * Compares saving and loading a QOI file against a PNG file, on a tiled copy of res/Lake.png,
+ * checking that both give back the image they were given.
+ * Usage: java QOIBenchmark [scale] (the default scale is 4).
+ */
+public class QOIBenchmark {
+
+  /**
+   * Runs the benchmark from the project root.
+   * @param args optional scale factor applied to each side of res/Lake.png.
+   * @throws IOException if res/Lake.png cannot be read or the temporary files cannot be written.
+   */
+  public static void main(String[] args) throws IOException {
+    int scale = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+    IImageState image = KernelBenchmark.tiledLake(scale);
+    File png = File.createTempFile("benchmark", ".png");
+    png.deleteOnExit();
+    File qoi = File.createTempFile("benchmark", ".qoi");
+    qoi.deleteOnExit();
+
+    for (int round = 0; round < 5; round++) {
+      long start = System.nanoTime();
+      new PNGImageSaver(png.getPath(), image).run();
+      long pngSave = System.nanoTime() - start;
+      start = System.nanoTime();
+      IImageState fromPNG = ImageUtil.readPNG(png.getPath());
+      long pngLoad = System.nanoTime() - start;
+      start = System.nanoTime();
+      new QOIImageSaver(qoi.getPath(), image).run();
+      long qoiSave = System.nanoTime() - start;
+      start = System.nanoTime();
+      IImageState fromQOI = new QOIImageLoader(qoi.getPath()).run();
+      long qoiLoad = System.nanoTime() - start;
+
+      check(image, fromPNG);
+      check(image, fromQOI);
+      System.out.printf("PNG: save %5d ms  load %5d ms   QOI: save %5d ms  load %5d ms%n",
+              pngSave / 1000000, pngLoad / 1000000, qoiSave / 1000000, qoiLoad / 1000000);
+    }
+    System.out.println("Image size: " + image.getWidth() + "x" + image.getHeight() + ", PNG "
+            + png.length() / 1000 + " KB, QOI " + qoi.length() / 1000 + " KB");
+  }
+
+  private static void check(IImageState expected, IImageState actual) {
+    int[] expectedRow = new int[expected.getWidth()];
+    int[] actualRow = new int[actual.getWidth()];
+    for (int y = 0; y < expected.getHeight(); y++) {
+      expected.getRow(y, expectedRow);
+      actual.getRow(y, actualRow);
+      for (int x = 0; x < expectedRow.length; x++) {
+        if (expectedRow[x] != actualRow[x]) {
+          throw new IllegalStateException("Images differ at " + x + ", " + y);
+        }
+      }
+    }
+  }
+}
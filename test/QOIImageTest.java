@@ -0,0 +1,159 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+
+import controller.ControllerImpl;
+import controller.io.QOIImageLoader;
+import controller.io.QOIImageSaver;
+import model.IImage;
+import model.IImageDataBase;
+import model.IImageState;
+import model.ImageDataBase;
+import model.PackedImageImpl;
+
+/**
+ * Represents the tests for QOIImageSaver and QOIImageLoader, which write and read the QOI format.
+ */
+public class QOIImageTest {
+
+  private static String temporary() throws IOException {
+    File file = File.createTempFile("qoi", ".qoi");
+    file.deleteOnExit();
+    return file.getPath();
+  }
+
+  private static String write(int... bytes) throws IOException {
+    String path = temporary();
+    try (FileOutputStream output = new FileOutputStream(path)) {
+      for (int b : bytes) {
+        output.write(b);
+      }
+    }
+    return path;
+  }
+
+  @Test
+  public void testExactBytes() throws IOException {
+    IImage image = new PackedImageImpl(7, 1);
+    image.setPixel(2, 0, 1, 0, 255);
+    image.setPixel(3, 0, 1, 0, 255);
+    image.setPixel(4, 0, 11, 20, 25);
+    image.setPixel(5, 0, 1, 0, 255);
+    image.setPixel(6, 0, 9, 10, 7);
+    String path = temporary();
+    new QOIImageSaver(path, image).run();
+
+    byte[] expected = {'q', 'o', 'i', 'f', 0, 0, 0, 7, 0, 0, 0, 1, 3, 0,
+        (byte) 0xC1, // two black pixels, the same as the pixel before the image
+        (byte) 0x79, // red + 1, blue - 1
+        (byte) 0xC0, // the same again
+        (byte) 0xFE, 11, 20, 25, // too far from the previous pixel
+        (byte) 0x31, // seen recently, in slot 49
+        (byte) 0xAA, (byte) 0x66, // green + 10, red and blue 2 less than that
+        0, 0, 0, 0, 0, 0, 0, 1};
+    assertArrayEquals(expected, Files.readAllBytes(new File(path).toPath()));
+    KernelTest.assertSameImage(image, new QOIImageLoader(path).run());
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    IImageState noise = KernelTest.randomImage(31, 17, 8);
+    String path = temporary();
+    new QOIImageSaver(path, noise).run();
+    KernelTest.assertSameImage(noise, new QOIImageLoader(path).run());
+
+    // runs longer than one chunk can hold, wrapping gradients and repeated colours
+    IImage smooth = new PackedImageImpl(150, 40);
+    for (int y = 0; y < 40; y++) {
+      for (int x = 0; x < 150; x++) {
+        if (y < 10) {
+          smooth.setPixel(x, y, 200, 200, 200);
+        } else if (y < 30) {
+          smooth.setPixel(x, y, (x * 3) % 256, (x + y) % 256, (255 - x * 7 % 256));
+        } else {
+          smooth.setPixel(x, y, x % 3 * 100, 0, x % 2 * 255);
+        }
+      }
+    }
+    new QOIImageSaver(path, smooth).run();
+    KernelTest.assertSameImage(smooth, new QOIImageLoader(path).run());
+  }
+
+  @Test
+  public void testAlphaIsDropped() throws IOException {
+    // a transparent pixel, then the same pixel again from slot 20 of the recent pixels
+    IImageState image = new QOIImageLoader(write('q', 'o', 'i', 'f', 0, 0, 0, 2, 0, 0, 0, 1, 4,
+            0, 0xFF, 10, 20, 30, 0, 0x14, 0, 0, 0, 0, 0, 0, 0, 1)).run();
+    int[] row = new int[2];
+    image.getRow(0, row);
+    assertArrayEquals(new int[] {0x0A141E, 0x0A141E}, row);
+  }
+
+  @Test
+  public void testCommands() throws IOException {
+    IImageDataBase model = new ImageDataBase();
+    IImageState image = KernelTest.randomImage(9, 4, 30);
+    model.add("img", image);
+    String path = temporary();
+    new ControllerImpl(new StringReader("save " + path + " img\nload " + path + " a\n"), model,
+            new StringBuilder()).start();
+    KernelTest.assertSameImage(image, model.get("a"));
+  }
+
+  // the extension picks the format, whatever the directories on the way are called
+  @Test
+  public void testExtensionWinsOverDirectoryName() throws IOException {
+    File directory = Files.createTempDirectory("formats").toFile();
+    directory.deleteOnExit();
+    File png = new File(directory, "png");
+    File jpgs = new File(directory, "jpgs");
+    assertEquals(true, png.mkdir() && jpgs.mkdir());
+    png.deleteOnExit();
+    jpgs.deleteOnExit();
+    String qoi = new File(png, "a.qoi").getPath();
+    String bmp = new File(jpgs, "a.bmp").getPath();
+    new File(qoi).deleteOnExit();
+    new File(bmp).deleteOnExit();
+    IImageDataBase model = new ImageDataBase();
+    IImageState image = KernelTest.randomImage(6, 5, 31);
+    model.add("img", image);
+    new ControllerImpl(new StringReader("save " + qoi + " img\nsave " + bmp + " img\nload "
+            + qoi + " q\nload " + bmp + " b\n"), model, new StringBuilder()).start();
+
+    byte[] qoiBytes = Files.readAllBytes(new File(qoi).toPath());
+    assertEquals("qoif", new String(qoiBytes, 0, 4, "US-ASCII"));
+    byte[] bmpBytes = Files.readAllBytes(new File(bmp).toPath());
+    assertEquals("BM", new String(bmpBytes, 0, 2, "US-ASCII"));
+    KernelTest.assertSameImage(image, model.get("q"));
+    KernelTest.assertSameImage(image, model.get("b"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testTruncatedFile() throws IOException {
+    new QOIImageLoader(write('q', 'o', 'i', 'f', 0, 0, 0, 2, 0, 0, 0, 2, 3, 0, 0xC0)).run();
+  }
+
+  @Test
+  public void testImageTooLarge() throws IOException {
+    // 65536 x 65537 pixels, which overflows an int
+    try {
+      new QOIImageLoader(write('q', 'o', 'i', 'f', 0, 1, 0, 0, 0, 1, 0, 1, 3, 0, 0xC0)).run();
+      fail("the image should have been refused");
+    } catch (IllegalStateException e) {
+      assertEquals("Invalid QOI file: the image is too large.", e.getMessage());
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testNotQOI() throws IOException {
+    new QOIImageLoader(write('P', '6', ' ', '1', ' ', '1', ' ', '2', '5', '5', '\n', 1, 2, 3, 4,
+            5, 6, 7)).run();
+  }
+}
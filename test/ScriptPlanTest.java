@@ -0,0 +1,203 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import controller.ControllerImpl;
+import controller.ScriptMode;
+import model.IImage;
+import model.IImageDataBase;
+import model.IImageState;
+import model.ImageDataBase;
+import model.SpillingImageDataBase;
+import model.transformations.BlurTransformation;
+import model.transformations.BrightenTransformation;
+import model.transformations.SharpenTransformation;
+
+/**
+ * Represents the tests for running a script in PLANNED mode, where the controller reads it into
+ * a graph first, computes identical work once and skips work that is never saved.
+ */
+public class ScriptPlanTest {
+
+  private static IImageDataBase run(String script, IImage image, StringBuilder log) {
+    return run(script, image, log, 1);
+  }
+
+  private static IImageDataBase run(String script, IImage image, StringBuilder log,
+                                    int threads) {
+    IImageDataBase model = new ImageDataBase();
+    model.add("img", image);
+    new ControllerImpl(new StringReader(script), model, log, ScriptMode.PLANNED, threads)
+            .start();
+    return model;
+  }
+
+  private static String temporaryPPM() throws IOException {
+    File file = File.createTempFile("plan", ".ppm");
+    file.deleteOnExit();
+    return file.getPath();
+  }
+
+  @Test
+  public void testIdenticalWorkIsShared() throws IOException {
+    IImage image = KernelTest.randomImage(9, 7, 11);
+    String path = temporaryPPM();
+    IImageDataBase model = run("blur img a\nblur img b\nsharpen a c\nsharpen b d\n"
+            + "save " + path + " c\nsave " + path + " d\n", image, new StringBuilder());
+
+    KernelTest.assertSameImage(new SharpenTransformation().run(new BlurTransformation()
+            .run(image)), model.get("d"));
+    assertTrue(model.get("c") == model.get("d"));
+  }
+
+  @Test
+  public void testUnsavedWorkIsSkipped() throws IOException {
+    IImage image = KernelTest.randomImage(6, 6, 2);
+    String path = temporaryPPM();
+    IImageDataBase model = run("brighten 10 img a\nblur img b\nsharpen b c\nsave " + path
+            + " b\n", image, new StringBuilder());
+
+    assertTrue(model.get("a") == null);
+    assertTrue(model.get("c") == null);
+    KernelTest.assertSameImage(new BlurTransformation().run(image), model.get("b"));
+    KernelTest.assertSameImage(image, model.get("img"));
+  }
+
+  @Test
+  public void testFusedChainStoresOnlyItsEnd() throws IOException {
+    IImage image = KernelTest.randomImage(8, 5, 4);
+    String path = temporaryPPM();
+    IImageDataBase model = run("brighten 20 img a\nblur a b\nsharpen b c\nsave " + path
+            + " c\n", image, new StringBuilder());
+
+    KernelTest.assertSameImage(new SharpenTransformation().run(new BlurTransformation()
+            .run(new BrightenTransformation(20).run(image))), model.get("c"));
+    assertTrue(model.get("a") == null);
+    assertTrue(model.get("b") == null);
+  }
+
+  @Test
+  public void testLoadSeesEarlierSaves() throws IOException {
+    IImage image = KernelTest.randomImage(5, 4, 8);
+    String path = temporaryPPM();
+    String other = temporaryPPM();
+    IImageDataBase model = run("save " + path + " img\nload " + path + " x\n"
+            + "brighten 30 x y\nsave " + path + " y\nload " + path + " z\n"
+            + "save " + other + " x\nsave " + other + " z\n", image, new StringBuilder());
+
+    KernelTest.assertSameImage(image, model.get("x"));
+    KernelTest.assertSameImage(new BrightenTransformation(30).run(image), model.get("z"));
+  }
+
+  @Test
+  public void testErrorsAreReportedInOrder() {
+    IImage image = KernelTest.randomImage(3, 3, 1);
+    StringBuilder log = new StringBuilder();
+    run("foo\nbrighten 10 nothing a\nsave nowhere.ppm nothing\nbrighten 10 img", image, log);
+    assertEquals("Invalid command.Image with specified id doesn't exist."
+            + "Image with specified id doesn't exist.Fourth argument must be the image id.",
+            log.toString());
+  }
+
+  @Test
+  public void testInvalidParameterMatchesImmediate() throws IOException {
+    IImage image = KernelTest.randomImage(7, 6, 8);
+    String path = temporaryPPM();
+    // the rest of the script after the invalid parameter reads an image the plan wrote but
+    // never saved
+    String script = "blur img a\nsharpen a b\nbrighten abc x y value-component x z\n"
+            + "brighten 10 b c\nsave " + path + " c\n";
+    StringBuilder expectedLog = new StringBuilder();
+    IImageDataBase expected = new ImageDataBase();
+    expected.add("img", image);
+    new ControllerImpl(new StringReader(script), expected, expectedLog, ScriptMode.IMMEDIATE, 1)
+            .start();
+
+    for (int threads : new int[] {1, 4}) {
+      StringBuilder log = new StringBuilder();
+      IImageDataBase model = run(script, image, log, threads);
+      assertEquals(expectedLog.toString(), log.toString());
+      assertEquals(expected.getImages().keySet(), model.getImages().keySet());
+      for (String id : expected.getImages().keySet()) {
+        KernelTest.assertSameImage(expected.get(id), model.get(id));
+      }
+    }
+  }
+
+  @Test
+  public void testThreadsMatchOneThread() throws IOException {
+    IImage image = KernelTest.randomImage(16, 11, 6);
+    String first = temporaryPPM();
+    String second = temporaryPPM();
+    String script = "save " + first + " img\nload " + first + " a\nblur a b\nsharpen b c\n"
+            + "brighten 25 img d\nblur d e\nbrighten 25 img f\nblur f g\n"
+            + "save " + first + " c\nload " + first + " h\ngamma 1.8 h i\n"
+            + "posterize 1 i j\nfoo\nsave " + second + " e\nsave " + second + " g\n"
+            + "save " + second + " i\nsave " + second + " missing\n";
+    StringBuilder oneLog = new StringBuilder();
+    IImageDataBase one = run(script, image, oneLog, 1);
+    StringBuilder manyLog = new StringBuilder();
+    IImageDataBase many = run(script, image, manyLog, 4);
+
+    assertEquals(oneLog.toString(), manyLog.toString());
+    assertEquals(one.getImages().keySet(), many.getImages().keySet());
+    for (String id : one.getImages().keySet()) {
+      KernelTest.assertSameImage(one.get(id), many.get(id));
+    }
+    assertTrue(many.get("e") == many.get("g"));
+  }
+
+  @Test
+  public void testImagesAreStoredAsTheyAreComputed() throws IOException {
+    // room for two of the 64x64 images
+    long budget = 2 * 64 * 64 * 4;
+    List<WeakReference<IImageState>> added = new ArrayList<>();
+    long[] mostResident = new long[1];
+    int[] reachable = new int[1];
+    SpillingImageDataBase model = new SpillingImageDataBase(budget) {
+      @Override
+      public synchronized void add(String id, IImageState image) {
+        super.add(id, image);
+        mostResident[0] = Math.max(mostResident[0], getResidentBytes());
+        added.add(new WeakReference<>(image));
+        if (id.equals("b39")) {
+          System.gc();
+          for (WeakReference<IImageState> reference : added) {
+            reachable[0] += reference.get() == null ? 0 : 1;
+          }
+        }
+      }
+    };
+    model.add("img", KernelTest.randomImage(64, 64, 3));
+    added.clear();
+    String path = temporaryPPM();
+    StringBuilder script = new StringBuilder();
+    for (int i = 0; i < 40; i++) {
+      script.append("brighten ").append(i + 1).append(" img b").append(i).append("\nsave ")
+              .append(path).append(" b").append(i).append("\n");
+    }
+    new ControllerImpl(new StringReader(script.toString()), model, new StringBuilder(),
+            ScriptMode.PLANNED, 1).start();
+
+    assertEquals(40, added.size());
+    assertTrue(mostResident[0] <= budget);
+    // the plan let go of each image after saving it, so the spilled ones could be collected
+    assertTrue(reachable[0] <= 3);
+    KernelTest.assertSameImage(new BrightenTransformation(40).run(model.get("img")),
+            model.get("b39"));
+    model.close();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoThreads() {
+    new ControllerImpl(new StringReader(""), new ImageDataBase(), new StringBuilder(),
+            ScriptMode.PLANNED, 0);
+  }
+}
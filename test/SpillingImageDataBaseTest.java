@@ -0,0 +1,121 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.Map;
+
+import controller.ControllerImpl;
+import model.IImageState;
+import model.ImageDataBase;
+import model.SpillingImageDataBase;
+
+/**
+ * Represents the tests for SpillingImageDataBase, which keeps a budget of bytes of images in
+ * memory and spills the least recently used ones to disk.
+ */
+public class SpillingImageDataBaseTest {
+
+  private static File directory() throws IOException {
+    File directory = Files.createTempDirectory("spill").toFile();
+    directory.deleteOnExit();
+    return directory;
+  }
+
+  @Test
+  public void testLeastRecentlyUsedIsSpilled() throws IOException {
+    // room for two 10x10 images of 400 bytes each
+    SpillingImageDataBase images = new SpillingImageDataBase(800, directory());
+    IImageState a = KernelTest.randomImage(10, 10, 1);
+    IImageState b = KernelTest.randomImage(10, 10, 2);
+    IImageState c = KernelTest.randomImage(10, 10, 3);
+    images.add("a", a);
+    images.add("b", b);
+    assertSame(a, images.get("a"));
+    images.add("c", c); // b was used least recently
+    assertEquals(1, images.getSpills());
+    assertEquals(800, images.getResidentBytes());
+
+    assertSame(a, images.get("a"));
+    assertSame(c, images.get("c"));
+    assertEquals(0, images.getMisses());
+    KernelTest.assertSameImage(b, images.get("b"));
+    assertEquals(1, images.getMisses());
+    assertEquals(3, images.getHits());
+    // reading b back spilled a, and reading a back spills c
+    KernelTest.assertSameImage(a, images.get("a"));
+    assertEquals(3, images.getSpills());
+    // b is still in the spill file, so it is not written again to make room for c
+    KernelTest.assertSameImage(c, images.get("c"));
+    assertEquals(3, images.getSpills());
+    assertEquals(3, images.getMisses());
+    assertNull(images.get("d"));
+    images.close();
+  }
+
+  @Test
+  public void testReplacedImages() throws IOException {
+    SpillingImageDataBase images = new SpillingImageDataBase(0, directory());
+    IImageState last = null;
+    for (int i = 0; i < 20; i++) {
+      last = KernelTest.randomImage(8, 5, i);
+      images.add("img", last);
+      images.add("other" + i % 3, KernelTest.randomImage(3, 4, i));
+    }
+    assertEquals(4, images.getImages().size());
+    KernelTest.assertSameImage(last, images.get("img"));
+    KernelTest.assertSameImage(KernelTest.randomImage(3, 4, 19), images.get("other1"));
+    KernelTest.assertSameImage(KernelTest.randomImage(3, 4, 18), images.get("other0"));
+    assertEquals(3 * 4 * 4, images.getResidentBytes());
+    images.close();
+  }
+
+  @Test
+  public void testImagesView() throws IOException {
+    SpillingImageDataBase images = new SpillingImageDataBase(100, directory());
+    images.add("a", KernelTest.randomImage(5, 5, 4));
+    images.add("b", KernelTest.randomImage(5, 5, 5));
+    Map<String, IImageState> view = images.getImages();
+    assertEquals(2, view.size());
+    assertTrue(view.containsKey("a"));
+    KernelTest.assertSameImage(KernelTest.randomImage(5, 5, 4), view.get("a"));
+    images.close();
+  }
+
+  @Test
+  public void testScriptMatchesUnbounded() throws IOException {
+    String script = "load res/Lake.png lake\nblur lake a\nsharpen a b\nvalue-component lake c\n"
+            + "brighten 10 b d\n";
+    ImageDataBase expected = new ImageDataBase();
+    new ControllerImpl(new StringReader(script), expected, new StringBuilder()).start();
+    SpillingImageDataBase images = new SpillingImageDataBase(1, directory());
+    new ControllerImpl(new StringReader(script), images, new StringBuilder()).start();
+
+    assertTrue(images.getSpills() > 0);
+    for (String id : new String[] {"lake", "a", "b", "c", "d"}) {
+      KernelTest.assertSameImage(expected.get(id), images.get(id));
+    }
+    images.close();
+  }
+
+  @Test
+  public void testCloseDeletesSpillFile() throws IOException {
+    File directory = directory();
+    SpillingImageDataBase images = new SpillingImageDataBase(0, directory);
+    images.add("a", KernelTest.randomImage(4, 4, 1));
+    images.add("b", KernelTest.randomImage(4, 4, 2));
+    assertEquals(1, directory.listFiles().length);
+    images.close();
+    assertEquals(0, directory.listFiles().length);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeBudget() {
+    new SpillingImageDataBase(-1);
+  }
+}
@@ -0,0 +1,113 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import model.IImage;
+import model.IImageState;
+import model.PackedImageImpl;
+import model.SummedAreaTable;
+import model.transformations.BoxBlurTransformation;
+import model.transformations.FastGaussianBlurTransformation;
+import model.transformations.GaussianBlurTransformation;
+
+
+/**
+ * Represents the tests for the SummedAreaTable class and the box and fast Gaussian blurs built on
+ * top of it.
+ */
+public class SummedAreaTableTest {
+  private IImage image;
+  private int[] pixels;
+
+  @Before
+  public void setup() {
+    image = KernelTest.randomImage(37, 23, 31);
+    pixels = new int[37 * 23];
+    image.getRGB(0, 0, 37, 23, pixels, 0, 37);
+  }
+
+  @Test
+  public void testRectangleSums() {
+    SummedAreaTable table = new SummedAreaTable(37, 23);
+    table.build(pixels, 8);
+    long expected = 0;
+    for (int y = 4; y < 19; y++) {
+      for (int x = 2; x < 30; x++) {
+        expected += image.getGreenChannel(x, y);
+      }
+    }
+    assertEquals(expected, table.sum(2, 4, 30, 19));
+    assertEquals(image.getGreenChannel(5, 6), table.sum(5, 6, 6, 7));
+    assertEquals(0, table.sum(3, 3, 3, 10));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSumOutOfBounds() {
+    new SummedAreaTable(4, 4).sum(0, 0, 5, 4);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeBoxRadius() {
+    new BoxBlurTransformation(-1);
+  }
+
+  // every box average must match a direct average over the part of the box inside the image
+  @Test
+  public void testBoxBlurMatchesDirectAverage() {
+    for (int radius : new int[] {0, 1, 4, 30}) {
+      IImageState blurred = new BoxBlurTransformation(radius).run(image);
+      for (int y = 0; y < 23; y++) {
+        for (int x = 0; x < 37; x++) {
+          long sum = 0;
+          long count = 0;
+          for (int yy = Math.max(0, y - radius); yy <= Math.min(22, y + radius); yy++) {
+            for (int xx = Math.max(0, x - radius); xx <= Math.min(36, x + radius); xx++) {
+              sum += image.getRedChannel(xx, yy);
+              count++;
+            }
+          }
+          assertEquals((sum + count / 2) / count, blurred.getRedChannel(x, y));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testBoxRadiiMatchGaussianVariance() {
+    for (int radius : new int[] {20, 60, 100}) {
+      double sigma = radius / 3.0;
+      double variance = 0;
+      for (int boxRadius : new FastGaussianBlurTransformation(radius).getBoxRadii()) {
+        int width = 2 * boxRadius + 1;
+        variance += (width * width - 1) / 12.0;
+      }
+      assertEquals(sigma * sigma, variance, 0.1 * sigma * sigma);
+    }
+    assertArrayEquals(new int[] {0, 0, 0}, new FastGaussianBlurTransformation(0).getBoxRadii());
+  }
+
+  @Test
+  public void testFastGaussianCloseToGaussian() {
+    IImage gradient = new PackedImageImpl(120, 80);
+    for (int y = 0; y < 80; y++) {
+      for (int x = 0; x < 120; x++) {
+        int value = (x * 2 + (x / 10 % 2) * 50) % 256;
+        gradient.setPixel(x, y, value, 255 - value, y * 3);
+      }
+    }
+    IImageState fast = new FastGaussianBlurTransformation(12).run(gradient);
+    IImageState exact = new GaussianBlurTransformation(12).run(gradient);
+    // away from the border, where the Gaussian blur reads black padding
+    int worst = 0;
+    for (int y = 20; y < 60; y++) {
+      for (int x = 20; x < 100; x++) {
+        worst = Math.max(worst, Math.abs(fast.getRedChannel(x, y) - exact.getRedChannel(x, y)));
+        worst = Math.max(worst, Math.abs(fast.getBlueChannel(x, y) - exact.getBlueChannel(x, y)));
+      }
+    }
+    assertTrue("largest difference " + worst, worst <= 4);
+    KernelTest.assertSameImage(image, new FastGaussianBlurTransformation(0).run(image));
+  }
+}
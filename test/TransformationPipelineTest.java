@@ -0,0 +1,138 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import controller.ControllerImpl;
+import controller.ScriptMode;
+import model.IImage;
+import model.IImageDataBase;
+import model.IImageState;
+import model.ImageDataBase;
+import model.transformations.BlurTransformation;
+import model.transformations.BrightenTransformation;
+import model.transformations.FastGaussianBlurTransformation;
+import model.transformations.GammaTransformation;
+import model.transformations.GreyscaleIntensityTransformation;
+import model.transformations.GreyscaleLumaTransformation;
+import model.transformations.ITransformation;
+import model.transformations.SharpenTransformation;
+import model.transformations.TransformationPipeline;
+
+/**
+ * Represents the tests for fused transformation pipelines and the controller's batch mode, which
+ * must give exactly the images that running each transformation on its own gives.
+ */
+public class TransformationPipelineTest {
+
+  private static IImageState sequential(IImageState image, ITransformation... transformations) {
+    IImageState result = image;
+    for (ITransformation transformation : transformations) {
+      result = transformation.run(result);
+    }
+    return result;
+  }
+
+  private static TransformationPipeline pipeline(ITransformation... transformations) {
+    TransformationPipeline pipeline = new TransformationPipeline();
+    for (ITransformation transformation : transformations) {
+      pipeline.then(transformation);
+    }
+    return pipeline;
+  }
+
+  @Test
+  public void testPipelineMatchesSequential() {
+    IImage image = KernelTest.randomImage(37, 23, 5);
+    ITransformation[][] chains = {
+        {new BrightenTransformation(30), new GammaTransformation(0.8)},
+        {new BrightenTransformation(-20), new BlurTransformation(),
+            new GreyscaleLumaTransformation()},
+        {new GreyscaleIntensityTransformation(), new SharpenTransformation(),
+            new BrightenTransformation(10), new BlurTransformation()},
+        {new BlurTransformation(), new FastGaussianBlurTransformation(2),
+            new GreyscaleLumaTransformation(), new BrightenTransformation(5)}
+    };
+    for (ITransformation[] chain : chains) {
+      KernelTest.assertSameImage(sequential(image, chain), pipeline(chain).run(image));
+    }
+  }
+
+  @Test
+  public void testPassCount() {
+    assertEquals(0, new TransformationPipeline().getPassCount());
+    assertEquals(1, pipeline(new BrightenTransformation(3), new GammaTransformation(1.5),
+            new GreyscaleLumaTransformation()).getPassCount());
+    assertEquals(1, pipeline(new BrightenTransformation(3), new BlurTransformation(),
+            new GreyscaleLumaTransformation()).getPassCount());
+    assertEquals(2, pipeline(new BlurTransformation(), new SharpenTransformation())
+            .getPassCount());
+    assertEquals(3, pipeline(new BlurTransformation(), new FastGaussianBlurTransformation(2),
+            new BrightenTransformation(1)).getPassCount());
+  }
+
+  @Test
+  public void testEmptyPipelineCopies() {
+    IImage image = KernelTest.randomImage(4, 3, 9);
+    IImageState copy = new TransformationPipeline().run(image);
+    assertTrue(copy != image);
+    KernelTest.assertSameImage(image, copy);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullStage() {
+    new TransformationPipeline().then(null);
+  }
+
+  @Test
+  public void testBatchFusesUnreferencedIntermediates() {
+    IImage image = KernelTest.randomImage(12, 9, 21);
+    String script = "brighten 20 img a\nblur a b\ngamma 1.4 b c\nsharpen c d\n";
+
+    IImageDataBase fused = new ImageDataBase();
+    fused.add("img", image);
+    new ControllerImpl(new StringReader(script), fused, new StringBuilder(), ScriptMode.FUSED)
+            .start();
+    IImageDataBase plain = new ImageDataBase();
+    plain.add("img", image);
+    new ControllerImpl(new StringReader(script), plain, new StringBuilder()).start();
+
+    KernelTest.assertSameImage(plain.get("d"), fused.get("d"));
+    assertTrue(fused.get("a") == null);
+    assertTrue(fused.get("c") == null);
+  }
+
+  @Test
+  public void testBatchKeepsReferencedIntermediates() {
+    IImage image = KernelTest.randomImage(8, 8, 3);
+    IImageDataBase model = new ImageDataBase();
+    model.add("img", image);
+    new ControllerImpl(new StringReader("brighten 20 img a\nblur a b\ngamma 1.4 b c\n"
+            + "sharpen a d\n"), model, new StringBuilder(), ScriptMode.FUSED).start();
+
+    IImageState a = new BrightenTransformation(20).run(image);
+    KernelTest.assertSameImage(a, model.get("a"));
+    KernelTest.assertSameImage(sequential(a, new BlurTransformation(),
+            new GammaTransformation(1.4)), model.get("c"));
+    KernelTest.assertSameImage(new SharpenTransformation().run(a), model.get("d"));
+    assertTrue(model.get("b") == null);
+  }
+
+  @Test
+  public void testBatchReportsErrorsLikeSequential() {
+    String script = "brighten 10 nothing a\nfoo\nbrighten 10 img a\nblur a b\n"
+            + "gamma x b c\nblur b";
+    StringBuilder fusedLog = new StringBuilder();
+    IImageDataBase fused = new ImageDataBase();
+    fused.add("img", KernelTest.randomImage(5, 5, 1));
+    new ControllerImpl(new StringReader(script), fused, fusedLog, ScriptMode.FUSED).start();
+    StringBuilder plainLog = new StringBuilder();
+    IImageDataBase plain = new ImageDataBase();
+    plain.add("img", KernelTest.randomImage(5, 5, 1));
+    new ControllerImpl(new StringReader(script), plain, plainLog).start();
+
+    assertEquals(plainLog.toString(), fusedLog.toString());
+    KernelTest.assertSameImage(plain.get("b"), fused.get("b"));
+  }
+}